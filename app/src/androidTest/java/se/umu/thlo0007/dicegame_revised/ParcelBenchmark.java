@@ -0,0 +1,260 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import android.os.Parcel;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumentation benchmark, which measures the parcel size and the encode and decode time of a finished game,
+ * with the packed encoding of {@link GamePlayModel} and with the list and map encoding it replaced.
+ * Both encodings are decoded into a new model. The dices and the {@link ScoreCalculator} are measured the same way,
+ * packed and with the encodings they replaced. The results are written to the log.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ParcelBenchmark {
+
+    private static final String TAG = "ParcelBenchmark";
+    private static final int ITERATIONS = 10000;
+
+    private GamePlayModel gamePlayModel;
+    private ScoreCalculator scoreCalculator;
+    private ArrayList<Dice> dices;
+
+    /**
+     * Plays a complete game the way {@link MainActivity} does, throwing twice per round.
+     */
+    @Before
+    public void playGame() throws Exception {
+        gamePlayModel = new GamePlayModel(30);
+        scoreCalculator = new ScoreCalculator();
+        dices = new ArrayList<>();
+        for(int j = 0; j < 6; j++)
+        {
+            dices.add(new Dice());
+        }
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            for(int t = 0; t < 2; t++)
+            {
+                for(Dice d : dices)
+                {
+                    d.throwDice(gamePlayModel.getRandom());
+                }
+                gamePlayModel.newThrow();
+            }
+            for(Dice d : dices)
+            {
+                d.roundRestore();
+            }
+            String scoreChoice = ScoreTable.getScoreChoice(choice);
+            scoreCalculator.setScoreChoice(scoreChoice);
+            scoreCalculator.setDiceValues(dices);
+            gamePlayModel.addScore(scoreCalculator.getScore());
+            gamePlayModel.addScoreChoice(scoreChoice);
+            gamePlayModel.addDiceImageData(dices, scoreChoice);
+            gamePlayModel.newRound();
+        }
+    }
+
+    /**
+     * Writes the game with the list and map encoding used before the packed encoding.
+     */
+    private void writeLists(Parcel dest)
+    {
+        dest.writeInt(gamePlayModel.getThrowCounter());
+        dest.writeInt(gamePlayModel.getRoundCounter());
+        dest.writeByte((byte) (gamePlayModel.isGameOver() ? 1 : 0));
+        dest.writeList(gamePlayModel.getScores());
+        dest.writeList(gamePlayModel.getScoreChoices());
+        dest.writeLong(gamePlayModel.getSeed());
+        dest.writeLong(gamePlayModel.getRandom().getState());
+        dest.writeMap(gamePlayModel.getRoundDiceImageData());
+    }
+
+    /**
+     * Reads a game written by {@link ParcelBenchmark#writeLists(Parcel)} into a new model, the way the model was read
+     * before the packed encoding. The model has no way to take the state of the random generator, so it is only read.
+     */
+    private GamePlayModel readLists(Parcel in)
+    {
+        int throwCounter = in.readInt();
+        in.readInt();
+        in.readByte();
+        ArrayList<Integer> scores = new ArrayList<>();
+        in.readList(scores, null);
+        ArrayList<String> scoreChoices = new ArrayList<>();
+        in.readList(scoreChoices, null);
+        GamePlayModel model = new GamePlayModel(in.readLong());
+        in.readLong();
+        in.readMap(model.getRoundDiceImageData(), null);
+        for(int round = 0; round < scores.size(); round++)
+        {
+            model.addScore(scores.get(round));
+            model.addScoreChoice(scoreChoices.get(round));
+            model.newRound();
+        }
+        for(int t = 0; t < throwCounter; t++)
+        {
+            model.newThrow();
+        }
+        return model;
+    }
+
+    @Test
+    public void packedGameIsSmallerAndFaster() throws Exception {
+        Parcel parcel = Parcel.obtain();
+        writeLists(parcel);
+        int listsSize = parcel.dataSize();
+        parcel.setDataPosition(0);
+        gamePlayModel.writeToParcel(parcel, 0);
+        int packedSize = parcel.dataPosition();
+
+        long start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            writeLists(parcel);
+        }
+        long listsEncodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        GamePlayModel listsModel = null;
+        start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            listsModel = readLists(parcel);
+        }
+        long listsDecodeNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            gamePlayModel.writeToParcel(parcel, 0);
+        }
+        long packedEncodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        GamePlayModel packedModel = null;
+        start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            packedModel = GamePlayModel.CREATOR.createFromParcel(parcel);
+        }
+        long packedDecodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        parcel.recycle();
+
+        Log.i(TAG, "GamePlayModel: lists " + listsSize + " bytes, encode " + listsEncodeNanos + " ns, decode " + listsDecodeNanos
+                + " ns; packed " + packedSize + " bytes, encode " + packedEncodeNanos + " ns, decode " + packedDecodeNanos + " ns");
+        assertEquals(gamePlayModel.getScoreChoices(), listsModel.getScoreChoices());
+        assertEquals(gamePlayModel.getRoundDiceImageData(), listsModel.getRoundDiceImageData());
+        assertEquals(gamePlayModel.getScoreChoices(), packedModel.getScoreChoices());
+        assertEquals(gamePlayModel.getRoundDiceImageData(), packedModel.getRoundDiceImageData());
+        assertTrue(packedSize < listsSize);
+    }
+
+    @Test
+    public void packedDicesAreSmaller() throws Exception {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeTypedList(dices);
+        int listSize = parcel.dataSize();
+        parcel.setDataPosition(0);
+        parcel.writeByteArray(Dice.toByteArray(dices));
+        int packedSize = parcel.dataPosition();
+
+        long start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            parcel.writeTypedList(dices);
+        }
+        long listEncodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            parcel.createTypedArrayList(Dice.CREATOR);
+        }
+        long listDecodeNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            parcel.writeByteArray(Dice.toByteArray(dices));
+        }
+        long packedEncodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        ArrayList<Dice> packedDices = null;
+        start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            packedDices = Dice.fromByteArray(parcel.createByteArray());
+        }
+        long packedDecodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        parcel.recycle();
+
+        Log.i(TAG, "Dices: typed list " + listSize + " bytes, encode " + listEncodeNanos + " ns, decode " + listDecodeNanos
+                + " ns; packed " + packedSize + " bytes, encode " + packedEncodeNanos + " ns, decode " + packedDecodeNanos + " ns");
+        assertEquals(dices.size(), packedDices.size());
+        assertTrue(packedSize < listSize);
+    }
+
+    /**
+     * The calculator used to only keep its score choice, the packed calculator also keeps the dice values of the round.
+     */
+    @Test
+    public void packedScoreCalculatorIsMeasured() throws Exception {
+        Parcel parcel = Parcel.obtain();
+        parcel.writeString(scoreCalculator.getScoreChoice());
+        int stringSize = parcel.dataSize();
+        parcel.setDataPosition(0);
+        scoreCalculator.writeToParcel(parcel, 0);
+        int packedSize = parcel.dataPosition();
+
+        long start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            parcel.writeString(scoreCalculator.getScoreChoice());
+        }
+        long stringEncodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            new ScoreCalculator().setScoreChoice(parcel.readString());
+        }
+        long stringDecodeNanos = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            scoreCalculator.writeToParcel(parcel, 0);
+        }
+        long packedEncodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        ScoreCalculator packedCalculator = null;
+        start = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++)
+        {
+            parcel.setDataPosition(0);
+            packedCalculator = ScoreCalculator.CREATOR.createFromParcel(parcel);
+        }
+        long packedDecodeNanos = (System.nanoTime() - start) / ITERATIONS;
+        parcel.recycle();
+
+        Log.i(TAG, "ScoreCalculator: string " + stringSize + " bytes, encode " + stringEncodeNanos + " ns, decode " + stringDecodeNanos
+                + " ns; packed " + packedSize + " bytes, encode " + packedEncodeNanos + " ns, decode " + packedDecodeNanos + " ns");
+        assertEquals(scoreCalculator.getScoreChoice(), packedCalculator.getScoreChoice());
+        assertEquals(scoreCalculator.getScore(), packedCalculator.getScore());
+    }
+}
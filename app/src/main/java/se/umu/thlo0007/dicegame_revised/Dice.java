@@ -3,31 +3,32 @@ package se.umu.thlo0007.dicegame_revised;
 
 import android.os.Parcel;
 import android.os.Parcelable;
+import java.util.ArrayList;
 import java.util.Random;
 
+import se.umu.thlo0007.dicegame_revised.engine.Die;
+
 
 /**
  *
- * This class is a datamodel representing a 6-sided dice. It handles representation of the dice value, and throws of the dice.
+ * This class is a datamodel representing a 6-sided dice in the UI. The rules of the dice are handled by an engine {@link Die},
+ * while this class adds the image-resources and animation state, and saves the dice between state changes.
+ * A dice is saved as a single byte, see {@link Dice#toByte()}, and a list of dices as a byte array.
  *
  * @author Thim Lohse
  *
  */
 public class Dice implements Parcelable{
-    private Random randomGenerator;
-    private int diceFaceID;
-    private int diceValue;
-    private boolean chosen;
-    private boolean animate;
-    private final int[] diceFaces = {R.drawable.dice_1, R.drawable.dice_2,R.drawable.dice_3,
+    private static final int[] DICE_FACES = {R.drawable.dice_1, R.drawable.dice_2,R.drawable.dice_3,
             R.drawable.dice_4,R.drawable.dice_5,R.drawable.dice_6};
-    private final int[] diceFacesChosen = {R.drawable.dice_1_pressed, R.drawable.dice_2_pressed,R.drawable.dice_3_pressed,
+    private static final int[] DICE_FACES_CHOSEN = {R.drawable.dice_1_pressed, R.drawable.dice_2_pressed,R.drawable.dice_3_pressed,
             R.drawable.dice_4_pressed,R.drawable.dice_5_pressed,R.drawable.dice_6_pressed};
+    private static final int HELD_BIT = 1 << 3;
+    private Die die;
+    private boolean animate;
 
     public Dice() {
-        this.diceFaceID = 0;
-        this.diceValue = 1;
-        this.chosen = false;
+        this.die = new Die();
         this.animate = true;
 
     }
@@ -36,16 +37,15 @@ public class Dice implements Parcelable{
      * Method that simulates a dice throw.
      *
      * The method uses an internal boolean value in its conditional statement to decide whether the dice should be thrown or not.
+     *
+     * @param randomGenerator The random generator of the game, see {@link GamePlayModel#getRandom()}.
      */
-    public void throwDice()
+    public void throwDice(Random randomGenerator)
     {
         if(!isChosen())
         {
             animate = true;
-            randomGenerator = new Random();
-            int throwValue = randomGenerator.nextInt(6);
-            diceValue = throwValue + 1;
-            diceFaceID = throwValue;
+            die.roll(randomGenerator);
 
         }
     }
@@ -63,7 +63,7 @@ public class Dice implements Parcelable{
      * @return The boolean value representing if the dice is chosen or not
      */
     public boolean isChosen() {
-        return chosen;
+        return die.isHeld();
     }
 
     /**
@@ -79,12 +79,22 @@ public class Dice implements Parcelable{
      * @return The integer ID of the image-resource to present in the UI.
      */
     public int getDiceFace() {
+        return getDiceFace(die.getValue(), isChosen());
+    }
 
-        if (isChosen())
+    /**
+     *
+     * @param diceValue The value of a dice.
+     * @param chosen The boolean value representing if the dice is chosen or not.
+     * @return The integer ID of the image-resource showing the dice.
+     */
+    public static int getDiceFace(int diceValue, boolean chosen) {
+
+        if (chosen)
         {
-            return diceFacesChosen[diceFaceID];
+            return DICE_FACES_CHOSEN[diceValue - 1];
         }
-        return diceFaces[diceFaceID];
+        return DICE_FACES[diceValue - 1];
     }
 
     /**
@@ -93,25 +103,25 @@ public class Dice implements Parcelable{
      *
      */
     public int getDiceValue() {
-        return diceValue;
+        return die.getValue();
+    }
+
+    /**
+     *
+     * @return The engine dice holding the value and chosen state.
+     */
+    public Die getDie() {
+        return die;
     }
 
     /**
      * This method is called to notify the dice when a user tap/click on the dice in the UI.
-     * The method uses the internal boolean values to interpret if the dice is chosen or not and alternates between the two states.
+     * The method alternates the dice between being chosen or not.
      *
      */
     public void onClickDice()
     {
-        if(chosen)
-        {
-            chosen = false;
-
-        }
-        else
-        {
-            chosen = true;
-        }
+        die.toggleHold();
         animate = false;
     }
 
@@ -122,7 +132,7 @@ public class Dice implements Parcelable{
      */
     public void roundRestore()
     {
-        chosen = false;
+        die.release();
         animate = false;
 
     }
@@ -132,28 +142,63 @@ public class Dice implements Parcelable{
         return 0;
     }
 
-    @Override
-    public void writeToParcel(Parcel dest, int flags) {
-        dest.writeInt(diceFaceID);
-        dest.writeInt(diceValue);
-        dest.writeByte((byte) (chosen ? 1 : 0));
+    /**
+     *
+     * @return The dice packed in a byte: the value in the low 3 bits, and bit 3 set if the dice is chosen.
+     */
+    public byte toByte()
+    {
+        return (byte) (die.getValue() | (die.isHeld() ? HELD_BIT : 0));
+    }
 
+    /**
+     * Restores a dice packed by {@link Dice#toByte()}. A dice that is not chosen animates when it is shown.
+     *
+     * @param packed The packed dice.
+     */
+    public Dice(byte packed) {
+        boolean held = (packed & HELD_BIT) != 0;
+        this.die = new Die(packed & (HELD_BIT - 1), held);
+        this.animate = !held;
     }
-    protected Dice(Parcel in) {
-        diceFaceID = in.readInt();
-        diceValue = in.readInt();
-        if(in.readByte() == 0)
-        {
-            chosen = false;
-            animate = true;
 
-        }
-        else
+    /**
+     *
+     * @param dices The dices to pack.
+     * @return One byte per dice, see {@link Dice#toByte()}.
+     */
+    public static byte[] toByteArray(ArrayList<Dice> dices)
+    {
+        byte[] packed = new byte[dices.size()];
+        for(int i = 0; i < packed.length; i++)
         {
-            chosen = true;
-            animate = false;
+            packed[i] = dices.get(i).toByte();
+        }
+        return packed;
+    }
 
+    /**
+     *
+     * @param packed Dices packed by {@link Dice#toByteArray(ArrayList)}.
+     * @return The restored dices.
+     */
+    public static ArrayList<Dice> fromByteArray(byte[] packed)
+    {
+        ArrayList<Dice> dices = new ArrayList<>(packed.length);
+        for(byte b : packed)
+        {
+            dices.add(new Dice(b));
         }
+        return dices;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeByte(toByte());
+
+    }
+    protected Dice(Parcel in) {
+        this(in.readByte());
     }
 
     public static final Creator<Dice> CREATOR = new Creator<Dice>() {
@@ -11,6 +11,8 @@ import android.widget.ImageView;
 
 import java.util.ArrayList;
 
+import se.umu.thlo0007.dicegame_revised.engine.Metrics;
+
 /**
  * This adapter class is the Controller between the Model representing the dices, and the View.
  * Responsible for populating the view with the use of the image resource information in the Dice objects.
@@ -21,6 +23,8 @@ import java.util.ArrayList;
  * **/
 public class DiceAdapter extends BaseAdapter {
 
+    public static final String GET_VIEW_TIMER = "diceAdapter.getView";
+
     private final ArrayList<Dice> mDices;
     private final LayoutInflater mInflater;
     private final Animation shake_animation;
@@ -79,6 +83,7 @@ public class DiceAdapter extends BaseAdapter {
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
 
+        long startNanos = Metrics.startTimer();
         final Dice dice = (Dice)getItem(position);
 
         if(convertView == null)
@@ -100,6 +105,7 @@ public class DiceAdapter extends BaseAdapter {
         }
         dice.setAnimate(false);
 
+        Metrics.stopTimer(GET_VIEW_TIMER, startNanos);
         return convertView;
 
     }
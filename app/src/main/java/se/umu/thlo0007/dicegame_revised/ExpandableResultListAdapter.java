@@ -12,10 +12,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
+import se.umu.thlo0007.dicegame_revised.engine.ScoreStatistics;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+
 /**
  * This class is a custom Expandable List Adapter, and the Controller between the result list view and the result data-model.
  * It is responsible for populating an expandable list with information about the rounds,
- * such as score, score choice, and as expandable child view, the dice values/faces used to calculate the score.
+ * such as score, score choice, the mean and median score of the score choice over all games played,
+ * and as expandable child view, the dice values/faces used to calculate the score.
  *
  * @author Thim Lohse
  */
@@ -25,6 +29,7 @@ public class ExpandableResultListAdapter extends BaseExpandableListAdapter {
     private ArrayList<Integer> mScoreDataSource;
     private ArrayList<String> mScoreChoiceDataSource;
     private HashMap<String, ArrayList<Integer>> mDiceImages;
+    private ScoreStatistics.Snapshot mStatistics;
 
     /**
      *
@@ -32,13 +37,16 @@ public class ExpandableResultListAdapter extends BaseExpandableListAdapter {
      * @param mScoreDataSource A list holding the score for each round.
      * @param mScoreChoiceDataSource A list holding the score choice for each round.
      * @param mDiceImages A hashmap holding Key-Value pairs with Key: Score choice, Value: The dice value/faces used to calculate the score for the specific score choice.
+     * @param mStatistics The statistics of every score choice over all games played, see {@link MainActivity#getStatistics()}.
      */
     public ExpandableResultListAdapter(Context mContext, ArrayList<Integer> mScoreDataSource,
-                                       ArrayList<String> mScoreChoiceDataSource, HashMap<String, ArrayList<Integer>> mDiceImages) {
+                                       ArrayList<String> mScoreChoiceDataSource, HashMap<String, ArrayList<Integer>> mDiceImages,
+                                       ScoreStatistics.Snapshot mStatistics) {
         this.mContext = mContext;
         this.mScoreDataSource = mScoreDataSource;
         this.mScoreChoiceDataSource = mScoreChoiceDataSource;
         this.mDiceImages = mDiceImages;
+        this.mStatistics = mStatistics;
     }
 
     /**
@@ -105,7 +113,9 @@ public class ExpandableResultListAdapter extends BaseExpandableListAdapter {
     }
 
     /**
-     * This method populates each group view cell with data about round number, score choice and score.
+     * This method populates each group view cell with data about round number, score choice, score,
+     * and the mean and median score of the score choice. The statistics are left empty for a score choice without any rounds recorded,
+     * for example the rounds of a game restored after the app was restarted.
      * If the view has not already been created, the view-cell layout is inflated and the references to the view elements are hooked up.
      * The method uses the class GroupViewHolder to minimize calls to findViewById and reduce memory usage.
      *
@@ -131,7 +141,8 @@ public class ExpandableResultListAdapter extends BaseExpandableListAdapter {
             final TextView roundNumber = (TextView)convertView.findViewById(R.id.round_number);
             final TextView roundScore = (TextView)convertView.findViewById(R.id.round_score);
             final TextView roundChoice = (TextView)convertView.findViewById(R.id.round_score_choice);
-            final GroupViewHolder viewHolder = new GroupViewHolder(roundNumber,roundScore, roundChoice);
+            final TextView roundStatistics = (TextView)convertView.findViewById(R.id.round_score_statistics);
+            final GroupViewHolder viewHolder = new GroupViewHolder(roundNumber,roundScore, roundChoice, roundStatistics);
 
             convertView.setTag(viewHolder);
 
@@ -142,6 +153,17 @@ public class ExpandableResultListAdapter extends BaseExpandableListAdapter {
         groupViewHolder.roundScore.setText(String.valueOf(score));
         groupViewHolder.roundChoice.setText(scoreChoice);
 
+        final int scoreChoiceIndex = ScoreTable.getScoreChoiceIndex(scoreChoice);
+        if(mStatistics != null && mStatistics.getCount(scoreChoiceIndex) > 0)
+        {
+            groupViewHolder.roundStatistics.setText(mContext.getString(R.string.results_statistics_format,
+                    mStatistics.getMean(scoreChoiceIndex), mStatistics.getPercentile(scoreChoiceIndex, 50)));
+        }
+        else
+        {
+            groupViewHolder.roundStatistics.setText("");
+        }
+
         return convertView;
     }
 
@@ -202,11 +224,13 @@ public class ExpandableResultListAdapter extends BaseExpandableListAdapter {
         private final TextView roundNumber;
         private final TextView roundScore;
         private final TextView roundChoice;
+        private final TextView roundStatistics;
 
-        public GroupViewHolder(TextView roundNumber, TextView roundScore, TextView roundChoice) {
+        public GroupViewHolder(TextView roundNumber, TextView roundScore, TextView roundChoice, TextView roundStatistics) {
             this.roundNumber = roundNumber;
             this.roundScore = roundScore;
             this.roundChoice = roundChoice;
+            this.roundStatistics = roundStatistics;
         }
     }
     /**
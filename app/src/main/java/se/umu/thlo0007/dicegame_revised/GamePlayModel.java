@@ -3,41 +3,56 @@ package se.umu.thlo0007.dicegame_revised;
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
+
+import se.umu.thlo0007.dicegame_revised.engine.DiceRandom;
+import se.umu.thlo0007.dicegame_revised.engine.GameState;
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
 
 
 /**
  * This class handles the overall game data, such as Throws, Rounds and Scores.
- * The class is also responsible for holding the score choice of each round,
- * and the image-resource references of the dice faces used each round.
+ * The rules are handled by an engine {@link GameState}, while this class saves the game between state changes.
+ * The class is also responsible for holding the image-resource references of the dice faces used each round.
+ *
+ * All dices of a game are thrown with the random generator of the game. Its seed is saved with the game,
+ * so a game can be replayed exactly from the seed and the dices held each throw.
+ *
+ * The model is saved as a single packed byte array, see {@link GamePlayModel#toByteArray()}, so it stays small
+ * when it is put in the Intent starting {@link ResultsActivity}. The image-resource references of each round are
+ * not saved, but rebuilt from the dice values of the round.
  *
  * **/
 public class GamePlayModel implements Parcelable {
 
-    private int throwCounter;
-    private int roundCounter;
-    private int scoreTotal;
-    private boolean gameOver;
-    private ArrayList<Integer> scores;
-    private ArrayList<String> scoreChoices;
+    private static final int BITS_PER_DICE = 3;
+    private static final int BYTES_PER_ROUND = 3;
+    private GameState gameState;
+    private DiceRandom random;
     private HashMap<String, ArrayList<Integer>> roundDiceImageData;
+    private int[] roundDiceValues;
 
     public GamePlayModel() {
-        throwCounter = 0;
-        roundCounter = 1;
-        scoreTotal = 0;
-        gameOver = false;
-        scores = new ArrayList<>();
-        scoreChoices = new ArrayList<>();
+        this(new DiceRandom().getSeed());
+    }
+
+    /**
+     *
+     * @param seed The seed of the random generator throwing the dices.
+     */
+    public GamePlayModel(long seed) {
+        gameState = new GameState();
+        random = new DiceRandom(seed);
         roundDiceImageData = new HashMap<>();
+        roundDiceValues = new int[GameState.MAX_ROUNDS];
     }
 
 
     public void newThrow()
     {
-        throwCounter += 1;
+        gameState.newThrow();
     }
 
     /**
@@ -45,15 +60,25 @@ public class GamePlayModel implements Parcelable {
      */
     public void newRound()
     {
-        if(roundCounter < 10)
-        {
-            throwCounter = 0;
-            roundCounter += 1;
-        }
-        else
-        {
-            gameOver = true;
-        }
+        gameState.newRound();
+    }
+
+    /**
+     *
+     * @return true if and only if, the game is not over and the dices can be thrown again this round.
+     */
+    public boolean canThrow()
+    {
+        return gameState.canThrow();
+    }
+
+    /**
+     *
+     * @return true if and only if, the game is not over and the dices have been thrown at least once this round.
+     */
+    public boolean canScoreRound()
+    {
+        return gameState.canScoreRound();
     }
 
     /**
@@ -63,15 +88,29 @@ public class GamePlayModel implements Parcelable {
      */
     public void addScore(int score)
     {
-        scores.add(score);
-        scoreTotal += score;
+        gameState.addScore(score);
 
     }
-    public ArrayList<Integer> getScores() { return scores; }
+    public ArrayList<Integer> getScores() { return gameState.getScores(); }
 
+    /**
+     * The score choice for the current round is added after its score, which completes the round.
+     *
+     * @param scoreChoice The score choice used for the current round.
+     */
     public void addScoreChoice(String scoreChoice)
     {
-        scoreChoices.add(scoreChoice);
+        gameState.addScoreChoice(scoreChoice);
+    }
+
+    /**
+     * The listener is not saved with the game, and must be set again after the game has been restored.
+     *
+     * @param roundListener The listener notified of every round scored from now on, or null.
+     */
+    public void setRoundListener(GameState.RoundListener roundListener)
+    {
+        gameState.setRoundListener(roundListener);
     }
 
     /**
@@ -84,54 +123,117 @@ public class GamePlayModel implements Parcelable {
      */
     public void addDiceImageData(ArrayList<Dice> diceValues, String scoreChoice)
     {
-        ArrayList<Integer> diceImageIds = new ArrayList();
-        for(Dice d : diceValues)
+        ArrayList<Integer> diceImageIds = new ArrayList<>(diceValues.size());
+        int packedValues = 0;
+        for(int j = 0; j < diceValues.size(); j++)
         {
-            diceImageIds.add(d.getDiceFace());
+            diceImageIds.add(diceValues.get(j).getDiceFace());
+            packedValues |= diceValues.get(j).getDiceValue() << (j * BITS_PER_DICE);
         }
         this.roundDiceImageData.put(scoreChoice, diceImageIds);
+        int round = gameState.getScoreChoices().indexOf(scoreChoice);
+        if(round >= 0)
+        {
+            roundDiceValues[round] = packedValues;
+        }
     }
 
-    public ArrayList<String> getScoreChoices(){ return scoreChoices; }
+    public ArrayList<String> getScoreChoices(){ return gameState.getScoreChoices(); }
 
     public HashMap<String, ArrayList<Integer>> getRoundDiceImageData()
     {
         return roundDiceImageData;
     }
 
-    public int getScoreTotal() { return scoreTotal; }
+    public int getScoreTotal() { return gameState.getScoreTotal(); }
 
     public int getThrowCounter() {
-        return throwCounter;
+        return gameState.getThrowCounter();
     }
 
     public int getRoundCounter() {
-        return roundCounter;
+        return gameState.getRoundCounter();
     }
 
     public boolean isGameOver() {
-        return gameOver;
+        return gameState.isGameOver();
     }
 
+    /**
+     *
+     * @return The engine game state holding the rules of the game.
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
 
-    protected GamePlayModel(Parcel in) {
-        throwCounter = in.readInt();
-        roundCounter = in.readInt();
-        scoreTotal = in.readInt();
-        if(in.readByte() == 0)
+    /**
+     *
+     * @return The random generator used for every dice throw of the game.
+     */
+    public DiceRandom getRandom() {
+        return random;
+    }
+
+    /**
+     *
+     * @return The seed the game was started with.
+     */
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+
+    /**
+     * Packs the model: the packed {@link GameState}, the seed and state of the random generator,
+     * and the six dice values of each finished round in 3 bits each.
+     *
+     * @return The packed model.
+     */
+    public byte[] toByteArray()
+    {
+        int numRounds = gameState.getScores().size();
+        ByteBuffer buffer = ByteBuffer.allocate(GameState.getPackedSize(numRounds) + 16 + numRounds * BYTES_PER_ROUND);
+        gameState.writePacked(buffer);
+        buffer.putLong(random.getSeed());
+        buffer.putLong(random.getState());
+        for(int round = 0; round < numRounds; round++)
         {
-            gameOver = false;
+            buffer.put((byte) roundDiceValues[round]);
+            buffer.put((byte) (roundDiceValues[round] >>> 8));
+            buffer.put((byte) (roundDiceValues[round] >>> 16));
         }
-        else
+        return buffer.array();
+    }
+
+    /**
+     * Restores a model packed by {@link GamePlayModel#toByteArray()}.
+     *
+     * @param packed The packed model.
+     */
+    public GamePlayModel(byte[] packed) {
+        ByteBuffer buffer = ByteBuffer.wrap(packed);
+        gameState = new GameState(buffer);
+        long seed = buffer.getLong();
+        random = new DiceRandom(seed, buffer.getLong());
+        roundDiceImageData = new HashMap<>();
+        roundDiceValues = new int[GameState.MAX_ROUNDS];
+        ArrayList<String> scoreChoices = gameState.getScoreChoices();
+        for(int round = 0; round < scoreChoices.size(); round++)
         {
-            gameOver = true;
+            int packedValues = (buffer.get() & 0xff) | (buffer.get() & 0xff) << 8 | (buffer.get() & 0xff) << 16;
+            roundDiceValues[round] = packedValues;
+            ArrayList<Integer> diceImageIds = new ArrayList<>();
+            for(int j = 0; j < ThirtyGame.NUM_DICES; j++)
+            {
+                diceImageIds.add(Dice.getDiceFace((packedValues >>> (j * BITS_PER_DICE)) & 0x7, false));
+            }
+            roundDiceImageData.put(scoreChoices.get(round), diceImageIds);
         }
-        scores = new ArrayList<>();
-        in.readList(scores, null);
-        scoreChoices = new ArrayList<>();
-        in.readList(scoreChoices, null);
-        roundDiceImageData = new HashMap<>();
-        in.readMap(roundDiceImageData, null);
+    }
+
+    protected GamePlayModel(Parcel in) {
+        this(in.createByteArray());
 
     }
 
@@ -154,16 +256,7 @@ public class GamePlayModel implements Parcelable {
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeInt(throwCounter);
-        dest.writeInt(roundCounter);
-        dest.writeInt(scoreTotal);
-        dest.writeByte((byte) (gameOver ? 1 : 0));
-        dest.writeList(scores);
-        dest.writeList(scoreChoices);
-        dest.writeMap(roundDiceImageData);
-
-
-
+        dest.writeByteArray(toByteArray());
 
     }
 }
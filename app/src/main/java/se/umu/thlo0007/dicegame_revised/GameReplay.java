@@ -0,0 +1,114 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import se.umu.thlo0007.dicegame_revised.engine.GameJournal;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+
+/**
+ * This class rebuilds the data models of the last game in a {@link GameJournal}, for example after the process has been killed.
+ *
+ * The events are applied to the data models the same way {@link MainActivity} applies the user interactions,
+ * and since the dices are thrown with the seed of the game, every throw gives the same dice values again.
+ *
+ * @author Thim Lohse
+ */
+public class GameReplay implements GameJournal.Listener {
+
+    private GamePlayModel gamePlayModel;
+    private ScoreCalculator scoreCalculator;
+    private ArrayList<Dice> dices;
+    private ArrayList<CharSequence> scoreItems;
+
+    /**
+     *
+     * @param journal The journal file.
+     * @return The replay of the last game in the journal, or null if the journal holds no game.
+     */
+    public static GameReplay replay(File journal) throws IOException
+    {
+        GameReplay replay = new GameReplay();
+        if(journal.exists())
+        {
+            GameJournal.read(journal, replay);
+        }
+        return replay.gamePlayModel == null ? null : replay;
+    }
+
+    @Override
+    public void onNewGame(long seed) {
+        gamePlayModel = new GamePlayModel(seed);
+        scoreCalculator = new ScoreCalculator();
+        dices = new ArrayList<>();
+        scoreItems = new ArrayList<>();
+        for(int i = 0; i < ScoreTable.NUM_DICES; i++)
+        {
+            dices.add(new Dice());
+        }
+        for(int i = 0; i < ScoreTable.NUM_SCORE_CHOICES; i++)
+        {
+            scoreItems.add(ScoreTable.getScoreChoice(i));
+        }
+    }
+
+    @Override
+    public void onClickDice(int position) {
+        if(gamePlayModel != null && gamePlayModel.getThrowCounter() > 0)
+        {
+            dices.get(position).onClickDice();
+        }
+    }
+
+    @Override
+    public void onThrow() {
+        if(gamePlayModel != null && gamePlayModel.canThrow())
+        {
+            for(Dice d : dices)
+            {
+                d.throwDice(gamePlayModel.getRandom());
+            }
+            gamePlayModel.newThrow();
+        }
+    }
+
+    @Override
+    public void onScoreRound(int scoreChoiceIndex) {
+        if(gamePlayModel != null && gamePlayModel.canScoreRound())
+        {
+            String scoreChoice = ScoreTable.getScoreChoice(scoreChoiceIndex);
+            for(Dice d : dices)
+            {
+                d.roundRestore();
+            }
+            scoreCalculator.setScoreChoice(scoreChoice);
+            scoreCalculator.setDiceValues(dices);
+            gamePlayModel.addScore(scoreCalculator.getScore());
+            gamePlayModel.addScoreChoice(scoreChoice);
+            gamePlayModel.addDiceImageData(dices, scoreChoice);
+            scoreItems.remove(scoreChoice);
+            gamePlayModel.newRound();
+        }
+    }
+
+    public GamePlayModel getGamePlayModel() {
+        return gamePlayModel;
+    }
+
+    public ScoreCalculator getScoreCalculator() {
+        return scoreCalculator;
+    }
+
+    public ArrayList<Dice> getDices() {
+        return dices;
+    }
+
+    /**
+     *
+     * @return The score choices not used yet, in the order of {@link MainActivity}.
+     */
+    public ArrayList<CharSequence> getScoreItems() {
+        return scoreItems;
+    }
+}
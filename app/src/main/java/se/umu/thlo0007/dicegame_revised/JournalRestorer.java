@@ -0,0 +1,178 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import se.umu.thlo0007.dicegame_revised.engine.GameJournal;
+
+/**
+ * This class opens the {@link GameJournal} and replays its last game on a background thread, and delivers them on the UI thread.
+ *
+ * Opening the journal reads the whole file, and replaying a game throws every dice of it again, so neither is done on the UI thread.
+ * The journal is opened once, the first time a restore finishes without an error, and is then kept open and flushed before
+ * the next replay, so the replay sees every event appended so far. A journal that has failed is opened again.
+ *
+ * Like {@link RoundScorer} the restorer outlives the activity: a result arriving while no listener is set,
+ * for example while the activity is recreated, is kept until the next listener is set.
+ * All methods, like the listener, are called on the UI thread.
+ *
+ * @author Thim Lohse
+ */
+public class JournalRestorer {
+
+    private final Executor restoringExecutor;
+    private final Executor resultExecutor;
+    // Only used by the restoring executor.
+    private GameJournal openedJournal;
+    private Listener listener;
+    private boolean pending;
+    private boolean hasResult;
+    private GameJournal resultJournal;
+    private GameReplay resultReplay;
+
+    /**
+     *
+     * @param restoringExecutor The executor opening and replaying the journal, off the UI thread. Must run one task at a time.
+     * @param resultExecutor The executor running the delivery of the results on the UI thread.
+     */
+    public JournalRestorer(Executor restoringExecutor, Executor resultExecutor) {
+        this.restoringExecutor = restoringExecutor;
+        this.resultExecutor = resultExecutor;
+    }
+
+    /**
+     * Starts opening and replaying the journal, unless a restore is already pending, in which case its result is delivered instead.
+     *
+     * @param journalFile The journal file.
+     * @return true if and only if, a new restore was started.
+     */
+    public boolean restore(final File journalFile)
+    {
+        if(pending)
+        {
+            return false;
+        }
+        pending = true;
+        restoringExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final GameJournal journal = openJournal(journalFile);
+                final GameReplay replay = replay(journalFile, journal);
+                resultExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onResult(journal, replay);
+                    }
+                });
+            }
+        });
+        return true;
+    }
+
+    /**
+     *
+     * @return true if and only if, a restore has been started and its result has not been delivered yet.
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * A result kept while no listener was set is delivered to the new listener right away.
+     *
+     * @param listener The listener of the restored journal, or null to keep the result until a listener is set.
+     */
+    public void setListener(Listener listener)
+    {
+        this.listener = listener;
+        if(listener != null && hasResult)
+        {
+            hasResult = false;
+            deliver(resultJournal, resultReplay);
+        }
+    }
+
+    /**
+     * Runs on the restoring executor.
+     *
+     * @param journalFile The journal file.
+     * @return The journal, or null if it could not be opened.
+     */
+    private GameJournal openJournal(File journalFile)
+    {
+        if(openedJournal == null || openedJournal.isFailed())
+        {
+            try
+            {
+                openedJournal = new GameJournal(journalFile);
+            }
+            catch(IOException e)
+            {
+                return null;
+            }
+        }
+        return openedJournal;
+    }
+
+    /**
+     * Runs on the restoring executor.
+     *
+     * @param journalFile The journal file.
+     * @param journal The open journal, or null.
+     * @return The replay of the last game of the journal, or null if it holds no game or could not be read.
+     */
+    private static GameReplay replay(File journalFile, GameJournal journal)
+    {
+        try
+        {
+            if(journal != null)
+            {
+                journal.flush();
+            }
+            return GameReplay.replay(journalFile);
+        }
+        catch(IOException e)
+        {
+            return null;
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void onResult(GameJournal journal, GameReplay replay)
+    {
+        if(listener == null)
+        {
+            resultJournal = journal;
+            resultReplay = replay;
+            hasResult = true;
+            return;
+        }
+        deliver(journal, replay);
+    }
+
+    private void deliver(GameJournal journal, GameReplay replay)
+    {
+        pending = false;
+        resultJournal = null;
+        resultReplay = null;
+        listener.onJournalRestored(journal, replay);
+    }
+
+    /**
+     * This interface receives the restored journal, on the UI thread.
+     */
+    public interface Listener
+    {
+        /**
+         *
+         * @param journal The open journal, or null if it could not be opened.
+         * @param replay The replay of the last game of the journal, or null if there is none.
+         */
+        void onJournalRestored(GameJournal journal, GameReplay replay);
+    }
+}
@@ -3,9 +3,12 @@ package se.umu.thlo0007.dicegame_revised;
 import android.content.Intent;
 import android.media.MediaPlayer;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v4.app.DialogFragment;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -17,7 +20,17 @@ import android.widget.Button;
 import android.widget.GridView;
 import android.widget.Spinner;
 import android.widget.TextView;
+
+import java.io.File;
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import se.umu.thlo0007.dicegame_revised.engine.GameJournal;
+import se.umu.thlo0007.dicegame_revised.engine.Metrics;
+import se.umu.thlo0007.dicegame_revised.engine.MetricsRegistry;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreStatistics;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
 
 /**
  * This class/Activity is the Controller between the data models and views used during the game play of the application.
@@ -26,7 +39,8 @@ import java.util.ArrayList;
  *
  */
 public class MainActivity extends AppCompatActivity implements View.OnClickListener,
-        AdapterView.OnItemClickListener, AdapterView.OnItemSelectedListener, NewGameDialogFragment.NewGameDialogListener {
+        AdapterView.OnItemClickListener, AdapterView.OnItemSelectedListener, NewGameDialogFragment.NewGameDialogListener,
+        RoundScorer.Listener, JournalRestorer.Listener {
 
     private static final String SAVED_DICES_KEY = "Dices";
     private static final String SAVED_SCORE_CALCULATOR_KEY = "ScoreCalculator";
@@ -34,6 +48,18 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
     private static final String SAVED_SCORE_ITEMS_KEY = "ScoreItems";
     public static final String SAVED_GAME_PLAY_KEY = "GamePlay";
     public static final String NEW_GAME_KEY = "NewGame";
+    private static final String SAVED_RESTORING_KEY = "Restoring";
+    private static final String JOURNAL_FILE_NAME = "game.journal";
+    private static final String TAG = "MainActivity";
+    public static final String NEW_THROW_TIMER = "mainActivity.notifyNewThrow";
+    public static final String NEW_ROUND_TIMER = "mainActivity.notifyNewRound";
+    public static final String ROUND_SCORED_TIMER = "mainActivity.onRoundScored";
+    private static GameJournal sJournal;
+    private static Executor sBackgroundExecutor;
+    private static Executor sMainExecutor;
+    private static RoundScorer sRoundScorer;
+    private static JournalRestorer sJournalRestorer;
+    private static final ScoreStatistics sStatistics = new ScoreStatistics(1);
     private ArrayList<Dice> mDiceDataModelRef;
     private GridView mGridView;
     private Animation mIndicateUsageOrChangeAnimation;
@@ -49,6 +75,11 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
     private DiceAdapter mDiceAdapter;
     private Toolbar mToolbar;
     private boolean mStartNewGame;
+    private GameJournal mJournal;
+    private RoundScorer mRoundScorer;
+    private JournalRestorer mJournalRestorer;
+    private boolean mRestoring;
+    private boolean mReplayJournal;
 
     /**
      * This enum is used to provide an easy way to notify the activity on which UI components to update.
@@ -80,9 +111,27 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         mGridView = (GridView)findViewById(R.id.dice_gridview);
         mIndicateUsageOrChangeAnimation = AnimationUtils.loadAnimation(getApplicationContext(), R.anim.blink_animation);
 
+        //Mätvärden samlas bara in i debug-byggen, i release-byggen kostar de en läsning av ett fält.
+        if(BuildConfig.DEBUG && !Metrics.isEnabled())
+        {
+            Metrics.setRegistry(new MetricsRegistry());
+        }
+
+        mJournal = sJournal;
+        mRoundScorer = getRoundScorer();
+        mJournalRestorer = getJournalRestorer();
+
+        //Journalen öppnas och den senaste omgången spelas upp i bakgrunden, spelet visas när det är klart.
+        mReplayJournal = savedInstanceState == null || savedInstanceState.getBoolean(SAVED_RESTORING_KEY);
+        mRestoring = mReplayJournal || mJournal == null;
         if(savedInstanceState == null)
         {
-            initDataModels();
+            mRoundScorer.cancel();
+        }
+        if(mRestoring)
+        {
+            mStartNewGame = savedInstanceState != null && savedInstanceState.getBoolean(NEW_GAME_KEY);
+            mJournalRestorer.restore(new File(getFilesDir(), JOURNAL_FILE_NAME));
         }
         else if(savedInstanceState.getBoolean(NEW_GAME_KEY))
         {
@@ -114,7 +163,6 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
             case R.id.calculate_btn:
             {
                 notifyNewRound();
-                updateUI(mUpdateUIComponents.ROUND);
                 break;
             }
 
@@ -125,7 +173,7 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
     /**
      * This method is used to handle click events from the user on the {@link MainActivity#mGridView}.
      * The user can only interact with the dices if at least 1 throw has been made.
-     * This is done do avoid cheating, and saving dices between rounds.
+     * This is done do avoid cheating, and saving dices between rounds. The dices can not be changed while a round is being scored.
      *
      * @param parent The GridView showing the {@link Dice}.
      * @param view unused.
@@ -138,9 +186,13 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         {
             case R.id.dice_gridview:
             {
-                if((mGamePlayModel.getThrowCounter() > 0))
+                if(mGamePlayModel.getThrowCounter() > 0 && !mRoundScorer.isPending())
                 {
                     ((Dice) parent.getItemAtPosition(position)).onClickDice();
+                    if(isJournaling())
+                    {
+                        mJournal.clickDice(position);
+                    }
                     updateUI(mUpdateUIComponents.DICE_CLICK);
                 }
                 break;
@@ -194,11 +246,155 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
      */
     private void initDataModels()
     {
+        mRoundScorer.cancel();
         mGamePlayModel = new GamePlayModel();
         mScoreCalculator = new ScoreCalculator();
         mScoreItems = getScoreItems();
         mDiceDataModelRef = getDices();
         mStartNewGame = false;
+        if(isJournaling())
+        {
+            mJournal.newGame(mGamePlayModel.getSeed());
+        }
+    }
+
+    /**
+     * This method is used to restore the data models of an unfinished game from the {@link GameJournal},
+     * when the activity is started without a saved state, for example after the process has been killed.
+     *
+     * @param replay The replay of the last game of the journal, or null.
+     * @return true if and only if, an unfinished game was restored.
+     */
+    private boolean restoreDataModels(GameReplay replay)
+    {
+        if(replay == null || replay.getGamePlayModel().isGameOver())
+        {
+            return false;
+        }
+        mGamePlayModel = replay.getGamePlayModel();
+        mScoreCalculator = replay.getScoreCalculator();
+        mScoreItems = replay.getScoreItems();
+        mDiceDataModelRef = replay.getDices();
+        mStartNewGame = false;
+        return true;
+    }
+
+    /**
+     * This method receives the journal opened by the {@link JournalRestorer}, and the replay of its last game.
+     * The journal is shared by all instances of the activity, so events from a recreated activity are appended in order.
+     * The data models are then restored from the replay, unless they were restored from a saved state or a new game was asked for,
+     * and the game is shown.
+     *
+     * @param journal The journal of the game events, or null if the journal file could not be opened.
+     * @param replay The replay of the last game of the journal, or null.
+     */
+    @Override
+    public void onJournalRestored(GameJournal journal, GameReplay replay)
+    {
+        sJournal = journal;
+        mJournal = journal;
+        if(!mRestoring)
+        {
+            return;
+        }
+        mRestoring = false;
+        if(mStartNewGame || (mReplayJournal && !restoreDataModels(replay)))
+        {
+            initDataModels();
+        }
+        attachDataModels();
+        mRoundScorer.setListener(this);
+    }
+
+    /**
+     * A journal whose file could not be written ignores all events, see {@link GameJournal#isFailed()}.
+     * It is then dropped, and the game goes on without a journal until it is opened again by the {@link JournalRestorer}.
+     *
+     * @return true if and only if, the game events should be appended to the journal.
+     */
+    private boolean isJournaling()
+    {
+        if(mJournal != null && mJournal.isFailed())
+        {
+            Log.w(TAG, "The game journal could not be written and is no longer used");
+            sJournal = null;
+            mJournal = null;
+        }
+        return mJournal != null;
+    }
+
+    /**
+     * The executors are shared by all instances of the activity. The background executor runs one task at a time,
+     * so the journal is never replayed while a round is scored.
+     *
+     * @return The executor running tasks off the UI thread.
+     */
+    private static Executor getBackgroundExecutor()
+    {
+        if(sBackgroundExecutor == null)
+        {
+            sBackgroundExecutor = Executors.newSingleThreadExecutor();
+        }
+        return sBackgroundExecutor;
+    }
+
+    /**
+     *
+     * @return The executor posting tasks to the main thread.
+     */
+    private static Executor getMainExecutor()
+    {
+        if(sMainExecutor == null)
+        {
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            sMainExecutor = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    mainHandler.post(command);
+                }
+            };
+        }
+        return sMainExecutor;
+    }
+
+    /**
+     * The journal restorer is shared by all instances of the activity, so a journal being restored during a configuration change
+     * is delivered to the recreated activity.
+     *
+     * @return The journal restorer.
+     */
+    private static JournalRestorer getJournalRestorer()
+    {
+        if(sJournalRestorer == null)
+        {
+            sJournalRestorer = new JournalRestorer(getBackgroundExecutor(), getMainExecutor());
+        }
+        return sJournalRestorer;
+    }
+
+    /**
+     * The round scorer is shared by all instances of the activity, so a round being scored during a configuration change
+     * is delivered to the recreated activity. Rounds are scored on the background executor and delivered on the main thread.
+     *
+     * @return The round scorer.
+     */
+    private static RoundScorer getRoundScorer()
+    {
+        if(sRoundScorer == null)
+        {
+            sRoundScorer = new RoundScorer(getBackgroundExecutor(), getMainExecutor());
+        }
+        return sRoundScorer;
+    }
+
+    /**
+     * The statistics are collected over all games played since the app process was started.
+     *
+     * @return The score statistics of every score choice.
+     */
+    public static ScoreStatistics getStatistics()
+    {
+        return sStatistics;
     }
 
     /**
@@ -209,19 +405,25 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
      */
     private void notifyNewThrow()
     {
-        if(!mGamePlayModel.isGameOver() && mGamePlayModel.getThrowCounter() < 3)
+        long startNanos = Metrics.startTimer();
+        if(mGamePlayModel.canThrow())
         {
             for (Dice d : mDiceDataModelRef)
             {
-                d.throwDice();
+                d.throwDice(mGamePlayModel.getRandom());
             }
             mGamePlayModel.newThrow();
+            if(isJournaling())
+            {
+                mJournal.newThrow();
+            }
             mMediaPlayer.start();
         }
         else
         {
             mCalculateBtn.startAnimation(mIndicateUsageOrChangeAnimation);
         }
+        Metrics.stopTimer(NEW_THROW_TIMER, startNanos);
     }
 
     /**
@@ -230,12 +432,15 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
      *
      * A new round can only be invoked if the game is not over, and if the user has thrown the dices at least once.
      * The latter is used to avoid cheating.
+     * The round is scored by the {@link RoundScorer} off the UI thread, and the buttons are disabled
+     * until the score is delivered to {@link MainActivity#onRoundScored(String, int)}.
      *
      */
     private void notifyNewRound()
     {
+        long startNanos = Metrics.startTimer();
         //Beräkning kan endast göras om tärningarna kastats minst en gång denna omgång. (Detta för att undvika fusk)
-        if(!mGamePlayModel.isGameOver() && mGamePlayModel.getThrowCounter() > 0)
+        if(mGamePlayModel.canScoreRound() && !mRoundScorer.isPending())
         {
 
             for (Dice d : mDiceDataModelRef)
@@ -243,23 +448,69 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
                 d.roundRestore();
             }
             mScoreCalculator.setDiceValues(mDiceDataModelRef);
-            mGamePlayModel.addScore(mScoreCalculator.getScore());
-            mGamePlayModel.addScoreChoice(mScoreCalculator.getScoreChoice());
-            mGamePlayModel.addDiceImageData(mDiceDataModelRef, mScoreCalculator.getScoreChoice());
-            mScoreItems.remove(mScoreChoices.getSelectedItemPosition());
-            mGamePlayModel.newRound();
+            mRoundScorer.scoreRound(mScoreCalculator);
+            setControlsEnabled(false);
         }
         else
         {
             mThrowBtn.startAnimation(mIndicateUsageOrChangeAnimation);
         }
+        Metrics.stopTimer(NEW_ROUND_TIMER, startNanos);
+        if(mGamePlayModel.isGameOver())
+        {
+            showResults();
+        }
+    }
+
+    /**
+     * This method completes the round with the score calculated by the {@link RoundScorer}, and starts the next round.
+     * If the activity was recreated while the round was scored, the score is applied to the restored data models.
+     *
+     * @param scoreChoice The score choice the round was scored with.
+     * @param score The score of the round.
+     */
+    @Override
+    public void onRoundScored(String scoreChoice, int score)
+    {
+        long startNanos = Metrics.startTimer();
+        mGamePlayModel.addScore(score);
+        mGamePlayModel.addScoreChoice(scoreChoice);
+        mGamePlayModel.addDiceImageData(mDiceDataModelRef, scoreChoice);
+        mScoreItems.remove(scoreChoice);
+        mGamePlayModel.newRound();
+        if(isJournaling())
+        {
+            mJournal.scoreRound(ScoreTable.getScoreChoiceIndex(scoreChoice));
+        }
+        Metrics.stopTimer(ROUND_SCORED_TIMER, startNanos);
+        setControlsEnabled(true);
+        updateUI(mUpdateUIComponents.ROUND);
         if(mGamePlayModel.isGameOver())
         {
-            Intent resultsIntent = new Intent(MainActivity.this, ResultsActivity.class);
-            resultsIntent.putExtra(SAVED_GAME_PLAY_KEY, mGamePlayModel);
-            startActivity(resultsIntent);
+            showResults();
         }
+    }
+
+    /**
+     * This method starts the {@link ResultsActivity} with the finished game.
+     */
+    private void showResults()
+    {
+        Intent resultsIntent = new Intent(MainActivity.this, ResultsActivity.class);
+        resultsIntent.putExtra(SAVED_GAME_PLAY_KEY, mGamePlayModel);
+        startActivity(resultsIntent);
+    }
 
+    /**
+     * This method enables or disables the buttons and the score choices, which are disabled while a round is being scored.
+     *
+     * @param enabled true to enable the controls.
+     */
+    private void setControlsEnabled(boolean enabled)
+    {
+        mThrowBtn.setEnabled(enabled);
+        mCalculateBtn.setEnabled(enabled);
+        mScoreChoices.setEnabled(enabled);
     }
 
     /**
@@ -350,7 +601,7 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
 
     /**
      * This method is used to update the counter view element with the correct value and/or message to display to the user.
-     * The animation runs on a separate thread to not block the UI.
+     * The animation is started on the UI thread, as views can only be changed there, and runs without blocking it.
      *
      * @param textView The textView to be updated.
      * @param msg The message to be added to the textView.
@@ -366,15 +617,9 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         else
         {
             textView.setText(msg + value);
-            Thread animationThread = new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    textView.setVisibility(View.VISIBLE);
-                    textView.startAnimation(mIndicateUsageOrChangeAnimation);
-                    textView.setVisibility(View.INVISIBLE);
-                }
-            });
-            animationThread.run();
+            textView.setVisibility(View.VISIBLE);
+            textView.startAnimation(mIndicateUsageOrChangeAnimation);
+            textView.setVisibility(View.INVISIBLE);
         }
 
     }
@@ -435,7 +680,9 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
 
     /**
      * This method is used to allocate resources needed when the activity is visible.
-     * The method also create references to the needed adapters and links them to their corresponding views.
+     * The data models are shown, see {@link MainActivity#attachDataModels()}, unless they are still being restored from the journal,
+     * in which case the controls stay disabled until {@link MainActivity#onJournalRestored(GameJournal, GameReplay)}.
+     * The activity then receives the scored rounds, including a round scored while the activity was recreated.
      * This is done to have a cleaner use of {@link MainActivity#onRestoreInstanceState(Bundle)},
      * as it is called after onCreate but before onResume.
      */
@@ -445,20 +692,53 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         mMediaPlayer = MediaPlayer.create(getApplicationContext(),R.raw.shake_and_roll_short);
         mMediaPlayer.setLooping(false);
 
+        if(mRestoring)
+        {
+            setControlsEnabled(false);
+        }
+        else
+        {
+            attachDataModels();
+        }
+
+        super.onResume();
+        if(!mRestoring)
+        {
+            mRoundScorer.setListener(this);
+        }
+        mJournalRestorer.setListener(this);
+    }
+
+    /**
+     * This method creates references to the needed adapters and links them to their corresponding views,
+     * and lets the game report its scored rounds to the score statistics.
+     */
+    private void attachDataModels()
+    {
         mDiceAdapter = new DiceAdapter(this, mDiceDataModelRef);
         mSpinnerAdapter = new ArrayAdapter<>(this, R.layout.support_simple_spinner_dropdown_item, mScoreItems);
         mGridView.setAdapter(mDiceAdapter);
         mScoreChoices.setAdapter(mSpinnerAdapter);
-
-        super.onResume();
+        mGamePlayModel.setRoundListener(sStatistics);
+        setControlsEnabled(!mRoundScorer.isPending());
     }
 
     /**
      * This method is used to release resources used when the activity is not visible.
+     * Rounds scored while the activity is not visible are kept by the {@link RoundScorer} until it is resumed.
+     * The metrics collected so far are written to the log, when enabled.
      */
     @Override
     protected void onPause() {
 
+        mRoundScorer.setListener(null);
+        mJournalRestorer.setListener(null);
+
+        if(Metrics.isEnabled())
+        {
+            Log.d(TAG, Metrics.getRegistry().dump());
+        }
+
         mDiceAdapter = null;
         mSpinnerAdapter = null;
 
@@ -478,27 +758,33 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
     @Override
     protected void onSaveInstanceState(Bundle outState) {
 
-        outState.putParcelableArrayList(SAVED_DICES_KEY, mDiceDataModelRef);
-        outState.putParcelable(SAVED_SCORE_CALCULATOR_KEY, mScoreCalculator);
-        outState.putInt(SAVED_SCORE_SELECTION_KEY, mScoreChoices.getSelectedItemPosition());
-        outState.putParcelable(SAVED_GAME_PLAY_KEY, mGamePlayModel);
-        outState.putCharSequenceArrayList(SAVED_SCORE_ITEMS_KEY, mScoreItems);
+        //Om spelet fortfarande läses in från journalen sparas inget, det läses in igen av nästa aktivitet.
+        boolean restoring = mGamePlayModel == null;
+        outState.putBoolean(SAVED_RESTORING_KEY, restoring);
+        if(!restoring)
+        {
+            outState.putByteArray(SAVED_DICES_KEY, Dice.toByteArray(mDiceDataModelRef));
+            outState.putParcelable(SAVED_SCORE_CALCULATOR_KEY, mScoreCalculator);
+            outState.putInt(SAVED_SCORE_SELECTION_KEY, mScoreChoices.getSelectedItemPosition());
+            outState.putParcelable(SAVED_GAME_PLAY_KEY, mGamePlayModel);
+            outState.putCharSequenceArrayList(SAVED_SCORE_ITEMS_KEY, mScoreItems);
+        }
         outState.putBoolean(NEW_GAME_KEY, mStartNewGame);
         super.onSaveInstanceState(outState);
     }
 
     /**
      * This method is used to restore the saved state of the activity at state change.
-     * The restoration will only occur if the user has not asked for a new game.
+     * The restoration will only occur if the user has not asked for a new game, and the game was not still being restored from the journal.
      *
      * @param savedInstanceState The most recent saved state of the activity.
      */
     @Override
     protected void onRestoreInstanceState(Bundle savedInstanceState) {
 
-        if(!savedInstanceState.getBoolean(NEW_GAME_KEY))
+        if(!savedInstanceState.getBoolean(NEW_GAME_KEY) && !savedInstanceState.getBoolean(SAVED_RESTORING_KEY))
         {
-            mDiceDataModelRef = savedInstanceState.getParcelableArrayList(SAVED_DICES_KEY);
+            mDiceDataModelRef = Dice.fromByteArray(savedInstanceState.getByteArray(SAVED_DICES_KEY));
             mScoreCalculator = savedInstanceState.getParcelable(SAVED_SCORE_CALCULATOR_KEY);
             mScoreChoices.setSelection(savedInstanceState.getInt(SAVED_SCORE_SELECTION_KEY));
             mScoreItems = savedInstanceState.getCharSequenceArrayList(SAVED_SCORE_ITEMS_KEY);
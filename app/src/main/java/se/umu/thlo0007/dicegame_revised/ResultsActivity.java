@@ -16,7 +16,8 @@ import java.util.HashMap;
 
 /**
  * This activity is the Controller between the Model holding the data and the View holding the view elements concerning the results of the game.
- * This activity is always started from {@link MainActivity}, and all data needed is collected from the starting Intent.
+ * This activity is always started from {@link MainActivity}, and all data needed is collected from the starting Intent,
+ * except the score statistics of all games played, which are read from {@link MainActivity#getStatistics()}.
  * The activity implements the interface {@link se.umu.thlo0007.dicegame_revised.NewGameDialogFragment.NewGameDialogListener},
  * enabling it to handle events passed back from the NewGameDialogFragment.
  *
@@ -54,7 +55,8 @@ public class ResultsActivity extends AppCompatActivity implements NewGameDialogF
 
         mResultsListView = (ExpandableListView)findViewById(R.id.results_listView);
 
-        mResultListAdapter = new ExpandableResultListAdapter(this, mResultsArrayList, mResultsChoiceList, mResultsDiceImageListMap);
+        mResultListAdapter = new ExpandableResultListAdapter(this, mResultsArrayList, mResultsChoiceList, mResultsDiceImageListMap,
+                MainActivity.getStatistics().getSnapshot());
 
         mResultsListView.setAdapter(mResultListAdapter);
 
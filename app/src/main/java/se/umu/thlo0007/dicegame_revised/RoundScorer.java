@@ -0,0 +1,147 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import java.util.concurrent.Executor;
+
+import se.umu.thlo0007.dicegame_revised.engine.Metrics;
+
+/**
+ * This class scores rounds on a background thread and delivers the results on the UI thread.
+ *
+ * A round is scored from a copy of the {@link ScoreCalculator}, so the dice values and score choice of the round
+ * can not change while it is scored. Only one round is scored at a time, and the score is delivered together with
+ * the score choice it was calculated for.
+ *
+ * The scorer outlives the activity showing the game, so a round survives a configuration change: a result arriving while
+ * no listener is set, for example while the activity is recreated, is kept until the next listener is set.
+ * All methods, like the listener, are called on the UI thread.
+ *
+ * @author Thim Lohse
+ */
+public class RoundScorer {
+
+    /**
+     * The time from a round being submitted until its score is delivered to the listener.
+     */
+    public static final String LATENCY_TIMER = "roundScorer.latency";
+
+    private final Executor scoringExecutor;
+    private final Executor resultExecutor;
+    private Listener listener;
+    private boolean pending;
+    private int generation;
+    private String resultScoreChoice;
+    private int resultScore;
+    private long resultStartNanos;
+    private boolean hasResult;
+
+    /**
+     *
+     * @param scoringExecutor The executor scoring the rounds, off the UI thread.
+     * @param resultExecutor The executor running the delivery of the results on the UI thread.
+     */
+    public RoundScorer(Executor scoringExecutor, Executor resultExecutor) {
+        this.scoringExecutor = scoringExecutor;
+        this.resultExecutor = resultExecutor;
+    }
+
+    /**
+     * Starts scoring the current dice values and score choice of the calculator, unless a round is already being scored.
+     *
+     * @param scoreCalculator The calculator with the dice values and score choice of the round, see {@link ScoreCalculator#setDiceValues(java.util.ArrayList)}.
+     * @return true if and only if, the round was submitted.
+     */
+    public boolean scoreRound(ScoreCalculator scoreCalculator)
+    {
+        if(pending)
+        {
+            return false;
+        }
+        pending = true;
+        final int submittedGeneration = generation;
+        final long startNanos = Metrics.startTimer();
+        final ScoreCalculator round = new ScoreCalculator(scoreCalculator.toByteArray());
+        scoringExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final int score = round.getScore();
+                resultExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onResult(submittedGeneration, round.getScoreChoice(), score, startNanos);
+                    }
+                });
+            }
+        });
+        return true;
+    }
+
+    /**
+     *
+     * @return true if and only if, a round has been submitted and its score has not been delivered yet.
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * A result kept while no listener was set is delivered to the new listener right away.
+     *
+     * @param listener The listener of the scored rounds, or null to keep the results until a listener is set.
+     */
+    public void setListener(Listener listener)
+    {
+        this.listener = listener;
+        if(listener != null && hasResult)
+        {
+            hasResult = false;
+            deliver(resultScoreChoice, resultScore, resultStartNanos);
+        }
+    }
+
+    /**
+     * Forgets the round being scored, for example when a new game is started. Its score is never delivered.
+     */
+    public void cancel()
+    {
+        generation++;
+        pending = false;
+        hasResult = false;
+    }
+
+    private void onResult(int submittedGeneration, String scoreChoice, int score, long startNanos)
+    {
+        if(submittedGeneration != generation)
+        {
+            return;
+        }
+        if(listener == null)
+        {
+            resultScoreChoice = scoreChoice;
+            resultScore = score;
+            resultStartNanos = startNanos;
+            hasResult = true;
+            return;
+        }
+        deliver(scoreChoice, score, startNanos);
+    }
+
+    private void deliver(String scoreChoice, int score, long startNanos)
+    {
+        pending = false;
+        Metrics.stopTimer(LATENCY_TIMER, startNanos);
+        listener.onRoundScored(scoreChoice, score);
+    }
+
+    /**
+     * This interface receives the score of every round, on the UI thread.
+     */
+    public interface Listener
+    {
+        /**
+         *
+         * @param scoreChoice The score choice the round was scored with.
+         * @param score The score of the round.
+         */
+        void onRoundScored(String scoreChoice, int score);
+    }
+}
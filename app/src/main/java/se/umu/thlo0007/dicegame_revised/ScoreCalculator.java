@@ -3,39 +3,49 @@ package se.umu.thlo0007.dicegame_revised;
 import android.os.Parcel;
 import android.os.Parcelable;
 import java.util.ArrayList;
-import java.util.Collections;
+
+import se.umu.thlo0007.dicegame_revised.engine.Metrics;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.Scorer;
 
 /**
- * This class handles all the calculations of the score each round in the game.
+ * This class handles the score of each round in the game, and keeps the score choice and dice values between state changes.
+ * The calculations themselves are made by the {@link Scorer} of the engine module.
+ * The calculator is saved as a single byte array: the scoring engine, the score choice index (-1 if none is selected),
+ * the number of dice values and one byte per dice value.
  */
 public class ScoreCalculator implements Parcelable {
 
+    public static final String GET_SCORE_TIMER = "scoreCalculator.getScore";
+
     private String scoreChoice;
+    private int scoreChoiceIndex;
     private ArrayList<Integer> diceValues;
-
-    /**
-     * This enum is used to provide an easy way to sort the generated power set in different ways.
-     */
-    public enum SortChoice
-    {
-        SORT_ON_SUM_ONLY,SORT_ON_SUM_AND_NUM_DICES_NEEDED
-    }
+    private Scorer scorer;
 
     public ScoreCalculator() {
         this.diceValues = new ArrayList<>();
+        this.scorer = new Scorer();
+    }
+
+    public void setScoringEngine(Scorer.ScoringEngine scoringEngine) {
+        scorer.setScoringEngine(scoringEngine);
     }
 
+    public Scorer.ScoringEngine getScoringEngine() { return scorer.getScoringEngine(); }
+
     public void setScoreChoice(String scoreChoice) {
         this.scoreChoice = scoreChoice;
+        this.scoreChoiceIndex = ScoreTable.getScoreChoiceIndex(scoreChoice);
     }
 
     /**
-     * This method extracts the dice values for the round from the Dice objects.
+     * This method extracts the dice values for the round from the Dice objects, into the same list every round.
      * @param dices The list of Dice objects holding necessary information about the round.
      */
     public void setDiceValues(ArrayList<Dice> dices)
     {
-        diceValues = new ArrayList<>();
+        diceValues.clear();
         for (Dice d : dices)
         {
             diceValues.add(d.getDiceValue());
@@ -44,219 +54,65 @@ public class ScoreCalculator implements Parcelable {
 
     public String getScoreChoice() { return scoreChoice; }
 
-    public int getScore() {
-        return Calculate(diceValues, scoreChoice);
-    }
-
     /**
-     * This method calculates the total score of the round depending on the score choice and the dice values.
-     * The method uses {@link se.umu.thlo0007.dicegame_revised.ScoreCalculator.SortChoice} to calculate the score in two ways,
-     * to ensure the order of the combinations in the subset is not affecting the outcome.
      *
-     * @param diceValues The values of the dices used the current round.
-     * @param scoreChoice The score choice used the current round.
-     * @return The highest integer value of the two score calculations.
+     * @return The score of the current dice values for the current score choice, see {@link Scorer#getScore(ArrayList, int)}.
      */
-    public int Calculate(ArrayList<Integer> diceValues, String scoreChoice)
-    {
-
-        int totalScore = 0;
-        int SortOnSumOnlyScore = 0;
-        int SortOnSumAndNumDicesScore = 0;
-        ArrayList<SubSetAndSum> filteredSubSets;
-        ArrayList<Integer> remainingDiceValues;
-
-        if(scoreChoice.equals("Låga"))
-        {
-            for(int value : diceValues)
-            {
-                if(value < 4)
-                {
-                    totalScore += value;
-                }
-            }
-        }
-        else
-        {
-            int integerScoreChoice = Integer.valueOf(scoreChoice);
-
-            for (SortChoice sortChoice : SortChoice.values())
-            {
-
-                remainingDiceValues = new ArrayList<>();
-                remainingDiceValues.addAll(diceValues);
-
-                filteredSubSets = FilterAndSort(GeneratePowerSet(diceValues), integerScoreChoice, sortChoice);
-
-                for (SubSetAndSum ssp : filteredSubSets)
-                {
-
-                    if (ContainsAllElements(remainingDiceValues, ssp.getSet()))
-                    {
-
-                        for (int diceValue : ssp.getSet())
-                        {
-                            int indexToBeRemoved = remainingDiceValues.indexOf(diceValue);
-                            remainingDiceValues.remove(indexToBeRemoved);
-                        }
-                        switch(sortChoice)
-                        {
-                            case SORT_ON_SUM_ONLY:
-                            {
-                                SortOnSumOnlyScore += ssp.getSum();
-                                break;
-                            }
-                            case SORT_ON_SUM_AND_NUM_DICES_NEEDED:
-                            {
-                                SortOnSumAndNumDicesScore += ssp.getSum();
-                                break;
-                            }
-                        }
-
-                    }
-
-                }
-            }
-
-            totalScore = ReturnLargest(SortOnSumOnlyScore, SortOnSumAndNumDicesScore);
-        }
-
-        return totalScore;
+    public int getScore() {
+        long startNanos = Metrics.startTimer();
+        int score = scorer.getScore(diceValues, scoreChoiceIndex);
+        Metrics.stopTimer(GET_SCORE_TIMER, startNanos);
+        return score;
     }
-    /**
-     * This method generate a power set from the array list of values of the dices for the current round.
-     * Each set in the power set is a SubSetAndSum object, which holds the sub set and the sum of that sub set.
-     * @return The power set as an array list of {@link se.umu.thlo0007.dicegame_revised.SubSetAndSum}.
-     *
-     * <b>Note:</b> The GetPowerSet method is based on the following algorithm:
-     * <a href="http://www.geeksforgeeks.org/finding-all-subsets-of-a-given-set-in-java/">http://www.geeksforgeeks.org/finding-all-subsets-of-a-given-set-in-java/</a>
-     * <b>For more about power sets:</b>
-     * <a href="https://en.wikipedia.org/wiki/Power_set">https://en.wikipedia.org/wiki/Power_set</a>
-     */
-    public ArrayList<SubSetAndSum> GeneratePowerSet(ArrayList<Integer> setOfValues)
-    {
-
-        int n = setOfValues.size();
-        int numberOfSubsets = (int)Math.pow(2,n);
-        ArrayList<SubSetAndSum> subSetList = new ArrayList<>();
-
-        for(int i = 0; i < numberOfSubsets; i++)
-        {
-            subSetList.add(new SubSetAndSum());
-        }
-        for(int i = 0; i < (1<<n); i++)
-        {
-            for(int j = 0; j < n; j++)
-            {
-                if((i & ( 1 << j)) > 0)
-                {
-                    subSetList.get(i).addElement(setOfValues.get(j));
-                }
-            }
-        }
 
-        return subSetList;
+    @Override
+    public int describeContents() {
+        return 0;
     }
 
     /**
-     * This method compares two lists of Integers.
      *
-     * @param sourceData A first list of integers.
-     * @param comparableData A second list of integers.
-     * @return true if and only if, the first list of integers contains each and every one of the elements in the second list, duplicates included.
+     * @return The calculator packed in a byte array, see {@link ScoreCalculator}.
      */
-    private boolean ContainsAllElements(ArrayList<Integer> sourceData, ArrayList<Integer> comparableData)
+    public byte[] toByteArray()
     {
-        ArrayList<Integer> remainingValues = new ArrayList<>();
-        remainingValues.addAll(sourceData);
-
-        int indexOfElement;
-
-        for(int comparableInteger : comparableData)
+        byte[] packed = new byte[3 + diceValues.size()];
+        packed[0] = (byte) scorer.getScoringEngine().ordinal();
+        packed[1] = (byte) (scoreChoice == null ? -1 : scoreChoiceIndex);
+        packed[2] = (byte) diceValues.size();
+        for(int j = 0; j < diceValues.size(); j++)
         {
-
-            indexOfElement = remainingValues.indexOf(comparableInteger);
-            if(indexOfElement != -1)
-            {
-                remainingValues.remove(indexOfElement);
-            }
-            else
-            {
-
-                return false;
-            }
+            packed[3 + j] = (byte) (int) diceValues.get(j);
         }
-        return true;
+        return packed;
     }
 
     /**
-     * This method is used to filter down the power set list of {@link se.umu.thlo0007.dicegame_revised.SubSetAndSum},
-     * to those having the same sum as the score choice for the round.
-     * The method also sort the list depending on which {@link se.umu.thlo0007.dicegame_revised.ScoreCalculator.SortChoice} is used.
-     * This is done to simplify the actual calculation.
+     * Restores a calculator packed by {@link ScoreCalculator#toByteArray()}, including its dice values.
      *
-     * @param sourceData The power set for the current round.
-     * @param scoreChoice The score choice for the current round, converted to Integer.
-     * @param sortChoice The {@link se.umu.thlo0007.dicegame_revised.ScoreCalculator.SortChoice}. Decides which sorting should be executed.
-     * @return The filtered and sorted list of {@link se.umu.thlo0007.dicegame_revised.SubSetAndSum}.
+     * @param packed The packed calculator.
      */
-    private ArrayList<SubSetAndSum> FilterAndSort(ArrayList<SubSetAndSum> sourceData, int scoreChoice, SortChoice sortChoice)
-    {
-        ArrayList<SubSetAndSum> filteredData = new ArrayList<>();
-        for(SubSetAndSum ssp : sourceData) {
-            if (ssp.getSum() / scoreChoice == 1 && ssp.getSum() % scoreChoice == 0) {
-                filteredData.add(ssp);
-            }
-        }
-        switch (sortChoice)
+    public ScoreCalculator(byte[] packed) {
+        scorer = new Scorer();
+        scorer.setScoringEngine(Scorer.ScoringEngine.values()[packed[0]]);
+        if(packed[1] >= 0)
         {
-            case SORT_ON_SUM_ONLY:
-            {
-                Collections.sort(filteredData, SubSetAndSum.SumComparator);
-                break;
-            }
-            case SORT_ON_SUM_AND_NUM_DICES_NEEDED:
-            {
-                Collections.sort(filteredData, SubSetAndSum.SumAndNumDicesComparator);
-                break;
-            }
-            default:
-            {
-                break;
-            }
+            setScoreChoice(ScoreTable.getScoreChoice(packed[1]));
         }
-
-        return filteredData;
-    }
-
-    /**
-     * This method compares two integer values.
-     *
-     * @param i1 The first integer value.
-     * @param i2 The second integer value.
-     * @return The largest of the two integer values.
-     */
-    public int ReturnLargest(int i1, int i2)
-    {
-        if(i1 >= i2)
+        diceValues = new ArrayList<>(packed[2]);
+        for(int j = 0; j < packed[2]; j++)
         {
-            return i1;
+            diceValues.add((int) packed[3 + j]);
         }
-        return i2;
-    }
-
-    @Override
-    public int describeContents() {
-        return 0;
     }
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeString(scoreChoice);
+        dest.writeByteArray(toByteArray());
 
     }
     protected ScoreCalculator(Parcel in) {
-        scoreChoice = in.readString();
+        this(in.createByteArray());
 
     }
 
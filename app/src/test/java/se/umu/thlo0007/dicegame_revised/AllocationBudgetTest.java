@@ -0,0 +1,187 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Random;
+
+import se.umu.thlo0007.dicegame_revised.engine.DiceRandom;
+import se.umu.thlo0007.dicegame_revised.engine.GameState;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Budgets of the bytes allocated on the heap when a round is scored, measured with the allocation counter of the current thread.
+ * Each call is warmed up first so class loading and compilation are not counted,
+ * and the budgets are averages over many calls with headroom over the measured values.
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARM_UP_GAMES = 2000;
+    private static final int MEASURED_GAMES = 2000;
+
+    /**
+     * Scoring the dice values of a round looks them up in the score table and allocates nothing.
+     */
+    private static final long GET_SCORE_BUDGET_BYTES = 0;
+    /**
+     * Round scores are boxed from the integer cache, so only the growth of the score list is allocated, about 6 bytes per round.
+     */
+    private static final long ADD_SCORE_BUDGET_BYTES = 16;
+    /**
+     * The list of image ids of a round, the six boxed ids and the map entry, about 200 bytes.
+     */
+    private static final long ADD_DICE_IMAGE_DATA_BUDGET_BYTES = 256;
+
+    private com.sun.management.ThreadMXBean threadBean;
+    private Random random;
+    private ArrayList<Dice> dices;
+
+    @Before
+    public void setUp() throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+
+        random = new DiceRandom(30);
+        dices = new ArrayList<>();
+        for(int j = 0; j < ScoreTable.NUM_DICES; j++)
+        {
+            dices.add(new Dice());
+        }
+    }
+
+    private long getAllocatedBytes()
+    {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void throwDices()
+    {
+        for(Dice d : dices)
+        {
+            d.throwDice(random);
+        }
+    }
+
+    @Test
+    public void getScoreStaysWithinBudget() throws Exception {
+        getScores(WARM_UP_GAMES);
+        long bytesPerCall = getScores(MEASURED_GAMES) / (MEASURED_GAMES * GameState.MAX_ROUNDS);
+        assertTrue("getScore allocated " + bytesPerCall + " bytes, budget " + GET_SCORE_BUDGET_BYTES,
+                bytesPerCall <= GET_SCORE_BUDGET_BYTES);
+    }
+
+    @Test
+    public void addScoreStaysWithinBudget() throws Exception {
+        addScores(WARM_UP_GAMES);
+        long bytesPerCall = addScores(MEASURED_GAMES) / (MEASURED_GAMES * GameState.MAX_ROUNDS);
+        assertTrue("addScore allocated " + bytesPerCall + " bytes, budget " + ADD_SCORE_BUDGET_BYTES,
+                bytesPerCall <= ADD_SCORE_BUDGET_BYTES);
+    }
+
+    @Test
+    public void addDiceImageDataStaysWithinBudget() throws Exception {
+        addDiceImageData(WARM_UP_GAMES);
+        long bytesPerCall = addDiceImageData(MEASURED_GAMES) / (MEASURED_GAMES * GameState.MAX_ROUNDS);
+        assertTrue("addDiceImageData allocated " + bytesPerCall + " bytes, budget " + ADD_DICE_IMAGE_DATA_BUDGET_BYTES,
+                bytesPerCall <= ADD_DICE_IMAGE_DATA_BUDGET_BYTES);
+    }
+
+    /**
+     * Scores the rounds of games, with the dices of each round thrown and given to a calculator before counting.
+     *
+     * @param numGames The number of games.
+     * @return The bytes allocated by all calls.
+     */
+    private long getScores(int numGames)
+    {
+        ScoreCalculator[] calculators = new ScoreCalculator[numGames * GameState.MAX_ROUNDS];
+        for(int i = 0; i < calculators.length; i++)
+        {
+            throwDices();
+            calculators[i] = new ScoreCalculator();
+            calculators[i].setDiceValues(dices);
+            calculators[i].setScoreChoice(ScoreTable.getScoreChoice(i % GameState.MAX_ROUNDS));
+        }
+        int total = 0;
+        long start = getAllocatedBytes();
+        for(ScoreCalculator scoreCalculator : calculators)
+        {
+            total += scoreCalculator.getScore();
+        }
+        long allocatedBytes = getAllocatedBytes() - start;
+        assertTrue(total > 0);
+        return allocatedBytes;
+    }
+
+    /**
+     * Adds the score of every round to new games, which are created before counting.
+     *
+     * @param numGames The number of games.
+     * @return The bytes allocated by all calls.
+     */
+    private long addScores(int numGames)
+    {
+        GamePlayModel[] models = createModels(numGames);
+        long start = getAllocatedBytes();
+        for(GamePlayModel model : models)
+        {
+            for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+            {
+                model.addScore(round * 3);
+            }
+        }
+        long allocatedBytes = getAllocatedBytes() - start;
+        assertEquals(135, models[numGames - 1].getScoreTotal());
+        return allocatedBytes;
+    }
+
+    /**
+     * Adds the dice faces of every round to new games, which are created and given their score choices before counting.
+     *
+     * @param numGames The number of games.
+     * @return The bytes allocated by all calls.
+     */
+    private long addDiceImageData(int numGames)
+    {
+        GamePlayModel[] models = createModels(numGames);
+        for(GamePlayModel model : models)
+        {
+            for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+            {
+                model.addScore(0);
+                model.addScoreChoice(ScoreTable.getScoreChoice(round));
+            }
+        }
+        throwDices();
+        long start = getAllocatedBytes();
+        for(GamePlayModel model : models)
+        {
+            for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+            {
+                model.addDiceImageData(dices, ScoreTable.getScoreChoice(round));
+            }
+        }
+        long allocatedBytes = getAllocatedBytes() - start;
+        assertEquals(GameState.MAX_ROUNDS, models[numGames - 1].getRoundDiceImageData().size());
+        return allocatedBytes;
+    }
+
+    private GamePlayModel[] createModels(int numGames)
+    {
+        GamePlayModel[] models = new GamePlayModel[numGames];
+        for(int i = 0; i < numGames; i++)
+        {
+            models[i] = new GamePlayModel(i);
+        }
+        return models;
+    }
+}
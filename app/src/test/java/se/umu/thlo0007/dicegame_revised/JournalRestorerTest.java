@@ -0,0 +1,134 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import se.umu.thlo0007.dicegame_revised.engine.GameJournal;
+
+import static org.junit.Assert.*;
+
+public class JournalRestorerTest {
+
+    /**
+     * Runs the submitted tasks when asked to, like a thread that has not come around to them yet.
+     */
+    private static class QueueExecutor implements Executor
+    {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll()
+        {
+            while(!tasks.isEmpty())
+            {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private QueueExecutor restoringExecutor;
+    private QueueExecutor uiExecutor;
+    private JournalRestorer journalRestorer;
+    private List<GameJournal> journals;
+    private List<GameReplay> replays;
+    private JournalRestorer.Listener listener;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        restoringExecutor = new QueueExecutor();
+        uiExecutor = new QueueExecutor();
+        journalRestorer = new JournalRestorer(restoringExecutor, uiExecutor);
+        journals = new ArrayList<>();
+        replays = new ArrayList<>();
+        listener = new JournalRestorer.Listener() {
+            @Override
+            public void onJournalRestored(GameJournal journal, GameReplay replay) {
+                journals.add(journal);
+                replays.add(replay);
+            }
+        };
+        file = new File(folder.getRoot(), "journal.bin");
+    }
+
+    @Test
+    public void journalIsOpenedAndReplayedOffTheResultExecutor() throws Exception {
+        GameJournal played = new GameJournal(file);
+        played.newGame(30);
+        played.newThrow();
+        played.close();
+
+        journalRestorer.setListener(listener);
+        assertTrue(journalRestorer.restore(file));
+        assertTrue(journalRestorer.isPending());
+        assertFalse(journalRestorer.restore(file));
+
+        restoringExecutor.runAll();
+        assertTrue(journals.isEmpty());
+        uiExecutor.runAll();
+        assertEquals(1, journals.size());
+        assertNotNull(journals.get(0));
+        assertEquals(1, replays.get(0).getGamePlayModel().getThrowCounter());
+        assertFalse(journalRestorer.isPending());
+        journals.get(0).close();
+    }
+
+    @Test
+    public void emptyJournalHasNoReplay() throws Exception {
+        journalRestorer.setListener(listener);
+        journalRestorer.restore(file);
+        restoringExecutor.runAll();
+        uiExecutor.runAll();
+        assertNotNull(journals.get(0));
+        assertNull(replays.get(0));
+        journals.get(0).close();
+    }
+
+    @Test
+    public void resultIsKeptUntilAListenerIsSet() throws Exception {
+        journalRestorer.restore(file);
+        restoringExecutor.runAll();
+        uiExecutor.runAll();
+        assertTrue(journals.isEmpty());
+        assertTrue(journalRestorer.isPending());
+
+        journalRestorer.setListener(listener);
+        assertEquals(1, journals.size());
+        assertFalse(journalRestorer.isPending());
+        journals.get(0).close();
+    }
+
+    @Test
+    public void journalIsOpenedOnceAndFlushedBeforeTheNextReplay() throws Exception {
+        journalRestorer.setListener(listener);
+        journalRestorer.restore(file);
+        restoringExecutor.runAll();
+        uiExecutor.runAll();
+        GameJournal journal = journals.get(0);
+        journal.newGame(30);
+        journal.newThrow();
+        journal.newThrow();
+
+        journalRestorer.restore(file);
+        restoringExecutor.runAll();
+        uiExecutor.runAll();
+        assertSame(journal, journals.get(1));
+        assertEquals(2, replays.get(1).getGamePlayModel().getThrowCounter());
+        journal.close();
+    }
+}
@@ -0,0 +1,114 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+
+import static org.junit.Assert.*;
+
+public class RoundScorerTest {
+
+    /**
+     * Runs the submitted tasks when asked to, like a thread that has not come around to them yet.
+     */
+    private static class QueueExecutor implements Executor
+    {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll()
+        {
+            while(!tasks.isEmpty())
+            {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private QueueExecutor scoringExecutor;
+    private QueueExecutor uiExecutor;
+    private RoundScorer roundScorer;
+    private List<String> delivered;
+    private RoundScorer.Listener listener;
+
+    @Before
+    public void setUp() throws Exception {
+        scoringExecutor = new QueueExecutor();
+        uiExecutor = new QueueExecutor();
+        roundScorer = new RoundScorer(scoringExecutor, uiExecutor);
+        delivered = new ArrayList<>();
+        listener = new RoundScorer.Listener() {
+            @Override
+            public void onRoundScored(String scoreChoice, int score) {
+                delivered.add(scoreChoice + "=" + score);
+            }
+        };
+    }
+
+    private ScoreCalculator getRound(String scoreChoice, int... diceValues)
+    {
+        byte[] packed = new byte[3 + diceValues.length];
+        packed[1] = (byte) ScoreTable.getScoreChoiceIndex(scoreChoice);
+        packed[2] = (byte) diceValues.length;
+        for(int j = 0; j < diceValues.length; j++)
+        {
+            packed[3 + j] = (byte) diceValues[j];
+        }
+        return new ScoreCalculator(packed);
+    }
+
+    @Test
+    public void scoreIsDeliveredOnTheResultExecutor() throws Exception {
+        roundScorer.setListener(listener);
+        ScoreCalculator round = getRound("12", 6, 6, 5, 1, 4, 2);
+        assertTrue(roundScorer.scoreRound(round));
+        assertTrue(roundScorer.isPending());
+        // The score choice can change while the round is scored, the round keeps its own.
+        round.setScoreChoice("4");
+        assertFalse(roundScorer.scoreRound(round));
+
+        scoringExecutor.runAll();
+        assertTrue(delivered.isEmpty());
+        uiExecutor.runAll();
+        assertEquals(Arrays.asList("12=24"), delivered);
+        assertFalse(roundScorer.isPending());
+    }
+
+    @Test
+    public void scoreIsKeptUntilAListenerIsSet() throws Exception {
+        roundScorer.setListener(listener);
+        roundScorer.scoreRound(getRound("Låga", 1, 2, 3, 4, 5, 6));
+        roundScorer.setListener(null);
+        scoringExecutor.runAll();
+        uiExecutor.runAll();
+        assertTrue(delivered.isEmpty());
+        assertTrue(roundScorer.isPending());
+
+        roundScorer.setListener(listener);
+        assertEquals(Arrays.asList("Låga=6"), delivered);
+        assertFalse(roundScorer.isPending());
+    }
+
+    @Test
+    public void cancelledRoundIsNeverDelivered() throws Exception {
+        roundScorer.setListener(listener);
+        roundScorer.scoreRound(getRound("6", 6, 6, 6, 1, 1, 1));
+        roundScorer.cancel();
+        assertFalse(roundScorer.isPending());
+        roundScorer.scoreRound(getRound("5", 5, 5, 1, 1, 1, 1));
+        scoringExecutor.runAll();
+        uiExecutor.runAll();
+        assertEquals(Arrays.asList("5=10"), delivered);
+    }
+}
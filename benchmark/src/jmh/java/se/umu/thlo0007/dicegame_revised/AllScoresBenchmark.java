@@ -0,0 +1,91 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.Scorer;
+
+/**
+ * This class benchmarks calculating the score of all ten score choices for one hand per operation,
+ * calling {@link Scorer#Calculate(ArrayList, String)} once per score choice against the single-pass calculations.
+ *
+ * Run with: gradlew :benchmark:jmh
+ *
+ * @author Thim Lohse
+ */
+@State(Scope.Thread)
+public class AllScoresBenchmark {
+
+    @Param({"RANDOM", "ALL_HANDS"})
+    public HandSet handSet;
+
+    private Scorer scorer;
+    private List<ArrayList<Integer>> hands;
+    private String[] scoreChoices;
+    private int[] scores;
+    private int nextHand;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        scorer = new Scorer();
+        hands = handSet.createHands();
+        scoreChoices = new String[ScoreTable.NUM_SCORE_CHOICES];
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            scoreChoices[choice] = ScoreTable.getScoreChoice(choice);
+        }
+        scores = new int[ScoreTable.NUM_SCORE_CHOICES];
+        nextHand = 0;
+    }
+
+    private ArrayList<Integer> nextHand()
+    {
+        ArrayList<Integer> hand = hands.get(nextHand);
+        nextHand = nextHand + 1 == hands.size() ? 0 : nextHand + 1;
+        return hand;
+    }
+
+    @Benchmark
+    public int[] calculateEachChoice()
+    {
+        ArrayList<Integer> hand = nextHand();
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            scores[choice] = scorer.Calculate(hand, scoreChoices[choice]);
+        }
+        return scores;
+    }
+
+    @Benchmark
+    public int[] calculateOptimalEachChoice()
+    {
+        ArrayList<Integer> hand = nextHand();
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            scores[choice] = scorer.CalculateOptimal(hand, scoreChoices[choice]);
+        }
+        return scores;
+    }
+
+    @Benchmark
+    public int[] calculateAll()
+    {
+        return scorer.CalculateAll(nextHand());
+    }
+
+    @Benchmark
+    public int[] getScores()
+    {
+        scorer.getScores(nextHand(), scores);
+        return scores;
+    }
+}
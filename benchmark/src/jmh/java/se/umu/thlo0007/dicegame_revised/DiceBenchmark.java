@@ -0,0 +1,83 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+import se.umu.thlo0007.dicegame_revised.engine.DiceBatch;
+import se.umu.thlo0007.dicegame_revised.engine.DiceRandom;
+import se.umu.thlo0007.dicegame_revised.engine.Die;
+
+/**
+ * This class benchmarks throwing the dices of many hands, one {@link Die} object at a time against one {@link DiceBatch}.
+ * Each operation rethrows the dices that are not held in all hands, with the same random hold masks for every benchmark.
+ *
+ * Run with: gradlew :benchmark:jmh
+ *
+ * @author Thim Lohse
+ */
+@State(Scope.Thread)
+public class DiceBenchmark {
+
+    @Param({"1", "64", "4096"})
+    public int numHands;
+
+    private Die[] dices;
+    private Random random;
+    private DiceRandom diceRandom;
+    private DiceBatch batch;
+    private byte[] batchDices;
+    private int[] holds;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        Random holdsRandom = new Random(30);
+        holds = new int[numHands];
+        dices = new Die[numHands * DiceBatch.NUM_DICES];
+        for(int h = 0; h < numHands; h++)
+        {
+            holds[h] = holdsRandom.nextInt(1 << DiceBatch.NUM_DICES);
+            for(int j = 0; j < DiceBatch.NUM_DICES; j++)
+            {
+                dices[h * DiceBatch.NUM_DICES + j] = new Die(1, (holds[h] & (1 << j)) != 0);
+            }
+        }
+        random = new Random(30);
+        diceRandom = new DiceRandom(30);
+        batch = new DiceBatch(new DiceRandom(30));
+        batchDices = new byte[numHands * DiceBatch.NUM_DICES];
+    }
+
+    @Benchmark
+    public Die[] perDieRandom()
+    {
+        for(Die d : dices)
+        {
+            d.roll(random);
+        }
+        return dices;
+    }
+
+    @Benchmark
+    public Die[] perDieDiceRandom()
+    {
+        for(Die d : dices)
+        {
+            d.roll(diceRandom);
+        }
+        return dices;
+    }
+
+    @Benchmark
+    public byte[] batch()
+    {
+        batch.throwDices(batchDices, holds, numHands);
+        return batchDices;
+    }
+}
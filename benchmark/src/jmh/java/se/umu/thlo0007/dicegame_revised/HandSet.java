@@ -0,0 +1,91 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This enum describes the sets of six-dice hands the benchmarks are run with.
+ *
+ * @author Thim Lohse
+ */
+public enum HandSet {
+
+    /**
+     * 1024 hands thrown with a fixed seed, so every run measures the same hands.
+     */
+    RANDOM,
+    /**
+     * The hand with six ones, which has the most subsets summing up to the low targets.
+     */
+    ALL_ONES,
+    /**
+     * The hand with six sixes, which has the most subsets summing up to 6 and 12.
+     */
+    ALL_SIXES,
+    /**
+     * All 6^6 = 46656 ordered hands of six dices.
+     */
+    ALL_HANDS;
+
+    private static final int NUM_DICES = 6;
+    private static final int NUM_RANDOM_HANDS = 1024;
+    private static final long RANDOM_SEED = 30L;
+
+    /**
+     *
+     * @return A new list with the hands of the set, each hand as a list of dice values.
+     */
+    public List<ArrayList<Integer>> createHands()
+    {
+        List<ArrayList<Integer>> hands;
+        switch(this)
+        {
+            case RANDOM:
+            {
+                Random random = new Random(RANDOM_SEED);
+                hands = new ArrayList<>(NUM_RANDOM_HANDS);
+                for(int i = 0; i < NUM_RANDOM_HANDS; i++)
+                {
+                    ArrayList<Integer> hand = new ArrayList<>();
+                    for(int j = 0; j < NUM_DICES; j++)
+                    {
+                        hand.add(random.nextInt(6) + 1);
+                    }
+                    hands.add(hand);
+                }
+                break;
+            }
+            case ALL_ONES:
+            case ALL_SIXES:
+            {
+                hands = new ArrayList<>(1);
+                ArrayList<Integer> hand = new ArrayList<>();
+                for(int j = 0; j < NUM_DICES; j++)
+                {
+                    hand.add(this == ALL_ONES ? 1 : 6);
+                }
+                hands.add(hand);
+                break;
+            }
+            default:
+            {
+                int numHands = (int) Math.pow(6, NUM_DICES);
+                hands = new ArrayList<>(numHands);
+                for(int i = 0; i < numHands; i++)
+                {
+                    ArrayList<Integer> hand = new ArrayList<>();
+                    int remaining = i;
+                    for(int j = 0; j < NUM_DICES; j++)
+                    {
+                        hand.add(remaining % 6 + 1);
+                        remaining /= 6;
+                    }
+                    hands.add(hand);
+                }
+                break;
+            }
+        }
+        return hands;
+    }
+}
@@ -0,0 +1,143 @@
+package se.umu.thlo0007.dicegame_revised;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.Scorer;
+import se.umu.thlo0007.dicegame_revised.engine.SubSetAndSum;
+
+/**
+ * This class benchmarks the score calculations of {@link Scorer}, one hand per operation.
+ * Every benchmark is run for all combinations of {@link HandSet} and score choice,
+ * and each operation moves on to the next hand of the set.
+ *
+ * Run with: gradlew :benchmark:jmh
+ *
+ * @author Thim Lohse
+ */
+@State(Scope.Thread)
+public class ScorerBenchmark {
+
+    @Param({"RANDOM", "ALL_ONES", "ALL_SIXES", "ALL_HANDS"})
+    public HandSet handSet;
+
+    @Param({"Låga", "4", "5", "6", "7", "8", "9", "10", "11", "12"})
+    public String scoreChoice;
+
+    private Scorer scorer;
+    private List<ArrayList<Integer>> hands;
+    private int integerScoreChoice;
+    private int nextHand;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        scorer = new Scorer();
+        hands = handSet.createHands();
+        integerScoreChoice = ScoreTable.getScoreChoiceIndex(scoreChoice) + 3;
+        nextHand = 0;
+    }
+
+    private ArrayList<Integer> nextHand()
+    {
+        ArrayList<Integer> hand = hands.get(nextHand);
+        nextHand = nextHand + 1 == hands.size() ? 0 : nextHand + 1;
+        return hand;
+    }
+
+    @Benchmark
+    public int calculate()
+    {
+        return scorer.Calculate(nextHand(), scoreChoice);
+    }
+
+    @Benchmark
+    public int calculateDistinct()
+    {
+        return scorer.CalculateDistinct(nextHand(), scoreChoice);
+    }
+
+    @Benchmark
+    public int calculateGreedy()
+    {
+        return scorer.CalculateGreedy(nextHand(), scoreChoice);
+    }
+
+    @Benchmark
+    public int calculateOptimal()
+    {
+        return scorer.CalculateOptimal(nextHand(), scoreChoice);
+    }
+
+    @Benchmark
+    public int scoreTable()
+    {
+        return ScoreTable.getScore(nextHand(), ScoreTable.getScoreChoiceIndex(scoreChoice));
+    }
+
+    @Benchmark
+    public ArrayList<SubSetAndSum> generatePowerSet()
+    {
+        return scorer.GeneratePowerSet(nextHand());
+    }
+
+    @Benchmark
+    public ArrayList<SubSetAndSum> generateDistinctSubSets()
+    {
+        return scorer.GenerateDistinctSubSets(nextHand());
+    }
+
+    /**
+     * This benchmark measures {@link Scorer#FilterAndSort(ArrayList, int, Scorer.SortChoice)} on its own,
+     * with both sort choices as in {@link Scorer#Calculate(ArrayList, String)}.
+     * The power sets are generated once per trial, so generating them is not part of the measurement.
+     */
+    @State(Scope.Thread)
+    public static class PowerSets
+    {
+        private List<ArrayList<SubSetAndSum>> powerSets;
+        private int nextPowerSet;
+
+        @Setup(Level.Trial)
+        public void setUp(ScorerBenchmark benchmark)
+        {
+            powerSets = new ArrayList<>(benchmark.hands.size());
+            for(ArrayList<Integer> hand : benchmark.hands)
+            {
+                powerSets.add(benchmark.scorer.GeneratePowerSet(hand));
+            }
+            nextPowerSet = 0;
+        }
+
+        private ArrayList<SubSetAndSum> nextPowerSet()
+        {
+            ArrayList<SubSetAndSum> powerSet = powerSets.get(nextPowerSet);
+            nextPowerSet = nextPowerSet + 1 == powerSets.size() ? 0 : nextPowerSet + 1;
+            return powerSet;
+        }
+    }
+
+    @Benchmark
+    public int filterAndSort(PowerSets powerSets)
+    {
+        if(integerScoreChoice < 4)
+        {
+            return 0;
+        }
+        ArrayList<SubSetAndSum> powerSet = powerSets.nextPowerSet();
+        int filtered = 0;
+        for(Scorer.SortChoice sortChoice : Scorer.SortChoice.values())
+        {
+            filtered += scorer.FilterAndSort(powerSet, integerScoreChoice, sortChoice).size();
+        }
+        return filtered;
+    }
+}
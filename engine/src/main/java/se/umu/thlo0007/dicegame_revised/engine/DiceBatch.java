@@ -0,0 +1,94 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+/**
+ * This class throws the dices of many hands at once, for simulations playing many games side by side.
+ *
+ * The hands are stored in a flat byte array with {@link DiceBatch#NUM_DICES} values per hand, hand h at offset h * 6,
+ * and which dices of each hand are held is given by a bitmask per hand, like {@link RerollAdvisor.Advice#getBestHolds()}.
+ * Instead of drawing one random value per dice, each 63-bit value of the generator is read as a number in base 6,
+ * giving {@link DiceBatch#FACES_PER_DRAW} dice values per draw.
+ *
+ * A batch keeps the unused dice values of its last draw and should only be used by one thread at a time.
+ *
+ * @author Thim Lohse
+ */
+public class DiceBatch {
+
+    public static final int NUM_DICES = ThirtyGame.NUM_DICES;
+    public static final int FACES_PER_DRAW = 23;
+
+    /**
+     * 6^23, the number of values of 23 dices.
+     */
+    private static final long FACES_RANGE = 789730223053602816L;
+    /**
+     * The largest multiple of 6^23 below 2^63. Larger draws are rejected, so every dice value is equally likely.
+     */
+    private static final long DRAW_LIMIT = (Long.MAX_VALUE / FACES_RANGE) * FACES_RANGE;
+
+    private final DiceRandom random;
+    private long faces;
+    private int numFaces;
+
+    /**
+     *
+     * @param random The random generator used for all throws of the batch.
+     */
+    public DiceBatch(DiceRandom random) {
+        this.random = random;
+        this.numFaces = 0;
+    }
+
+    /**
+     * Throws every dice of the hands.
+     *
+     * @param dices The dice values of the hands, 6 per hand.
+     * @param numHands The number of hands to throw, from the start of the array.
+     */
+    public void throwDices(byte[] dices, int numHands)
+    {
+        int end = numHands * NUM_DICES;
+        for(int i = 0; i < end; i++)
+        {
+            dices[i] = nextFace();
+        }
+    }
+
+    /**
+     * Throws the dices of the hands that are not held.
+     *
+     * @param dices The dice values of the hands, 6 per hand.
+     * @param holds A bitmask per hand, where bit j is set if dice j of the hand is held.
+     * @param numHands The number of hands to throw, from the start of the arrays.
+     */
+    public void throwDices(byte[] dices, int[] holds, int numHands)
+    {
+        for(int h = 0; h < numHands; h++)
+        {
+            int offset = h * NUM_DICES;
+            for(int rest = ~holds[h] & ((1 << NUM_DICES) - 1); rest != 0; rest &= rest - 1)
+            {
+                dices[offset + Integer.numberOfTrailingZeros(rest)] = nextFace();
+            }
+        }
+    }
+
+    private byte nextFace()
+    {
+        if(numFaces == 0)
+        {
+            long draw;
+            do
+            {
+                draw = random.nextLong() >>> 1;
+            }
+            while(draw >= DRAW_LIMIT);
+            faces = draw % FACES_RANGE;
+            numFaces = FACES_PER_DRAW;
+        }
+        byte face = (byte) (faces % Die.NUM_FACES + 1);
+        faces /= Die.NUM_FACES;
+        numFaces--;
+        return face;
+    }
+}
@@ -0,0 +1,91 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.Random;
+
+/**
+ * This class represents the rules of a single dice, 6-sided unless given another number of faces: its value, and whether it is held between throws.
+ * Presentation, such as images and animations, is left to the user of the class.
+ *
+ * @author Thim Lohse
+ */
+public class Die {
+
+    public static final int NUM_FACES = 6;
+
+    private final int numFaces;
+    private int value;
+    private boolean held;
+
+    public Die() {
+        this(NUM_FACES);
+    }
+
+    /**
+     *
+     * @param numFaces The number of faces of the dice, showing 1 to numFaces.
+     */
+    public Die(int numFaces) {
+        this.numFaces = numFaces;
+        this.value = 1;
+        this.held = false;
+    }
+
+    /**
+     *
+     * @param value The value the dice is showing.
+     * @param held The boolean value representing if the dice is held or not.
+     */
+    public Die(int value, boolean held) {
+        this.numFaces = NUM_FACES;
+        this.value = value;
+        this.held = held;
+    }
+
+    /**
+     * Method that simulates a throw of the dice. A held dice keeps its value.
+     *
+     * @param random The random generator used for the throw.
+     * @return true if and only if, the dice was thrown.
+     */
+    public boolean roll(Random random)
+    {
+        if(held)
+        {
+            return false;
+        }
+        value = random.nextInt(numFaces) + 1;
+        return true;
+    }
+
+    /**
+     * Alternates the dice between being held and not held.
+     */
+    public void toggleHold()
+    {
+        held = !held;
+    }
+
+    /**
+     * Releases the dice, so it is thrown again on the next throw.
+     */
+    public void release()
+    {
+        held = false;
+    }
+
+    /**
+     *
+     * @return The current dice integer value.
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     *
+     * @return The boolean value representing if the dice is held or not.
+     */
+    public boolean isHeld() {
+        return held;
+    }
+}
@@ -0,0 +1,442 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class keeps the history of any number of finished games outside the Java heap, for long running simulations and servers.
+ *
+ * Games are appended as {@link GameRecord}s of {@link GameRecord#RECORD_SIZE} bytes, into direct buffers of
+ * {@link GameArchive#RECORDS_PER_CHUNK} records that are allocated as the archive grows. A million games take 68 MB
+ * of native memory and a few hundred buffer objects on the heap, instead of a {@link GameState} with boxed lists per game.
+ *
+ * Any number of threads can append at the same time. Each append reserves its slot with one atomic increment,
+ * writes its record without a lock and marks its slot as done. The number of published games is then moved past
+ * every done slot by whichever append gets there, so no append waits for another, and readers always see a prefix
+ * of finished slots. An append that fails, for example when its buffer can not be allocated, marks its slot as failed
+ * instead, so later games are still published; failed slots are skipped by the views. A buffer that can not be allocated
+ * is only tried once, since every failed try waits for a garbage collection, and the other appends to it fail right away.
+ * Games are read through a {@link GameArchive.View}, a flyweight that reads straight from the buffers
+ * with the same accessors as the game state.
+ *
+ * @author Thim Lohse
+ */
+public class GameArchive {
+
+    /**
+     * The number of records in each buffer, about 4.5 MB.
+     */
+    public static final int RECORDS_PER_CHUNK = 1 << 16;
+
+    private static final int CHUNK_SIZE = RECORDS_PER_CHUNK * GameRecord.RECORD_SIZE;
+    private static final int SLOT_BITS_LENGTH = RECORDS_PER_CHUNK / Long.SIZE;
+    // Marks a chunk whose buffer could not be allocated, so the appends of its slots fail without trying again.
+    private static final ByteBuffer UNAVAILABLE = ByteBuffer.allocate(0);
+
+    private final long capacity;
+    private final AtomicReferenceArray<ByteBuffer> chunks;
+    // One bit per slot of each chunk, set when the append of the slot has finished, and when it has failed.
+    private final AtomicReferenceArray<AtomicLongArray> doneSlots;
+    private final AtomicReferenceArray<AtomicLongArray> failedSlots;
+    private final AtomicLong reserved;
+    private final AtomicLong published;
+    private final AtomicLong failed;
+
+    /**
+     *
+     * @param capacity The highest number of games the archive can hold. Memory is only allocated for the games appended.
+     */
+    public GameArchive(long capacity) {
+        long numChunks = (capacity + RECORDS_PER_CHUNK - 1) / RECORDS_PER_CHUNK;
+        if(capacity <= 0 || numChunks > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + (long) Integer.MAX_VALUE * RECORDS_PER_CHUNK);
+        }
+        this.capacity = capacity;
+        this.chunks = new AtomicReferenceArray<>((int) numChunks);
+        this.doneSlots = new AtomicReferenceArray<>((int) numChunks);
+        this.failedSlots = new AtomicReferenceArray<>((int) numChunks);
+        this.reserved = new AtomicLong();
+        this.published = new AtomicLong();
+        this.failed = new AtomicLong();
+    }
+
+    /**
+     * Appends a finished game. Can be called from any thread, and never waits for other appends.
+     * If the record can not be written its slot is marked as failed, see {@link GameArchive#getNumFailed()}, and the error is thrown.
+     *
+     * @param record A complete game record.
+     * @return The index of the game in the archive, or -1 if the archive is full.
+     */
+    public long append(GameRecord record)
+    {
+        if(!record.isComplete())
+        {
+            throw new IllegalArgumentException("Only complete games can be archived");
+        }
+        long index = reserved.getAndIncrement();
+        if(index >= capacity)
+        {
+            reserved.decrementAndGet();
+            return -1;
+        }
+        int chunkIndex = (int) (index / RECORDS_PER_CHUNK);
+        int slot = (int) (index % RECORDS_PER_CHUNK);
+        // The slot bits are allocated before the buffer, so a slot can be marked as failed even if its buffer can not be allocated.
+        AtomicLongArray done = getSlotBits(doneSlots, chunkIndex);
+        boolean written = false;
+        try
+        {
+            record.write(getChunk(chunkIndex), slot * GameRecord.RECORD_SIZE);
+            written = true;
+        }
+        finally
+        {
+            if(!written)
+            {
+                setBit(getSlotBits(failedSlots, chunkIndex), slot);
+                failed.incrementAndGet();
+            }
+            setBit(done, slot);
+            publish();
+        }
+        return index;
+    }
+
+    /**
+     * Moves the number of published games past every slot whose append has finished. Each append marks its slot as done
+     * before calling this method, so the last append to finish always sees every done slot, and nothing is left unpublished.
+     */
+    private void publish()
+    {
+        long index = published.get();
+        while(isBitSet(doneSlots, index))
+        {
+            if(published.compareAndSet(index, index + 1))
+            {
+                index++;
+            }
+            else
+            {
+                index = published.get();
+            }
+        }
+    }
+
+    private boolean isBitSet(AtomicReferenceArray<AtomicLongArray> slotBits, long index)
+    {
+        if(index >= capacity)
+        {
+            return false;
+        }
+        AtomicLongArray bits = slotBits.get((int) (index / RECORDS_PER_CHUNK));
+        int slot = (int) (index % RECORDS_PER_CHUNK);
+        return bits != null && (bits.get(slot / Long.SIZE) & (1L << slot)) != 0;
+    }
+
+    private static void setBit(AtomicLongArray bits, int slot)
+    {
+        int i = slot / Long.SIZE;
+        long word;
+        do
+        {
+            word = bits.get(i);
+        }
+        while(!bits.compareAndSet(i, word, word | (1L << slot)));
+    }
+
+    private AtomicLongArray getSlotBits(AtomicReferenceArray<AtomicLongArray> slotBits, int chunkIndex)
+    {
+        AtomicLongArray bits = slotBits.get(chunkIndex);
+        if(bits == null)
+        {
+            slotBits.compareAndSet(chunkIndex, null, new AtomicLongArray(SLOT_BITS_LENGTH));
+            bits = slotBits.get(chunkIndex);
+        }
+        return bits;
+    }
+
+    private ByteBuffer getChunk(int chunkIndex)
+    {
+        ByteBuffer chunk = chunks.get(chunkIndex);
+        if(chunk == null)
+        {
+            synchronized(chunks)
+            {
+                chunk = chunks.get(chunkIndex);
+                if(chunk == null)
+                {
+                    try
+                    {
+                        chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+                    }
+                    catch(OutOfMemoryError e)
+                    {
+                        chunks.set(chunkIndex, UNAVAILABLE);
+                        throw e;
+                    }
+                    chunks.set(chunkIndex, chunk);
+                }
+            }
+        }
+        if(chunk == UNAVAILABLE)
+        {
+            throw new OutOfMemoryError("The buffer of chunk " + chunkIndex + " of the archive could not be allocated");
+        }
+        return chunk;
+    }
+
+    /**
+     *
+     * @return The number of games that can be read, including the slots of failed appends, which the views skip.
+     */
+    public long getNumGames()
+    {
+        return published.get();
+    }
+
+    /**
+     *
+     * @return The number of appends that failed to write their game.
+     */
+    public long getNumFailed()
+    {
+        return failed.get();
+    }
+
+    /**
+     *
+     * @param gameIndex The index of a published game.
+     * @return true if and only if, the append of the game failed and it can not be read.
+     */
+    public boolean isFailed(long gameIndex)
+    {
+        return isBitSet(failedSlots, gameIndex);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     *
+     * @return The number of bytes of native memory allocated for the games.
+     */
+    public long getAllocatedBytes()
+    {
+        long allocated = 0;
+        for(int i = 0; i < chunks.length(); i++)
+        {
+            ByteBuffer chunk = chunks.get(i);
+            if(chunk != null && chunk != UNAVAILABLE)
+            {
+                allocated += CHUNK_SIZE;
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     *
+     * @return A new view of the archive, positioned before the first game.
+     */
+    public View newView()
+    {
+        return new View(this);
+    }
+
+    /**
+     * A flyweight view of one game of the archive at a time. Moving the view to another game reads nothing,
+     * and every accessor reads straight from the buffer of the game, without creating any objects.
+     *
+     * A view should only be used by one thread at a time, but any number of views can read while games are appended.
+     */
+    public static final class View
+    {
+        private static final String[] SCORE_CHOICES = new String[ScoreTable.NUM_SCORE_CHOICES];
+
+        static
+        {
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                SCORE_CHOICES[choice] = ScoreTable.getScoreChoice(choice);
+            }
+        }
+
+        private final GameArchive archive;
+        private ByteBuffer chunk;
+        private long index;
+        private int offset;
+
+        private View(GameArchive archive) {
+            this.archive = archive;
+            this.index = -1;
+        }
+
+        /**
+         * Moves to the next game, skipping the slots of failed appends.
+         *
+         * @return true if and only if, there was a next game.
+         */
+        public boolean next()
+        {
+            long nextIndex = index + 1;
+            long numGames = archive.getNumGames();
+            while(nextIndex < numGames && archive.isFailed(nextIndex))
+            {
+                nextIndex++;
+            }
+            if(nextIndex >= numGames)
+            {
+                return false;
+            }
+            moveTo(nextIndex);
+            return true;
+        }
+
+        /**
+         * Moves to a game.
+         *
+         * @param gameIndex The index of the game, as returned by {@link GameArchive#append(GameRecord)}.
+         * @return This view.
+         */
+        public View moveTo(long gameIndex)
+        {
+            if(gameIndex < 0 || gameIndex >= archive.getNumGames())
+            {
+                throw new IndexOutOfBoundsException("Game " + gameIndex + " of " + archive.getNumGames());
+            }
+            if(archive.isFailed(gameIndex))
+            {
+                throw new IllegalArgumentException("Game " + gameIndex + " failed to be appended");
+            }
+            chunk = archive.chunks.get((int) (gameIndex / RECORDS_PER_CHUNK));
+            offset = (int) (gameIndex % RECORDS_PER_CHUNK) * GameRecord.RECORD_SIZE;
+            index = gameIndex;
+            return this;
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        /**
+         *
+         * @return The state of the {@link DiceRandom} at the start of the game.
+         */
+        public long getSeed()
+        {
+            return GameRecord.readSeed(chunk, offset);
+        }
+
+        /**
+         *
+         * @param round The round, starting from 0.
+         * @return The round packed as described in {@link GameRecord}.
+         */
+        public long getRound(int round)
+        {
+            return GameRecord.readRound(chunk, offset, round);
+        }
+
+        /**
+         *
+         * @param round The round, starting from 0.
+         * @return The score of the round.
+         */
+        public int getScore(int round)
+        {
+            return GameRecord.getScore(getRound(round));
+        }
+
+        /**
+         *
+         * @param round The round, starting from 0.
+         * @return The score choice of the round, as presented to the user.
+         */
+        public String getScoreChoice(int round)
+        {
+            return SCORE_CHOICES[getScoreChoiceIndex(round)];
+        }
+
+        /**
+         *
+         * @param round The round, starting from 0.
+         * @return The index of the score choice of the round, see {@link ScoreTable#getScoreChoiceIndex(String)}.
+         */
+        public int getScoreChoiceIndex(int round)
+        {
+            return GameRecord.getScoreChoice(getRound(round));
+        }
+
+        /**
+         *
+         * @param round The round, starting from 0.
+         * @param position The position of the dice.
+         * @return The final value of the dice in the round.
+         */
+        public int getDiceValue(int round, int position)
+        {
+            return GameRecord.getDiceValue(getRound(round), position);
+        }
+
+        /**
+         *
+         * @param round The round, starting from 0.
+         * @return The number of throws made in the round.
+         */
+        public int getThrowsMade(int round)
+        {
+            return GameRecord.getThrowsMade(getRound(round));
+        }
+
+        /**
+         * Fills an array with the score of each round, like {@link GameState#getScores()} without boxing.
+         *
+         * @param scores The array receiving the score of each round, at least {@link GameState#MAX_ROUNDS} long.
+         */
+        public void getScores(int[] scores)
+        {
+            for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+            {
+                scores[round] = getScore(round);
+            }
+        }
+
+        /**
+         * Fills an array with the score choice of each round, like {@link GameState#getScoreChoices()}.
+         * The score choices are shared constants, so nothing is created.
+         *
+         * @param scoreChoices The array receiving the score choice of each round, at least {@link GameState#MAX_ROUNDS} long.
+         */
+        public void getScoreChoices(String[] scoreChoices)
+        {
+            for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+            {
+                scoreChoices[round] = getScoreChoice(round);
+            }
+        }
+
+        public int getScoreTotal()
+        {
+            int scoreTotal = 0;
+            for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+            {
+                scoreTotal += getScore(round);
+            }
+            return scoreTotal;
+        }
+
+        /**
+         * Copies the current game, for example to replay it.
+         *
+         * @param record The record to copy into.
+         */
+        public void copyTo(GameRecord record)
+        {
+            record.read(chunk, offset);
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class is an append-only journal of the events of played games: new games, dice clicks, throws and scored rounds.
+ *
+ * Appending an event only copies a few bytes into memory, so it can be done from the UI thread.
+ * A background thread writes the appended events to the file and forces them to the storage device.
+ * Events appended while a write is in progress are committed together by the next write, so a burst of events costs one write.
+ *
+ * Each event is a type byte followed by its arguments:
+ * <pre>
+ *  {@link GameJournal#NEW_GAME}    the seed of the game, 8 bytes
+ *  {@link GameJournal#CLICK_DICE}  the position of the dice, 1 byte
+ *  {@link GameJournal#THROW}       no arguments
+ *  {@link GameJournal#SCORE_ROUND} the index of the score choice, 1 byte
+ * </pre>
+ * A game is rebuilt by reading the events with {@link GameJournal#read(File, Listener)} and applying them in order.
+ *
+ * The journal only keeps the current game: a new game replaces the events of the previous games, both those
+ * still waiting to be written and those in the file, so the file never grows beyond one game.
+ * An event partially written when the process was killed is cut off when the journal is opened again,
+ * so the events appended after it can be read.
+ * If the file can not be written, or the background thread is interrupted, the journal fails: the events not yet written
+ * are dropped, later events are ignored instead of piling up in memory, and {@link GameJournal#isFailed()} returns true.
+ *
+ * @author Thim Lohse
+ */
+public class GameJournal implements Closeable {
+
+    public static final byte NEW_GAME = 1;
+    public static final byte CLICK_DICE = 2;
+    public static final byte THROW = 3;
+    public static final byte SCORE_ROUND = 4;
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final FileChannel channel;
+    private final Object lock;
+    private final Thread writer;
+    private ByteBuffer pending;
+    private ByteBuffer committing;
+    private boolean truncatePending;
+    private long appendedBytes;
+    private long committedBytes;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Opens the journal, which reads the file to find the end of its last complete event. Should not be called from the UI thread.
+     *
+     * @param file The journal file. It is created if it does not exist, and new events are appended to its complete events.
+     */
+    public GameJournal(File file) throws IOException {
+        long[] counts = new long[2];
+        if(file.exists())
+        {
+            read(file, null, counts);
+        }
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        channel.truncate(counts[1]);
+        channel.position(counts[1]);
+        this.lock = new Object();
+        this.pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        this.committing = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                commitLoop();
+            }
+        }, "GameJournal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Starts a new game, which replaces every event appended before it.
+     *
+     * @param seed The seed of the random generator throwing the dices of the new game.
+     */
+    public void newGame(long seed)
+    {
+        synchronized(lock)
+        {
+            if(reserve(9))
+            {
+                pending.clear();
+                truncatePending = true;
+                pending.put(NEW_GAME).putLong(seed);
+                appended(9);
+            }
+        }
+    }
+
+    /**
+     *
+     * @param position The position of the clicked dice.
+     */
+    public void clickDice(int position)
+    {
+        synchronized(lock)
+        {
+            if(reserve(2))
+            {
+                pending.put(CLICK_DICE).put((byte) position);
+                appended(2);
+            }
+        }
+    }
+
+    public void newThrow()
+    {
+        synchronized(lock)
+        {
+            if(reserve(1))
+            {
+                pending.put(THROW);
+                appended(1);
+            }
+        }
+    }
+
+    /**
+     *
+     * @param scoreChoiceIndex The index of the score choice the round was scored with.
+     */
+    public void scoreRound(int scoreChoiceIndex)
+    {
+        synchronized(lock)
+        {
+            if(reserve(2))
+            {
+                pending.put(SCORE_ROUND).put((byte) scoreChoiceIndex);
+                appended(2);
+            }
+        }
+    }
+
+    /**
+     * Makes room for an event in the pending buffer, growing it if needed. Must be called holding the lock.
+     *
+     * @return true if and only if, the event should be appended, which it should not once the journal has failed.
+     */
+    private boolean reserve(int size)
+    {
+        if(closed)
+        {
+            throw new IllegalStateException("The journal is closed");
+        }
+        if(failure != null)
+        {
+            return false;
+        }
+        if(pending.remaining() < size)
+        {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + size));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        return true;
+    }
+
+    private void appended(int size)
+    {
+        appendedBytes += size;
+        lock.notifyAll();
+    }
+
+    /**
+     * Waits until every event appended so far is written to the storage device.
+     * Should not be called from the UI thread. Throws the failure of the journal if it has failed, see {@link GameJournal#isFailed()}.
+     */
+    public void flush() throws IOException, InterruptedException
+    {
+        synchronized(lock)
+        {
+            long target = appendedBytes;
+            while(committedBytes < target && failure == null)
+            {
+                lock.wait();
+            }
+            if(failure != null)
+            {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     *
+     * @return true if and only if, the journal has failed to write its events, after which it ignores all events.
+     */
+    public boolean isFailed()
+    {
+        synchronized(lock)
+        {
+            return failure != null;
+        }
+    }
+
+    /**
+     * Stops accepting events, and waits until the events already appended are written and the file is closed by the background thread,
+     * so the journal can be opened again right away. Should not be called from the UI thread.
+     */
+    @Override
+    public void close() {
+        synchronized(lock)
+        {
+            closed = true;
+            lock.notifyAll();
+        }
+        try
+        {
+            writer.join();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Swaps the pending and committing buffers, and writes the committing buffer, until the journal is closed and all events are written.
+     */
+    private void commitLoop()
+    {
+        try
+        {
+            while(true)
+            {
+                long target;
+                boolean truncate;
+                synchronized(lock)
+                {
+                    while(pending.position() == 0 && !closed)
+                    {
+                        lock.wait();
+                    }
+                    if(pending.position() == 0)
+                    {
+                        break;
+                    }
+                    ByteBuffer swap = committing;
+                    committing = pending;
+                    pending = swap;
+                    target = appendedBytes;
+                    truncate = truncatePending;
+                    truncatePending = false;
+                }
+                if(truncate)
+                {
+                    channel.truncate(0);
+                    channel.position(0);
+                }
+                committing.flip();
+                while(committing.hasRemaining())
+                {
+                    channel.write(committing);
+                }
+                channel.force(false);
+                committing.clear();
+                synchronized(lock)
+                {
+                    committedBytes = target;
+                    lock.notifyAll();
+                }
+            }
+        }
+        catch(IOException e)
+        {
+            fail(e);
+        }
+        catch(InterruptedException e)
+        {
+            fail(new InterruptedIOException("The journal writer was interrupted"));
+        }
+        finally
+        {
+            try
+            {
+                channel.close();
+            }
+            catch(IOException ignored)
+            {
+            }
+        }
+    }
+
+    /**
+     * Records the failure of the background thread, drops the events not yet written and wakes up the threads waiting for them.
+     */
+    private void fail(IOException e)
+    {
+        synchronized(lock)
+        {
+            failure = e;
+            pending = ByteBuffer.allocate(0);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Reads the events of a journal in the order they were appended. Reading stops at an event that is partially written
+     * or of an unknown type, which can only be the end of a write that was interrupted.
+     *
+     * @param file The journal file.
+     * @param listener The listener receiving the events.
+     * @return The number of events read.
+     */
+    public static long read(File file, Listener listener) throws IOException
+    {
+        long[] counts = new long[2];
+        read(file, listener, counts);
+        return counts[0];
+    }
+
+    /**
+     *
+     * @param file The journal file.
+     * @param listener The listener receiving the events, or null to only count them.
+     * @param counts Receives the number of complete events, and their length in bytes.
+     */
+    private static void read(File file, Listener listener, long[] counts) throws IOException
+    {
+        long numEvents = 0;
+        long length = 0;
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try
+        {
+            byte[] arguments = new byte[8];
+            int type;
+            while((type = in.read()) != -1)
+            {
+                int size = getArgumentsSize(type);
+                if(size < 0 || readFully(in, arguments, size) < size)
+                {
+                    break;
+                }
+                numEvents++;
+                length += 1 + size;
+                if(listener == null)
+                {
+                    continue;
+                }
+                switch(type)
+                {
+                    case NEW_GAME:
+                    {
+                        listener.onNewGame(ByteBuffer.wrap(arguments).getLong());
+                        break;
+                    }
+                    case CLICK_DICE:
+                    {
+                        listener.onClickDice(arguments[0]);
+                        break;
+                    }
+                    case THROW:
+                    {
+                        listener.onThrow();
+                        break;
+                    }
+                    default:
+                    {
+                        listener.onScoreRound(arguments[0]);
+                        break;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        counts[0] = numEvents;
+        counts[1] = length;
+    }
+
+    /**
+     *
+     * @param type The type of an event.
+     * @return The size of the arguments of the event, or -1 if the type is unknown.
+     */
+    private static int getArgumentsSize(int type)
+    {
+        switch(type)
+        {
+            case NEW_GAME:
+                return 8;
+            case CLICK_DICE:
+            case SCORE_ROUND:
+                return 1;
+            case THROW:
+                return 0;
+            default:
+                return -1;
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer, int size) throws IOException
+    {
+        int read = 0;
+        while(read < size)
+        {
+            int count = in.read(buffer, read, size - read);
+            if(count < 0)
+            {
+                break;
+            }
+            read += count;
+        }
+        return read;
+    }
+
+    /**
+     * This interface receives the events of a journal, in the order they were appended.
+     */
+    public interface Listener
+    {
+        void onNewGame(long seed);
+
+        void onClickDice(int position);
+
+        void onThrow();
+
+        void onScoreRound(int scoreChoiceIndex);
+    }
+}
@@ -0,0 +1,237 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * This class is a compact, fixed-width record of a finished game, holding everything needed to replay it.
+ *
+ * A record is {@link GameRecord#RECORD_SIZE} bytes: the state of the {@link DiceRandom} at the start of the game,
+ * followed by {@link GameRecord#ROUND_SIZE} bytes per round. Each round is packed in the low 42 bits of a long:
+ * <pre>
+ *  bits  0-17  the final dice values, 3 bits per dice in the order they are shown
+ *  bits 18-23  the dices held before the second throw, bit j set if dice j is held
+ *  bits 24-29  the dices held before the third throw
+ *  bits 30-31  the number of throws made
+ *  bits 32-35  the index of the score choice, see {@link ScoreTable#getScoreChoiceIndex(String)}
+ *  bits 36-41  the score of the round
+ * </pre>
+ * A game thrown with a {@link DiceRandom} seeded with the recorded seed, holding the recorded dices, throws the recorded dices again.
+ *
+ * A record is filled round by round while a game is played, and can be reused for the next game with {@link GameRecord#reset(long)}.
+ *
+ * @author Thim Lohse
+ */
+public class GameRecord {
+
+    public static final int ROUND_SIZE = 6;
+    public static final int RECORD_SIZE = 8 + GameState.MAX_ROUNDS * ROUND_SIZE;
+
+    private static final int BITS_PER_DICE = 3;
+    private static final int HOLDS_SHIFT = 18;
+    private static final int THROWS_SHIFT = 30;
+    private static final int CHOICE_SHIFT = 32;
+    private static final int SCORE_SHIFT = 36;
+    private static final int HOLDS_MASK = (1 << ThirtyGame.NUM_DICES) - 1;
+
+    private long seed;
+    private final long[] rounds;
+    private int numRounds;
+    private int throwsMade;
+    private int holds;
+
+    public GameRecord() {
+        this.rounds = new long[GameState.MAX_ROUNDS];
+        reset(0);
+    }
+
+    /**
+     * Clears the record for a new game.
+     *
+     * @param seed The state of the {@link DiceRandom} throwing the dices, at the start of the game.
+     */
+    public void reset(long seed)
+    {
+        this.seed = seed;
+        this.numRounds = 0;
+        this.throwsMade = 0;
+        this.holds = 0;
+    }
+
+    /**
+     * Records a throw of the current round.
+     *
+     * @param heldDices A bitmask of the dices held before the throw, bit j set if dice j is held. Always 0 for the first throw.
+     */
+    public void addThrow(int heldDices)
+    {
+        if(throwsMade == GameState.MAX_THROWS || numRounds == GameState.MAX_ROUNDS)
+        {
+            throw new IllegalStateException("No throw left to record in round " + (numRounds + 1));
+        }
+        throwsMade++;
+        if(throwsMade > 1)
+        {
+            holds |= (heldDices & HOLDS_MASK) << ((throwsMade - 2) * ThirtyGame.NUM_DICES);
+        }
+    }
+
+    /**
+     * Records the end of the current round.
+     *
+     * @param diceValues The final values of the dices, in the order they are shown.
+     * @param scoreChoiceIndex The index of the score choice used for the round.
+     * @param score The score of the round.
+     */
+    public void addRound(ArrayList<Integer> diceValues, int scoreChoiceIndex, int score)
+    {
+        if(throwsMade == 0)
+        {
+            throw new IllegalStateException("Round " + (numRounds + 1) + " was scored without a throw");
+        }
+        long round = 0;
+        for(int j = 0; j < ThirtyGame.NUM_DICES; j++)
+        {
+            round |= (long) diceValues.get(j) << (j * BITS_PER_DICE);
+        }
+        round |= (long) holds << HOLDS_SHIFT;
+        round |= (long) throwsMade << THROWS_SHIFT;
+        round |= (long) scoreChoiceIndex << CHOICE_SHIFT;
+        round |= (long) score << SCORE_SHIFT;
+        rounds[numRounds++] = round;
+        throwsMade = 0;
+        holds = 0;
+    }
+
+    /**
+     *
+     * @return true if and only if, all rounds of the game have been recorded.
+     */
+    public boolean isComplete() {
+        return numRounds == GameState.MAX_ROUNDS;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumRounds() {
+        return numRounds;
+    }
+
+    /**
+     *
+     * @param round The round, starting from 0.
+     * @return The round packed as described in {@link GameRecord}.
+     */
+    public long getRound(int round) {
+        return rounds[round];
+    }
+
+    public int getScoreTotal()
+    {
+        int scoreTotal = 0;
+        for(int round = 0; round < numRounds; round++)
+        {
+            scoreTotal += getScore(rounds[round]);
+        }
+        return scoreTotal;
+    }
+
+    /**
+     * Writes the complete record at the position of the buffer, and advances the position by {@link GameRecord#RECORD_SIZE}.
+     *
+     * @param buffer The buffer to write to.
+     */
+    public void write(ByteBuffer buffer)
+    {
+        write(buffer, buffer.position());
+        buffer.position(buffer.position() + RECORD_SIZE);
+    }
+
+    /**
+     * Writes the complete record at an offset in the buffer, without changing the position of the buffer.
+     * Threads can write different records of the same buffer at the same time.
+     *
+     * @param buffer The buffer to write to.
+     * @param offset The position of the record in the buffer.
+     */
+    public void write(ByteBuffer buffer, int offset)
+    {
+        if(!isComplete())
+        {
+            throw new IllegalStateException("Only " + numRounds + " of " + GameState.MAX_ROUNDS + " rounds are recorded");
+        }
+        buffer.putLong(offset, seed);
+        for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+        {
+            int position = offset + 8 + round * ROUND_SIZE;
+            buffer.putInt(position, (int) rounds[round]);
+            buffer.putShort(position + 4, (short) (rounds[round] >>> 32));
+        }
+    }
+
+    /**
+     * Reads a record written by {@link GameRecord#write(ByteBuffer)} into this record.
+     *
+     * @param buffer The buffer holding the record.
+     * @param offset The position of the record in the buffer. The position of the buffer is not changed.
+     */
+    public void read(ByteBuffer buffer, int offset)
+    {
+        reset(buffer.getLong(offset));
+        for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+        {
+            rounds[round] = readRound(buffer, offset, round);
+        }
+        numRounds = GameState.MAX_ROUNDS;
+    }
+
+    static long readSeed(ByteBuffer buffer, int offset)
+    {
+        return buffer.getLong(offset);
+    }
+
+    static long readRound(ByteBuffer buffer, int offset, int round)
+    {
+        int position = offset + 8 + round * ROUND_SIZE;
+        return (buffer.getInt(position) & 0xffffffffL) | ((long) (buffer.getShort(position + 4) & 0xffff) << 32);
+    }
+
+    /**
+     *
+     * @param round A packed round.
+     * @param position The position of the dice.
+     * @return The final value of the dice.
+     */
+    public static int getDiceValue(long round, int position)
+    {
+        return (int) (round >>> (position * BITS_PER_DICE)) & ((1 << BITS_PER_DICE) - 1);
+    }
+
+    /**
+     *
+     * @param round A packed round.
+     * @param throwNumber The throw, 2 or 3.
+     * @return A bitmask of the dices held before the throw.
+     */
+    public static int getHolds(long round, int throwNumber)
+    {
+        return (int) (round >>> (HOLDS_SHIFT + (throwNumber - 2) * ThirtyGame.NUM_DICES)) & HOLDS_MASK;
+    }
+
+    public static int getThrowsMade(long round)
+    {
+        return (int) (round >>> THROWS_SHIFT) & 0x3;
+    }
+
+    public static int getScoreChoice(long round)
+    {
+        return (int) (round >>> CHOICE_SHIFT) & 0xf;
+    }
+
+    public static int getScore(long round)
+    {
+        return (int) (round >>> SCORE_SHIFT) & 0x3f;
+    }
+}
@@ -0,0 +1,150 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class iterates the {@link GameRecord}s of a file written by a {@link GameRecordWriter}, without copying them.
+ *
+ * The file is memory-mapped in windows of whole records, and the reader is a view of the current record:
+ * the getters read straight from the mapped file. A trailing partial record, for example from an interrupted write, is ignored.
+ *
+ * A reader should only be used by one thread at a time.
+ *
+ * @author Thim Lohse
+ */
+public class GameRecordReader implements Closeable {
+
+    /**
+     * The number of records in each mapped window, keeping a window below 1 GB.
+     */
+    public static final int RECORDS_PER_WINDOW = (1 << 30) / GameRecord.RECORD_SIZE;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long numRecords;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long index;
+    private int offset;
+
+    /**
+     *
+     * @param file The file to read.
+     */
+    public GameRecordReader(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.numRecords = channel.size() / GameRecord.RECORD_SIZE;
+        this.windowStart = -1;
+        this.index = -1;
+    }
+
+    /**
+     *
+     * @return The number of complete records in the file.
+     */
+    public long getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return true if and only if, there was a next record.
+     */
+    public boolean next() throws IOException
+    {
+        if(index + 1 >= numRecords)
+        {
+            return false;
+        }
+        seek(index + 1);
+        return true;
+    }
+
+    /**
+     * Moves to a record.
+     *
+     * @param recordIndex The index of the record, starting from 0.
+     */
+    public void seek(long recordIndex) throws IOException
+    {
+        if(recordIndex < 0 || recordIndex >= numRecords)
+        {
+            throw new IndexOutOfBoundsException("Record " + recordIndex + " of " + numRecords);
+        }
+        if(window == null || recordIndex < windowStart || recordIndex >= windowStart + RECORDS_PER_WINDOW)
+        {
+            windowStart = recordIndex - recordIndex % RECORDS_PER_WINDOW;
+            long windowRecords = Math.min(RECORDS_PER_WINDOW, numRecords - windowStart);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart * GameRecord.RECORD_SIZE,
+                    windowRecords * GameRecord.RECORD_SIZE);
+        }
+        index = recordIndex;
+        offset = (int) (recordIndex - windowStart) * GameRecord.RECORD_SIZE;
+    }
+
+    /**
+     *
+     * @return The index of the current record.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    public long getSeed()
+    {
+        return GameRecord.readSeed(window, offset);
+    }
+
+    /**
+     *
+     * @param round The round, starting from 0.
+     * @return The round of the current record, packed as described in {@link GameRecord}.
+     */
+    public long getRound(int round)
+    {
+        return GameRecord.readRound(window, offset, round);
+    }
+
+    public int getScoreChoice(int round)
+    {
+        return GameRecord.getScoreChoice(getRound(round));
+    }
+
+    public int getScore(int round)
+    {
+        return GameRecord.getScore(getRound(round));
+    }
+
+    public int getScoreTotal()
+    {
+        int scoreTotal = 0;
+        for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+        {
+            scoreTotal += getScore(round);
+        }
+        return scoreTotal;
+    }
+
+    /**
+     * Copies the current record, for example to keep it after moving on.
+     *
+     * @param record The record to copy into.
+     */
+    public void copyTo(GameRecord record)
+    {
+        record.read(window, offset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        file.close();
+    }
+}
@@ -0,0 +1,80 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class appends {@link GameRecord}s to a file. The records are collected in a direct buffer
+ * and written to the file when the buffer is full, when {@link GameRecordWriter#flush()} is called, and on close.
+ *
+ * A writer should only be used by one thread at a time.
+ *
+ * @author Thim Lohse
+ */
+public class GameRecordWriter implements Closeable {
+
+    public static final int DEFAULT_BUFFERED_RECORDS = 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     *
+     * @param file The file to append to. It is created if it does not exist.
+     */
+    public GameRecordWriter(File file) throws IOException {
+        this(file, DEFAULT_BUFFERED_RECORDS);
+    }
+
+    /**
+     *
+     * @param file The file to append to. It is created if it does not exist.
+     * @param bufferedRecords The number of records collected before they are written.
+     */
+    public GameRecordWriter(File file, int bufferedRecords) throws IOException {
+        this.channel = new FileOutputStream(file, true).getChannel();
+        this.buffer = ByteBuffer.allocateDirect(bufferedRecords * GameRecord.RECORD_SIZE);
+    }
+
+    /**
+     *
+     * @param record A complete game record.
+     */
+    public void write(GameRecord record) throws IOException
+    {
+        if(buffer.remaining() < GameRecord.RECORD_SIZE)
+        {
+            flush();
+        }
+        record.write(buffer);
+    }
+
+    /**
+     * Writes all collected records to the file.
+     */
+    public void flush() throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+/**
+ * This class holds the configurable rules of a variant of Thirty: the number of dices, the number of faces of each dice,
+ * the number of rounds and throws, and the target sums that can be chosen as score choices.
+ *
+ * The score choices are "Låga", which scores the sum of all dices showing at most {@link GameRules#getLowScoreLimit()},
+ * followed by one score choice per target sum, in the order given. {@link GameRules#THIRTY} holds the rules of the app.
+ *
+ * @author Thim Lohse
+ */
+public final class GameRules {
+
+    /**
+     * The rules of the app: six 6-sided dices, three throws, ten rounds, "Låga" for dices up to 3 and the targets 4 to 12.
+     */
+    public static final GameRules THIRTY = new GameRules(ScoreTable.NUM_DICES, Die.NUM_FACES, GameState.MAX_ROUNDS,
+            GameState.MAX_THROWS, new int[]{4, 5, 6, 7, 8, 9, 10, 11, 12}, 3);
+
+    private final int numDices;
+    private final int numFaces;
+    private final int numRounds;
+    private final int maxThrows;
+    private final int[] targets;
+    private final int lowScoreLimit;
+
+    /**
+     *
+     * @param numDices The number of dices thrown each round.
+     * @param numFaces The number of faces of each dice, showing 1 to numFaces.
+     * @param numRounds The number of rounds of a game, at most one per score choice.
+     * @param maxThrows The highest number of throws of a round.
+     * @param targets The distinct target sums of the score choices after "Låga".
+     * @param lowScoreLimit The highest dice value counted by "Låga".
+     */
+    public GameRules(int numDices, int numFaces, int numRounds, int maxThrows, int[] targets, int lowScoreLimit) {
+        if(numDices < 1 || numFaces < 1 || maxThrows < 1 || lowScoreLimit < 0 || targets.length == 0)
+        {
+            throw new IllegalArgumentException("Dices, faces, throws and targets must be at least 1");
+        }
+        if(numRounds < 1 || numRounds > targets.length + 1)
+        {
+            throw new IllegalArgumentException("Rounds must be between 1 and the number of score choices, " + (targets.length + 1));
+        }
+        for(int i = 0; i < targets.length; i++)
+        {
+            if(targets[i] < 1)
+            {
+                throw new IllegalArgumentException("Target " + targets[i] + " is not positive");
+            }
+            for(int j = 0; j < i; j++)
+            {
+                if(targets[i] == targets[j])
+                {
+                    throw new IllegalArgumentException("Target " + targets[i] + " is given twice");
+                }
+            }
+        }
+        this.numDices = numDices;
+        this.numFaces = numFaces;
+        this.numRounds = numRounds;
+        this.maxThrows = maxThrows;
+        this.targets = targets.clone();
+        this.lowScoreLimit = lowScoreLimit;
+    }
+
+    public int getNumDices() {
+        return numDices;
+    }
+
+    public int getNumFaces() {
+        return numFaces;
+    }
+
+    public int getNumRounds() {
+        return numRounds;
+    }
+
+    public int getMaxThrows() {
+        return maxThrows;
+    }
+
+    public int getLowScoreLimit() {
+        return lowScoreLimit;
+    }
+
+    /**
+     *
+     * @return The number of score choices, "Låga" and one per target.
+     */
+    public int getNumScoreChoices()
+    {
+        return targets.length + 1;
+    }
+
+    /**
+     *
+     * @param scoreChoiceIndex The index of a score choice other than "Låga", between 1 and {@link GameRules#getNumScoreChoices()} - 1.
+     * @return The target sum of the score choice.
+     */
+    public int getTarget(int scoreChoiceIndex)
+    {
+        return targets[scoreChoiceIndex - 1];
+    }
+
+    /**
+     *
+     * @return The highest target sum of the score choices.
+     */
+    public int getHighestTarget()
+    {
+        int highest = 0;
+        for(int target : targets)
+        {
+            highest = Math.max(highest, target);
+        }
+        return highest;
+    }
+
+    /**
+     *
+     * @param scoreChoiceIndex The index of the score choice.
+     * @return The score choice as presented to the user.
+     */
+    public String getScoreChoice(int scoreChoiceIndex)
+    {
+        if(scoreChoiceIndex == 0)
+        {
+            return ScoreTable.LOW_SCORE_CHOICE;
+        }
+        return String.valueOf(getTarget(scoreChoiceIndex));
+    }
+
+    /**
+     *
+     * @param scoreChoice The score choice, "Låga" or one of the target sums.
+     * @return The index of the score choice, or -1 if it is not a score choice of these rules.
+     */
+    public int getScoreChoiceIndex(String scoreChoice)
+    {
+        if(scoreChoice.equals(ScoreTable.LOW_SCORE_CHOICE))
+        {
+            return 0;
+        }
+        int target = Integer.parseInt(scoreChoice);
+        for(int i = 0; i < targets.length; i++)
+        {
+            if(targets[i] == target)
+            {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
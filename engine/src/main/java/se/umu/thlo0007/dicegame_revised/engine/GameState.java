@@ -0,0 +1,241 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * This class handles the overall game rules, such as Throws, Rounds and Scores.
+ * A round allows at most {@link GameState#MAX_THROWS} throws, and the game is over after {@link GameState#MAX_ROUNDS} rounds,
+ * unless other limits are given for a variant of the game.
+ * A {@link GameState.RoundListener} can be notified of every scored round, for example to collect statistics.
+ * A game state can be packed into {@link GameState#getPackedSize(int)} bytes, see {@link GameState#writePacked(ByteBuffer)}.
+ *
+ * @author Thim Lohse
+ */
+public class GameState {
+
+    public static final int MAX_THROWS = 3;
+    public static final int MAX_ROUNDS = 10;
+
+    private final int maxThrows;
+    private final int maxRounds;
+    private int throwCounter;
+    private int roundCounter;
+    private int scoreTotal;
+    private boolean gameOver;
+    private ArrayList<Integer> scores;
+    private ArrayList<String> scoreChoices;
+    private RoundListener roundListener;
+
+    public GameState() {
+        this(MAX_THROWS, MAX_ROUNDS);
+    }
+
+    /**
+     *
+     * @param maxThrows The highest number of throws of a round.
+     * @param maxRounds The number of rounds of the game.
+     */
+    public GameState(int maxThrows, int maxRounds) {
+        this.maxThrows = maxThrows;
+        this.maxRounds = maxRounds;
+        throwCounter = 0;
+        roundCounter = 1;
+        scoreTotal = 0;
+        gameOver = false;
+        scores = new ArrayList<>();
+        scoreChoices = new ArrayList<>();
+    }
+
+    /**
+     * Restores a game state, for example after it has been saved.
+     *
+     * @param throwCounter The number of throws made the current round.
+     * @param roundCounter The current round.
+     * @param gameOver The boolean value representing if the game is over or not.
+     * @param scores The score of each finished round.
+     * @param scoreChoices The score choice of each finished round.
+     */
+    public GameState(int throwCounter, int roundCounter, boolean gameOver, ArrayList<Integer> scores, ArrayList<String> scoreChoices) {
+        this.maxThrows = MAX_THROWS;
+        this.maxRounds = MAX_ROUNDS;
+        this.throwCounter = throwCounter;
+        this.roundCounter = roundCounter;
+        this.gameOver = gameOver;
+        this.scores = scores;
+        this.scoreChoices = scoreChoices;
+        this.scoreTotal = 0;
+        for(int score : scores)
+        {
+            this.scoreTotal += score;
+        }
+    }
+
+    /**
+     * Restores a game state packed by {@link GameState#writePacked(ByteBuffer)}.
+     *
+     * @param buffer The buffer holding the packed game state, at its position. The position is advanced past it.
+     */
+    public GameState(ByteBuffer buffer) {
+        this.maxThrows = MAX_THROWS;
+        this.maxRounds = MAX_ROUNDS;
+        this.throwCounter = buffer.get();
+        this.roundCounter = buffer.get();
+        this.gameOver = buffer.get() != 0;
+        int numRounds = buffer.get();
+        this.scores = new ArrayList<>(MAX_ROUNDS);
+        this.scoreChoices = new ArrayList<>(MAX_ROUNDS);
+        this.scoreTotal = 0;
+        for(int round = 0; round < numRounds; round++)
+        {
+            int score = buffer.get();
+            scores.add(score);
+            scoreChoices.add(ScoreTable.getScoreChoice(buffer.get()));
+            scoreTotal += score;
+        }
+    }
+
+    /**
+     *
+     * @param numRounds The number of finished rounds.
+     * @return The number of bytes written by {@link GameState#writePacked(ByteBuffer)}.
+     */
+    public static int getPackedSize(int numRounds)
+    {
+        return 4 + 2 * numRounds;
+    }
+
+    /**
+     * Packs the game state: the throw counter, the round counter, the game over flag and the number of finished rounds
+     * in a byte each, followed by the score and the score choice index of each finished round in a byte each.
+     *
+     * @param buffer The buffer to write to, at its position. The position is advanced past the packed game state.
+     */
+    public void writePacked(ByteBuffer buffer)
+    {
+        buffer.put((byte) throwCounter);
+        buffer.put((byte) roundCounter);
+        buffer.put((byte) (gameOver ? 1 : 0));
+        buffer.put((byte) scores.size());
+        for(int round = 0; round < scores.size(); round++)
+        {
+            buffer.put((byte) (int) scores.get(round));
+            buffer.put((byte) ScoreTable.getScoreChoiceIndex(scoreChoices.get(round)));
+        }
+    }
+
+    /**
+     *
+     * @return true if and only if, the game is not over and the dices have been thrown less than the highest number of throws this round.
+     */
+    public boolean canThrow()
+    {
+        return !gameOver && throwCounter < maxThrows;
+    }
+
+    /**
+     * The dices must have been thrown at least once in a round before it can be scored. This is done to avoid cheating.
+     *
+     * @return true if and only if, the game is not over and the dices have been thrown at least once this round.
+     */
+    public boolean canScoreRound()
+    {
+        return !gameOver && throwCounter > 0;
+    }
+
+    public void newThrow()
+    {
+        throwCounter += 1;
+    }
+
+    /**
+     * Updates the game state when notified of new round. Only possible for {@link GameState#getMaxRounds()} rounds, as it is the game limit.
+     */
+    public void newRound()
+    {
+        if(roundCounter < maxRounds)
+        {
+            throwCounter = 0;
+            roundCounter += 1;
+        }
+        else
+        {
+            gameOver = true;
+        }
+    }
+
+    /**
+     * The score for the current round is added both to the total and in the score list as a separate round score.
+     *
+     * @param score Round score.
+     */
+    public void addScore(int score)
+    {
+        scores.add(score);
+        scoreTotal += score;
+    }
+
+    /**
+     * The score choice for the current round is added to the score choice list.
+     * The score of the round is added first, with {@link GameState#addScore(int)}, and the round listener
+     * is notified of the round when its score choice is added.
+     *
+     * @param scoreChoice The score choice used for the current round.
+     */
+    public void addScoreChoice(String scoreChoice)
+    {
+        scoreChoices.add(scoreChoice);
+        if(roundListener != null && scores.size() == scoreChoices.size())
+        {
+            roundListener.onRoundScored(ScoreTable.getScoreChoiceIndex(scoreChoice), scores.get(scores.size() - 1), throwCounter);
+        }
+    }
+
+    /**
+     *
+     * @param roundListener The listener notified of every round scored from now on, or null.
+     */
+    public void setRoundListener(RoundListener roundListener) {
+        this.roundListener = roundListener;
+    }
+
+    public ArrayList<Integer> getScores() { return scores; }
+
+    public ArrayList<String> getScoreChoices(){ return scoreChoices; }
+
+    public int getScoreTotal() { return scoreTotal; }
+
+    public int getMaxThrows() {
+        return maxThrows;
+    }
+
+    public int getMaxRounds() {
+        return maxRounds;
+    }
+
+    public int getThrowCounter() {
+        return throwCounter;
+    }
+
+    public int getRoundCounter() {
+        return roundCounter;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * A listener notified of every scored round. It is called on the thread scoring the round.
+     */
+    public interface RoundListener
+    {
+        /**
+         *
+         * @param scoreChoiceIndex The index of the score choice used for the round, see {@link ScoreTable#getScoreChoiceIndex(String)}.
+         * @param score The score of the round.
+         * @param throwsUsed The number of throws made before the round was scored.
+         */
+        void onRoundScored(int scoreChoiceIndex, int score, int throwsUsed);
+    }
+}
@@ -0,0 +1,263 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class enumerates every combination of kept dices, from no dices to a full hand of six, as tables built once at class load.
+ *
+ * The order of the dices does not matter for the rules, so a keep is identified by how many dices show each face.
+ * There are 924 keeps, ordered by their number of dices. The last 462 keeps are the full hands,
+ * so the index of a hand is its keep index minus {@link HandSpace#FIRST_HAND_KEEP}.
+ * The tables let a throw be evaluated one dice at a time: keeping k and throwing the rest is
+ * the same as adding one thrown dice to k, until the hand is full.
+ *
+ * @author Thim Lohse
+ */
+public final class HandSpace {
+
+    public static final int NUM_DICES = ScoreTable.NUM_DICES;
+    public static final int NUM_FACES = ScoreTable.NUM_FACES;
+    public static final int NUM_KEEPS = 924;
+    public static final int NUM_HANDS = ScoreTable.NUM_HANDS;
+    public static final int FIRST_HAND_KEEP = NUM_KEEPS - NUM_HANDS;
+    public static final int EMPTY_KEEP = 0;
+
+    /**
+     * Each keep is packed as a key with 3 bits per face, face 1 in the lowest bits.
+     */
+    private static final int BITS_PER_FACE = 3;
+    private static final int FACE_MASK = (1 << BITS_PER_FACE) - 1;
+
+    private static final int[] KEEP_KEYS = new int[NUM_KEEPS];
+    private static final int[] KEEP_SIZES = new int[NUM_KEEPS];
+    private static final int[] SORTED_KEYS = new int[NUM_KEEPS];
+    private static final int[] SORTED_KEY_KEEPS = new int[NUM_KEEPS];
+    private static final int[] ADD_FACE = new int[NUM_KEEPS * NUM_FACES];
+    private static final int[][] SUB_KEEPS = new int[NUM_HANDS][];
+    private static final byte[] HAND_SCORES = new byte[NUM_HANDS * ScoreTable.NUM_SCORE_CHOICES];
+
+    static
+    {
+        int numKeeps = 0;
+        for(int size = 0; size <= NUM_DICES; size++)
+        {
+            numKeeps = enumerateKeeps(new int[NUM_FACES + 1], 1, size, size, numKeeps);
+        }
+
+        long[] sortable = new long[NUM_KEEPS];
+        for(int keep = 0; keep < NUM_KEEPS; keep++)
+        {
+            sortable[keep] = ((long) KEEP_KEYS[keep] << 32) | keep;
+        }
+        Arrays.sort(sortable);
+        for(int i = 0; i < NUM_KEEPS; i++)
+        {
+            SORTED_KEYS[i] = (int) (sortable[i] >>> 32);
+            SORTED_KEY_KEEPS[i] = (int) sortable[i];
+        }
+
+        for(int keep = 0; keep < NUM_KEEPS; keep++)
+        {
+            for(int face = 1; face <= NUM_FACES; face++)
+            {
+                ADD_FACE[keep * NUM_FACES + face - 1] = KEEP_SIZES[keep] == NUM_DICES
+                        ? -1 : getKeepByKey(KEEP_KEYS[keep] + (1 << (BITS_PER_FACE * (face - 1))));
+            }
+        }
+
+        SubMultisets subMultisets = new SubMultisets();
+        int[] faceCounts = new int[NUM_FACES + 1];
+        ArrayList<Integer> diceValues = new ArrayList<>(NUM_DICES);
+        for(int hand = 0; hand < NUM_HANDS; hand++)
+        {
+            int key = KEEP_KEYS[FIRST_HAND_KEEP + hand];
+            diceValues.clear();
+            for(int face = 1; face <= NUM_FACES; face++)
+            {
+                for(int i = 0; i < getFaceCount(key, face); i++)
+                {
+                    diceValues.add(face);
+                }
+            }
+
+            subMultisets.generate(diceValues);
+            SUB_KEEPS[hand] = new int[subMultisets.getNumSubMultisets()];
+            for(int i = 0; i < SUB_KEEPS[hand].length; i++)
+            {
+                for(int face = 1; face <= NUM_FACES; face++)
+                {
+                    faceCounts[face] = subMultisets.getFaceCount(i, face);
+                }
+                SUB_KEEPS[hand][i] = getKeep(faceCounts);
+            }
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                HAND_SCORES[hand * ScoreTable.NUM_SCORE_CHOICES + choice] = (byte) ScoreTable.getScore(diceValues, choice);
+            }
+        }
+    }
+
+    private HandSpace() {
+    }
+
+    /**
+     * Recursively stores every keep of the given size, by choosing how many dices show each face in turn.
+     *
+     * @return The number of keeps stored so far.
+     */
+    private static int enumerateKeeps(int[] faceCounts, int face, int remainingDices, int size, int numKeeps)
+    {
+        if(face == NUM_FACES)
+        {
+            faceCounts[face] = remainingDices;
+            KEEP_KEYS[numKeeps] = toKey(faceCounts);
+            KEEP_SIZES[numKeeps] = size;
+            return numKeeps + 1;
+        }
+        for(int count = 0; count <= remainingDices; count++)
+        {
+            faceCounts[face] = count;
+            numKeeps = enumerateKeeps(faceCounts, face + 1, remainingDices - count, size, numKeeps);
+        }
+        return numKeeps;
+    }
+
+    private static int toKey(int[] faceCounts)
+    {
+        int key = 0;
+        for(int face = 1; face <= NUM_FACES; face++)
+        {
+            key |= faceCounts[face] << (BITS_PER_FACE * (face - 1));
+        }
+        return key;
+    }
+
+    private static int getFaceCount(int key, int face)
+    {
+        return (key >>> (BITS_PER_FACE * (face - 1))) & FACE_MASK;
+    }
+
+    private static int getKeepByKey(int key)
+    {
+        return SORTED_KEY_KEEPS[Arrays.binarySearch(SORTED_KEYS, key)];
+    }
+
+    /**
+     *
+     * @param faceCounts The number of dices showing each face, indexed by the face value. Index 0 is unused.
+     * @return The index of the keep.
+     */
+    public static int getKeep(int[] faceCounts)
+    {
+        return getKeepByKey(toKey(faceCounts));
+    }
+
+    /**
+     *
+     * @param diceValues The values of six dices, in any order.
+     * @return The index of the hand.
+     */
+    public static int getHand(ArrayList<Integer> diceValues)
+    {
+        int key = 0;
+        for(int i = 0; i < diceValues.size(); i++)
+        {
+            key += 1 << (BITS_PER_FACE * (diceValues.get(i) - 1));
+        }
+        return getKeepByKey(key) - FIRST_HAND_KEEP;
+    }
+
+    /**
+     *
+     * @param diceValues The values of the dices, in any order.
+     * @param holds A bitmask where bit j is set if dice j is kept.
+     * @return The index of the keep formed by the held dices.
+     */
+    public static int getKeep(ArrayList<Integer> diceValues, int holds)
+    {
+        int key = 0;
+        for(int rest = holds; rest != 0; rest &= rest - 1)
+        {
+            key += 1 << (BITS_PER_FACE * (diceValues.get(Integer.numberOfTrailingZeros(rest)) - 1));
+        }
+        return getKeepByKey(key);
+    }
+
+    /**
+     * Finds dices of a hand forming a keep. When several dices show the same face, the first ones are held.
+     *
+     * @param diceValues The values of the dices, in any order.
+     * @param keep The index of a keep that can be taken from the dices.
+     * @return A bitmask where bit j is set if dice j is part of the keep.
+     */
+    public static int getHolds(ArrayList<Integer> diceValues, int keep)
+    {
+        int key = KEEP_KEYS[keep];
+        int holds = 0;
+        for(int j = 0; j < diceValues.size(); j++)
+        {
+            int face = diceValues.get(j);
+            if(getFaceCount(key, face) > 0)
+            {
+                key -= 1 << (BITS_PER_FACE * (face - 1));
+                holds |= 1 << j;
+            }
+        }
+        return holds;
+    }
+
+    /**
+     *
+     * @param keep The index of the keep.
+     * @return The number of dices in the keep.
+     */
+    public static int getSize(int keep)
+    {
+        return KEEP_SIZES[keep];
+    }
+
+    /**
+     *
+     * @param keep The index of the keep.
+     * @param face The face value, between 1 and 6.
+     * @return The number of dices of the keep showing the face.
+     */
+    public static int getKeepFaceCount(int keep, int face)
+    {
+        return getFaceCount(KEEP_KEYS[keep], face);
+    }
+
+    /**
+     *
+     * @param keep The index of a keep with less than six dices.
+     * @param face The face value of an added dice, between 1 and 6.
+     * @return The index of the keep with the added dice.
+     */
+    public static int addFace(int keep, int face)
+    {
+        return ADD_FACE[keep * NUM_FACES + face - 1];
+    }
+
+    /**
+     *
+     * @param hand The index of the hand.
+     * @return The indexes of all distinct keeps that can be taken from the hand, from the empty keep to the full hand,
+     * in the order of the {@link SubMultisets} of the hand. The array is shared and must not be modified.
+     */
+    public static int[] getSubKeeps(int hand)
+    {
+        return SUB_KEEPS[hand];
+    }
+
+    /**
+     *
+     * @param hand The index of the hand.
+     * @param scoreChoiceIndex The index of the score choice.
+     * @return The score of the hand for the score choice, see {@link ScoreTable}.
+     */
+    public static int getScore(int hand, int scoreChoiceIndex)
+    {
+        return HAND_SCORES[hand * ScoreTable.NUM_SCORE_CHOICES + scoreChoiceIndex];
+    }
+}
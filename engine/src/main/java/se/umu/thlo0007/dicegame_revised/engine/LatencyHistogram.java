@@ -0,0 +1,133 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts latencies in nanoseconds in buckets of logarithmic size, in the style of an HDR histogram.
+ *
+ * Values below {@link LatencyHistogram#SUB_BUCKET_COUNT} get a bucket each. Above that, every power of two is split into
+ * {@link LatencyHistogram#SUB_BUCKET_COUNT} equal buckets, so a value is known to within 1/16 of itself at any magnitude,
+ * and a few hundred buckets cover everything from a nanosecond to {@link LatencyHistogram#MAX_VALUE}.
+ * Recording finds the bucket with a few bit operations and is one atomic increment, so it can be called from any thread.
+ *
+ * @author Thim Lohse
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    /**
+     * The highest value that is counted in its own bucket, about 18 minutes. Higher values are counted as this value.
+     */
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int NUM_BUCKETS = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong sum;
+    private final AtomicLong max;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(NUM_BUCKETS);
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     *
+     * @param value The latency in nanoseconds. Negative values are counted as 0.
+     */
+    public void record(long value)
+    {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts.incrementAndGet(getBucket(clamped));
+        sum.addAndGet(clamped);
+        long currentMax = max.get();
+        while(clamped > currentMax && !max.compareAndSet(currentMax, clamped))
+        {
+            currentMax = max.get();
+        }
+    }
+
+    static int getBucket(long value)
+    {
+        if(value < SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    /**
+     *
+     * @param bucket The index of a bucket.
+     * @return The highest value counted in the bucket.
+     */
+    static long getHighestValue(int bucket)
+    {
+        if(bucket < SUB_BUCKET_COUNT)
+        {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long lowest = (long) (SUB_BUCKET_COUNT + (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     *
+     * @return The number of recorded values. Not exact while values are recorded.
+     */
+    public long getCount()
+    {
+        long count = 0;
+        for(int bucket = 0; bucket < NUM_BUCKETS; bucket++)
+        {
+            count += counts.get(bucket);
+        }
+        return count;
+    }
+
+    /**
+     *
+     * @return The mean of the recorded values, or 0 if there are none.
+     */
+    public double getMean()
+    {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The highest value of the bucket holding the percentile, or 0 if no values have been recorded.
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long[] snapshot = new long[NUM_BUCKETS];
+        long count = 0;
+        for(int bucket = 0; bucket < NUM_BUCKETS; bucket++)
+        {
+            snapshot[bucket] = counts.get(bucket);
+            count += snapshot[bucket];
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for(int bucket = 0; bucket < NUM_BUCKETS; bucket++)
+        {
+            seen += snapshot[bucket];
+            if(seen >= rank)
+            {
+                return Math.min(getHighestValue(bucket), getMax());
+            }
+        }
+        return 0;
+    }
+}
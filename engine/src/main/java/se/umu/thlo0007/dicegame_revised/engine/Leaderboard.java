@@ -0,0 +1,221 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is a high-score list of completed games, fed from any number of threads at once.
+ *
+ * Every score total is counted in a histogram, which gives the rank of any score total among all submitted games.
+ * The histogram is striped: each thread counts in the stripe picked by its thread id, so threads submitting
+ * at the same time rarely update the same counter.
+ *
+ * The K best games are kept exactly in a lock-free skip list, ordered by score total and, for equal score totals,
+ * by the order they were submitted in, earliest first. Once the list is full, a game that does not beat the lowest
+ * kept score total is rejected by reading a single volatile field, so almost all submissions never touch the list.
+ *
+ * @author Thim Lohse
+ */
+public class Leaderboard {
+
+    public static final int MAX_SCORE_TOTAL = ScoreTable.MAX_ROUND_SCORE * GameState.MAX_ROUNDS;
+
+    private static final int HISTOGRAM_SIZE = MAX_SCORE_TOTAL + 1;
+    private static final int SEQUENCE_BITS = 40;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final int capacity;
+    private final ConcurrentSkipListMap<Long, Entry> topEntries;
+    private final AtomicInteger topSize;
+    private final AtomicLong sequence;
+    private final AtomicInteger threshold;
+    private final AtomicLongArray histograms;
+    private final int stripeMask;
+
+    /**
+     *
+     * @param capacity The number of best games to keep.
+     */
+    public Leaderboard(int capacity) {
+        this(capacity, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     *
+     * @param capacity The number of best games to keep.
+     * @param numStripes The number of stripes of the histogram, rounded up to a power of two.
+     */
+    public Leaderboard(int capacity, int numStripes) {
+        if(capacity <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be positive, was " + capacity);
+        }
+        int size = 1;
+        while(size < numStripes)
+        {
+            size <<= 1;
+        }
+        this.capacity = capacity;
+        this.topEntries = new ConcurrentSkipListMap<>();
+        this.topSize = new AtomicInteger();
+        this.sequence = new AtomicLong();
+        this.threshold = new AtomicInteger(-1);
+        this.histograms = new AtomicLongArray(size * HISTOGRAM_SIZE);
+        this.stripeMask = size - 1;
+    }
+
+    /**
+     * Submits the score total of a completed game.
+     *
+     * @param scoreTotal The final score total of the game.
+     * @param gameId An id of the game, kept with the game if it makes the list.
+     * @return true if and only if, the game was on the list of best games when the submission finished.
+     *         Games submitted later may push it off the list again.
+     */
+    public boolean submit(int scoreTotal, long gameId)
+    {
+        if(scoreTotal < 0 || scoreTotal > MAX_SCORE_TOTAL)
+        {
+            throw new IllegalArgumentException("No score total " + scoreTotal);
+        }
+        int stripe = (int) DiceRandom.mix(Thread.currentThread().getId()) & stripeMask;
+        histograms.incrementAndGet(stripe * HISTOGRAM_SIZE + scoreTotal);
+
+        // A game equal to the lowest kept game is submitted later, so it would be the first to be removed.
+        if(scoreTotal <= threshold.get())
+        {
+            return false;
+        }
+        long order = sequence.getAndIncrement();
+        long key = ((long) scoreTotal << SEQUENCE_BITS) | (SEQUENCE_MASK - (order & SEQUENCE_MASK));
+        Entry entry = new Entry(scoreTotal, gameId, order);
+        topEntries.put(key, entry);
+        if(topSize.incrementAndGet() > capacity)
+        {
+            Map.Entry<Long, Entry> removed = topEntries.pollFirstEntry();
+            if(removed != null)
+            {
+                topSize.decrementAndGet();
+                raiseThreshold(removed.getValue().getScoreTotal());
+            }
+        }
+        // A submission racing past the capacity at the same time may have removed this game instead of its own.
+        return topEntries.containsKey(key);
+    }
+
+    /**
+     * Raises the threshold, never lowers it. A removed game had at least the score total of every game
+     * still to be removed, so it is safe to reject games not above it.
+     */
+    private void raiseThreshold(int scoreTotal)
+    {
+        int current = threshold.get();
+        while(scoreTotal > current && !threshold.compareAndSet(current, scoreTotal))
+        {
+            current = threshold.get();
+        }
+    }
+
+    /**
+     *
+     * @return The best games, highest score total first. Games submitted at the same time may be missing.
+     */
+    public ArrayList<Entry> getTopEntries()
+    {
+        ArrayList<Entry> entries = new ArrayList<>(capacity);
+        for(Entry entry : topEntries.descendingMap().values())
+        {
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     *
+     * @return The number of submitted games. Not exact while games are submitted.
+     */
+    public long getNumScores()
+    {
+        long numScores = 0;
+        for(int i = 0; i < histograms.length(); i++)
+        {
+            numScores += histograms.get(i);
+        }
+        return numScores;
+    }
+
+    /**
+     *
+     * @return The number of submitted games with each score total, indexed by score total.
+     */
+    public long[] getHistogram()
+    {
+        long[] histogram = new long[HISTOGRAM_SIZE];
+        for(int i = 0; i < histograms.length(); i++)
+        {
+            histogram[i % HISTOGRAM_SIZE] += histograms.get(i);
+        }
+        return histogram;
+    }
+
+    /**
+     *
+     * @param scoreTotal A score total.
+     * @return The rank the score total would have among all submitted games: one more than the number of higher score totals.
+     */
+    public long getRank(int scoreTotal)
+    {
+        long[] histogram = getHistogram();
+        long rank = 1;
+        for(int higher = Math.max(0, scoreTotal + 1); higher < HISTOGRAM_SIZE; higher++)
+        {
+            rank += histogram[higher];
+        }
+        return rank;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * A game on the list of best games.
+     */
+    public static final class Entry
+    {
+        private final int scoreTotal;
+        private final long gameId;
+        private final long order;
+
+        Entry(int scoreTotal, long gameId, long order) {
+            this.scoreTotal = scoreTotal;
+            this.gameId = gameId;
+            this.order = order;
+        }
+
+        public int getScoreTotal() {
+            return scoreTotal;
+        }
+
+        public long getGameId() {
+            return gameId;
+        }
+
+        /**
+         *
+         * @return The position of the game among the games that were candidates for the list, in submission order.
+         */
+        public long getOrder() {
+            return order;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{scoreTotal=" + scoreTotal + ", gameId=" + gameId + "}";
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class holds named timers and counters, created the first time they are used.
+ * A registry is plugged in with {@link Metrics#setRegistry(MetricsRegistry)}, and can be dumped as text at any time,
+ * while values are still being recorded.
+ *
+ * @author Thim Lohse
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentHashMap<String, LatencyHistogram> timers;
+    private final ConcurrentHashMap<String, AtomicLong> counters;
+
+    public MetricsRegistry() {
+        this.timers = new ConcurrentHashMap<>();
+        this.counters = new ConcurrentHashMap<>();
+    }
+
+    /**
+     *
+     * @param name The name of the timer.
+     * @return The latency histogram of the timer.
+     */
+    public LatencyHistogram getTimer(String name)
+    {
+        LatencyHistogram timer = timers.get(name);
+        if(timer == null)
+        {
+            LatencyHistogram created = new LatencyHistogram();
+            timer = timers.putIfAbsent(name, created);
+            if(timer == null)
+            {
+                timer = created;
+            }
+        }
+        return timer;
+    }
+
+    /**
+     *
+     * @param name The name of the counter.
+     * @return The counter.
+     */
+    public AtomicLong getCounter(String name)
+    {
+        AtomicLong counter = counters.get(name);
+        if(counter == null)
+        {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(name, created);
+            if(counter == null)
+            {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Writes every timer, with its count, mean and percentiles in microseconds, and every counter, sorted by name.
+     *
+     * @return One line per timer and counter.
+     */
+    public String dump()
+    {
+        StringBuilder builder = new StringBuilder();
+        for(Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(timers).entrySet())
+        {
+            LatencyHistogram timer = entry.getValue();
+            builder.append(String.format(Locale.US, "%s: count %d, mean %.1f us, p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us%n",
+                    entry.getKey(), timer.getCount(), timer.getMean() / 1000,
+                    timer.getValueAtPercentile(50) / 1000.0, timer.getValueAtPercentile(90) / 1000.0,
+                    timer.getValueAtPercentile(99) / 1000.0, timer.getMax() / 1000.0));
+        }
+        for(Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet())
+        {
+            builder.append(String.format(Locale.US, "%s: %d%n", entry.getKey(), entry.getValue().get()));
+        }
+        return builder.toString();
+    }
+}
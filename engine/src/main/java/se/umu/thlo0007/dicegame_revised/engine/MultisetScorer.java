@@ -0,0 +1,270 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class calculates the exact score of a hand for the score choices of any {@link GameRules},
+ * with any number of dices and faces.
+ *
+ * The order of the dices does not affect the score, so a hand is represented by its count vector, the number of dices
+ * showing each face, instead of by the dices themselves. The best number of groups summing up to a target is found
+ * by a search over the count vectors below the hand, of which there are the product of (count + 1) over the faces.
+ * With 30 6-sided dices that is at most 46656, where the 2^n bitmasks of {@link PartitionScorer} would be over a billion.
+ *
+ * The search only visits the count vectors left by removing whole groups and unusable dices from the hand,
+ * and stops as soon as the remaining dices can not sum up to one more group. Dices showing the target are groups of their own,
+ * and dices above the target can never be part of a group, so neither are part of the count vectors.
+ * All arrays are reused between calls, so scoring a hand creates no objects.
+ *
+ * @author Thim Lohse
+ */
+public class MultisetScorer {
+
+    /**
+     * The highest number of count vectors a hand of the rules may need, 32 MB of memory.
+     */
+    public static final int MAX_STATES = 1 << 22;
+
+    private final GameRules rules;
+    private final int[] faceCounts;
+    private final int[] strides;
+    private final int[] digits;
+    private int[] bestGroupCounts;
+    private int[] generations;
+    private int generation;
+    private int target;
+    private int highestFace;
+
+    /**
+     *
+     * @param rules The rules of the score choices and the hands.
+     */
+    public MultisetScorer(GameRules rules) {
+        if(getWorstNumStates(rules) > MAX_STATES)
+        {
+            throw new IllegalArgumentException("Hands of " + rules.getNumDices() + " dices with " + rules.getNumFaces()
+                    + " faces need more than " + MAX_STATES + " count vectors");
+        }
+        this.rules = rules;
+        this.faceCounts = new int[rules.getNumFaces() + 1];
+        this.strides = new int[rules.getNumFaces() + 1];
+        this.digits = new int[rules.getNumFaces() + 1];
+        this.bestGroupCounts = new int[1];
+        this.generations = new int[1];
+        this.generation = 0;
+    }
+
+    /**
+     *
+     * @param rules The rules of the hands.
+     * @return The highest number of count vectors below a hand of the rules, reached when the dices are spread evenly over the faces.
+     */
+    private static long getWorstNumStates(GameRules rules)
+    {
+        int numFaces = Math.min(rules.getNumFaces(), rules.getHighestTarget());
+        long numStates = 1;
+        for(int face = 0; face < numFaces; face++)
+        {
+            int count = rules.getNumDices() / numFaces + (face < rules.getNumDices() % numFaces ? 1 : 0);
+            numStates *= count + 1;
+            if(numStates > MAX_STATES)
+            {
+                break;
+            }
+        }
+        return numStates;
+    }
+
+    /**
+     * Counts the dices showing each face.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @param faceCounts The array receiving the number of dices showing each face, indexed by the face.
+     */
+    public void countFaces(ArrayList<Integer> diceValues, int[] faceCounts)
+    {
+        if(diceValues.size() > rules.getNumDices())
+        {
+            throw new IllegalArgumentException(diceValues.size() + " dices, the rules allow " + rules.getNumDices());
+        }
+        for(int face = 0; face <= rules.getNumFaces(); face++)
+        {
+            faceCounts[face] = 0;
+        }
+        for(int i = 0; i < diceValues.size(); i++)
+        {
+            int value = diceValues.get(i);
+            if(value < 1 || value > rules.getNumFaces())
+            {
+                throw new IllegalArgumentException("Dice value " + value + " is not between 1 and " + rules.getNumFaces());
+            }
+            faceCounts[value]++;
+        }
+    }
+
+    /**
+     * This method calculates the highest possible score of the dice values for a score choice.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @param scoreChoiceIndex The index of the score choice, see {@link GameRules#getScoreChoiceIndex(String)}.
+     * @return The score of the hand for the score choice.
+     */
+    public int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex)
+    {
+        countFaces(diceValues, faceCounts);
+        return getScore(faceCounts, scoreChoiceIndex);
+    }
+
+    /**
+     * This method calculates the highest possible score of the dice values for every score choice, counting the faces only once.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @param scores The array receiving the score of each score choice, indexed as {@link GameRules#getScoreChoiceIndex(String)}.
+     */
+    public void getScores(ArrayList<Integer> diceValues, int[] scores)
+    {
+        countFaces(diceValues, faceCounts);
+        for(int choice = 0; choice < rules.getNumScoreChoices(); choice++)
+        {
+            scores[choice] = getScore(faceCounts, choice);
+        }
+    }
+
+    /**
+     * This method calculates the highest possible score of a hand for a score choice.
+     *
+     * The count vectors below the hand are numbered in mixed radix, with the count of face f as digit f,
+     * and the best number of groups of each count vector visited is remembered for the rest of the call.
+     *
+     * @param faceCounts The number of dices showing each face, indexed by the face, see {@link MultisetScorer#countFaces(ArrayList, int[])}.
+     * @param scoreChoiceIndex The index of the score choice, see {@link GameRules#getScoreChoiceIndex(String)}.
+     * @return The score of the hand for the score choice.
+     */
+    public int getScore(int[] faceCounts, int scoreChoiceIndex)
+    {
+        if(scoreChoiceIndex == 0)
+        {
+            int lowScore = 0;
+            for(int face = 1; face <= Math.min(rules.getLowScoreLimit(), rules.getNumFaces()); face++)
+            {
+                lowScore += faceCounts[face] * face;
+            }
+            return lowScore;
+        }
+
+        target = rules.getTarget(scoreChoiceIndex);
+        highestFace = Math.min(rules.getNumFaces(), target - 1);
+        int singles = target <= rules.getNumFaces() ? faceCounts[target] : 0;
+        int numStates = 1;
+        int sum = 0;
+        for(int face = 1; face <= highestFace; face++)
+        {
+            strides[face] = numStates;
+            numStates *= faceCounts[face] + 1;
+            digits[face] = faceCounts[face];
+            sum += faceCounts[face] * face;
+        }
+        if(bestGroupCounts.length < numStates)
+        {
+            bestGroupCounts = new int[numStates];
+            generations = new int[numStates];
+            generation = 0;
+        }
+        generation++;
+        if(generation == 0)
+        {
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+
+        return (singles + getBestGroupCount(numStates - 1, sum)) * target;
+    }
+
+    /**
+     * This method finds the best number of groups of the count vector held in the digits.
+     *
+     * One dice of the lowest face is either grouped with other dices summing up to the rest of the target, or left out of all groups.
+     * Both leave a smaller count vector, which is solved the same way. Grouping is tried first, as it often reaches the upper bound
+     * of the sum divided by the target, so leaving the dice out does not have to be tried.
+     *
+     * @param state The number of the count vector.
+     * @param sum The sum of the dices of the count vector.
+     * @return The highest number of disjoint groups summing up to the target.
+     */
+    private int getBestGroupCount(int state, int sum)
+    {
+        if(sum < target)
+        {
+            return 0;
+        }
+        if(generations[state] == generation)
+        {
+            return bestGroupCounts[state];
+        }
+
+        int lowestFace = 1;
+        while(digits[lowestFace] == 0)
+        {
+            lowestFace++;
+        }
+        int upperBound = sum / target;
+
+        digits[lowestFace]--;
+        int rest = state - strides[lowestFace];
+        int best = getBestGroupWith(highestFace, lowestFace, target - lowestFace, rest, sum - lowestFace, upperBound);
+        if(best < upperBound)
+        {
+            best = Math.max(best, getBestGroupCount(rest, sum - lowestFace));
+        }
+        digits[lowestFace]++;
+
+        generations[state] = generation;
+        bestGroupCounts[state] = best;
+        return best;
+    }
+
+    /**
+     * This method chooses the rest of a group, trying the higher faces first, and finds the best number of groups
+     * of the count vector left by each completed group.
+     *
+     * @param face The highest face that can still be added to the group.
+     * @param lowestFace The lowest face that can be added to the group, the face of the dice the group is formed around.
+     * @param remaining The part of the target not yet reached by the group.
+     * @param state The number of the count vector left by the group so far.
+     * @param sum The sum of the dices of the count vector.
+     * @param upperBound The number of groups that can not be beaten, ending the search.
+     * @return The highest number of groups including the group formed, or 0 if no group could be formed.
+     */
+    private int getBestGroupWith(int face, int lowestFace, int remaining, int state, int sum, int upperBound)
+    {
+        if(remaining == 0)
+        {
+            return 1 + getBestGroupCount(state, sum);
+        }
+        if(face < lowestFace)
+        {
+            return 0;
+        }
+        int best = 0;
+        int count = Math.min(digits[face], remaining / face);
+        digits[face] -= count;
+        while(true)
+        {
+            best = Math.max(best, getBestGroupWith(face - 1, lowestFace, remaining - count * face,
+                    state - count * strides[face], sum - count * face, upperBound));
+            if(count == 0 || best >= upperBound)
+            {
+                break;
+            }
+            count--;
+            digits[face]++;
+        }
+        digits[face] += count;
+        return best;
+    }
+
+    public GameRules getRules() {
+        return rules;
+    }
+}
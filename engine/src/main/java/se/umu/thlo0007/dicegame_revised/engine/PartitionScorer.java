@@ -0,0 +1,181 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+
+/**
+ * This class calculates the exact score of a target sum score choice, by finding the largest number of
+ * disjoint subsets of the dices that each sum up to the target.
+ *
+ * Each subset of the dices is represented by an integer bitmask, where bit j is set if dice j is part of the subset.
+ * The sums of the subsets are taken from {@link PowerSetMasks}, and the best number of subsets is found with
+ * dynamic programming over all 2^n bitmasks, using primitive arrays that are reused between calls.
+ * No subset objects are created and nothing is sorted.
+ *
+ * @author Thim Lohse
+ */
+public class PartitionScorer {
+
+    /**
+     * The lowest and highest target sums of the score choices, "4" to "12".
+     */
+    public static final int LOWEST_TARGET = 4;
+    public static final int HIGHEST_TARGET = 12;
+    private static final int NUM_TARGETS = HIGHEST_TARGET - LOWEST_TARGET + 1;
+
+    private PowerSetMasks powerSet;
+    private int[] bestGroupCounts;
+    private int[] allBestGroupCounts;
+
+    public PartitionScorer() {
+        this.powerSet = new PowerSetMasks();
+        this.bestGroupCounts = new int[1 << ScoreTable.NUM_DICES];
+        this.allBestGroupCounts = new int[NUM_TARGETS << ScoreTable.NUM_DICES];
+    }
+
+    /**
+     * This method calculates the highest possible score of the dice values for a target sum.
+     *
+     * For every bitmask, the lowest dice in it is either left out of all subsets,
+     * or grouped with some other dices of the bitmask to form a subset summing up to the target.
+     * The best of these choices is stored, so each bitmask is only solved once.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @param target The target sum of the score choice.
+     * @return The number of disjoint subsets summing up to the target, multiplied with the target.
+     */
+    public int getScore(ArrayList<Integer> diceValues, int target)
+    {
+        powerSet.generate(diceValues);
+        return getScore(powerSet, target);
+    }
+
+    /**
+     * This method calculates the highest possible score of a hand whose subset sums are already generated.
+     *
+     * @param powerSet The subset sums of the dices used the current round.
+     * @param target The target sum of the score choice.
+     * @return The number of disjoint subsets summing up to the target, multiplied with the target.
+     */
+    public int getScore(PowerSetMasks powerSet, int target)
+    {
+        int numberOfSubsets = powerSet.getNumSubSets();
+        ensureCapacity(numberOfSubsets);
+
+        bestGroupCounts[0] = 0;
+        for(int mask = 1; mask < numberOfSubsets; mask++)
+        {
+            int lowestDice = mask & -mask;
+            int rest = mask ^ lowestDice;
+
+            int best = bestGroupCounts[rest];
+            int others = rest;
+            while(true)
+            {
+                int group = others | lowestDice;
+                if(powerSet.getSum(group) == target && bestGroupCounts[mask ^ group] + 1 > best)
+                {
+                    best = bestGroupCounts[mask ^ group] + 1;
+                }
+                if(others == 0)
+                {
+                    break;
+                }
+                others = (others - 1) & rest;
+            }
+            bestGroupCounts[mask] = best;
+        }
+
+        return bestGroupCounts[numberOfSubsets - 1] * target;
+    }
+
+    /**
+     * This method calculates the highest possible score of the dice values for every score choice at once.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @param scores The array receiving the score of each score choice, indexed as {@link ScoreTable#getScoreChoiceIndex(String)}.
+     */
+    public void getScores(ArrayList<Integer> diceValues, int[] scores)
+    {
+        powerSet.generate(diceValues);
+        getScores(powerSet, scores);
+    }
+
+    /**
+     * This method calculates the highest possible score of a hand for every score choice at once,
+     * with one pass of the dynamic programming of {@link PartitionScorer#getScore(ArrayList, int)} shared by all targets.
+     *
+     * Each bitmask keeps the best number of subsets for all nine targets side by side. The subsets containing the lowest dice
+     * are enumerated once per bitmask, and the sum of each subset decides the single target it can improve,
+     * so the work is close to one target's instead of nine.
+     *
+     * @param powerSet The subset sums of the dices used the current round.
+     * @param scores The array receiving the score of each score choice, indexed as {@link ScoreTable#getScoreChoiceIndex(String)}.
+     */
+    public void getScores(PowerSetMasks powerSet, int[] scores)
+    {
+        int numberOfSubsets = powerSet.getNumSubSets();
+        ensureCapacity(numberOfSubsets);
+
+        for(int target = 0; target < NUM_TARGETS; target++)
+        {
+            allBestGroupCounts[target] = 0;
+        }
+        for(int mask = 1; mask < numberOfSubsets; mask++)
+        {
+            int lowestDice = mask & -mask;
+            int rest = mask ^ lowestDice;
+            int offset = mask * NUM_TARGETS;
+
+            System.arraycopy(allBestGroupCounts, rest * NUM_TARGETS, allBestGroupCounts, offset, NUM_TARGETS);
+            int others = rest;
+            while(true)
+            {
+                int group = others | lowestDice;
+                int target = powerSet.getSum(group) - LOWEST_TARGET;
+                if(target >= 0 && target < NUM_TARGETS)
+                {
+                    int groupCount = allBestGroupCounts[(mask ^ group) * NUM_TARGETS + target] + 1;
+                    if(groupCount > allBestGroupCounts[offset + target])
+                    {
+                        allBestGroupCounts[offset + target] = groupCount;
+                    }
+                }
+                if(others == 0)
+                {
+                    break;
+                }
+                others = (others - 1) & rest;
+            }
+        }
+
+        int lowScore = 0;
+        for(int j = 0; j < powerSet.getNumDices(); j++)
+        {
+            int value = powerSet.getValue(j);
+            if(value < 4)
+            {
+                lowScore += value;
+            }
+        }
+        scores[0] = lowScore;
+        int offset = (numberOfSubsets - 1) * NUM_TARGETS;
+        for(int target = 0; target < NUM_TARGETS; target++)
+        {
+            scores[target + 1] = allBestGroupCounts[offset + target] * (target + LOWEST_TARGET);
+        }
+    }
+
+    /**
+     * Grows the internal arrays if a hand has more dices than any previous hand.
+     *
+     * @param numberOfSubsets The number of bitmasks needed for the hand.
+     */
+    private void ensureCapacity(int numberOfSubsets)
+    {
+        if(bestGroupCounts.length < numberOfSubsets)
+        {
+            bestGroupCounts = new int[numberOfSubsets];
+            allBestGroupCounts = new int[numberOfSubsets * NUM_TARGETS];
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+
+/**
+ * This class is a primitive representation of the power set of the dice values of a round.
+ *
+ * A subset is an integer bitmask over the dices, where bit j is set if dice j is part of the subset,
+ * and the sum of every subset is kept in a reusable integer array indexed by the bitmask.
+ * Unlike a list of {@link SubSetAndSum}, generating and filtering the power set does not allocate
+ * any memory once the arrays have grown to the size of the largest hand used.
+ *
+ * @author Thim Lohse
+ */
+public class PowerSetMasks {
+
+    private int[] diceValues;
+    private int numDices;
+    private int[] subSetSums;
+    private int[] filteredSubSets;
+    private int numFilteredSubSets;
+    private int[] remainingValueCounts;
+
+    public PowerSetMasks() {
+        this.diceValues = new int[ScoreTable.NUM_DICES];
+        this.subSetSums = new int[1 << ScoreTable.NUM_DICES];
+        this.filteredSubSets = new int[1 << ScoreTable.NUM_DICES];
+        this.remainingValueCounts = new int[ScoreTable.NUM_FACES + 1];
+    }
+
+    /**
+     * This method generates the sums of all subsets of the dice values.
+     * Each sum is calculated from the sum of the same subset without its lowest dice, so every subset costs one addition.
+     *
+     * @param setOfValues The values of the dices used the current round.
+     */
+    public void generate(ArrayList<Integer> setOfValues)
+    {
+        int n = setOfValues.size();
+        ensureCapacity(n);
+        for(int j = 0; j < n; j++)
+        {
+            diceValues[j] = setOfValues.get(j);
+        }
+        generate(n);
+    }
+
+    /**
+     * This method generates the sums of all subsets of the first n dice values.
+     *
+     * @param setOfValues The values of the dices used the current round.
+     * @param n The number of dices in the hand.
+     */
+    public void generate(int[] setOfValues, int n)
+    {
+        ensureCapacity(n);
+        System.arraycopy(setOfValues, 0, diceValues, 0, n);
+        generate(n);
+    }
+
+    private void generate(int n)
+    {
+        numDices = n;
+        numFilteredSubSets = 0;
+        ensureValueCapacity();
+        subSetSums[0] = 0;
+        for(int subSet = 1; subSet < (1 << n); subSet++)
+        {
+            int lowestDice = Integer.numberOfTrailingZeros(subSet);
+            subSetSums[subSet] = subSetSums[subSet & (subSet - 1)] + diceValues[lowestDice];
+        }
+    }
+
+    /**
+     *
+     * @param position The position of the dice in the current hand.
+     * @return The value of the dice.
+     */
+    public int getValue(int position) {
+        return diceValues[position];
+    }
+
+    /**
+     *
+     * @return The number of dices in the current hand.
+     */
+    public int getNumDices() {
+        return numDices;
+    }
+
+    /**
+     *
+     * @return The number of subsets in the power set, including the empty set.
+     */
+    public int getNumSubSets() {
+        return 1 << numDices;
+    }
+
+    /**
+     *
+     * @param subSet The bitmask of the subset.
+     * @return The sum of the subset.
+     */
+    public int getSum(int subSet) {
+        return subSetSums[subSet];
+    }
+
+    /**
+     *
+     * @param subSet The bitmask of the subset.
+     * @return The number of dices in the subset.
+     */
+    public static int getSize(int subSet) {
+        return Integer.bitCount(subSet);
+    }
+
+    /**
+     * This method filters the power set down to the subsets having the same sum as the target,
+     * in the same order as {@link Scorer#Calculate(ArrayList, String)} would process them for the sort choice.
+     * As all filtered subsets share the same sum, sorting on sum keeps the bitmask order,
+     * and sorting on sum and number of dices puts the smallest subsets first.
+     *
+     * @param target The target sum of the score choice.
+     * @param sortChoice The order in which the filtered subsets should be kept.
+     * @return The number of filtered subsets, see {@link PowerSetMasks#getFilteredSubSet(int)}.
+     */
+    public int filter(int target, Scorer.SortChoice sortChoice)
+    {
+        numFilteredSubSets = 0;
+        int numberOfSubsets = 1 << numDices;
+        switch(sortChoice)
+        {
+            case SORT_ON_SUM_AND_NUM_DICES_NEEDED:
+            {
+                for(int size = 1; size <= numDices; size++)
+                {
+                    for(int subSet = 1; subSet < numberOfSubsets; subSet++)
+                    {
+                        if(subSetSums[subSet] == target && getSize(subSet) == size)
+                        {
+                            filteredSubSets[numFilteredSubSets++] = subSet;
+                        }
+                    }
+                }
+                break;
+            }
+            default:
+            {
+                for(int subSet = 1; subSet < numberOfSubsets; subSet++)
+                {
+                    if(subSetSums[subSet] == target)
+                    {
+                        filteredSubSets[numFilteredSubSets++] = subSet;
+                    }
+                }
+                break;
+            }
+        }
+        return numFilteredSubSets;
+    }
+
+    /**
+     *
+     * @param position The position among the subsets kept by the latest call to {@link PowerSetMasks#filter(int, Scorer.SortChoice)}.
+     * @return The bitmask of the filtered subset.
+     */
+    public int getFilteredSubSet(int position) {
+        return filteredSubSets[position];
+    }
+
+    /**
+     * This method takes the filtered subsets in order, and keeps each subset whose values are all still left among the dice values,
+     * duplicates included. The values of a kept subset are removed before the next subset is checked.
+     * This matches the use of ContainsAllElements in {@link Scorer#Calculate(ArrayList, String)}.
+     *
+     * @return The number of filtered subsets that could be taken from the dice values.
+     */
+    public int countDisjointFilteredSubSets()
+    {
+        for(int value = 0; value < remainingValueCounts.length; value++)
+        {
+            remainingValueCounts[value] = 0;
+        }
+        for(int j = 0; j < numDices; j++)
+        {
+            remainingValueCounts[diceValues[j]]++;
+        }
+
+        int taken = 0;
+        for(int position = 0; position < numFilteredSubSets; position++)
+        {
+            int subSet = filteredSubSets[position];
+            if(containsAllValues(subSet))
+            {
+                for(int rest = subSet; rest != 0; rest &= rest - 1)
+                {
+                    remainingValueCounts[diceValues[Integer.numberOfTrailingZeros(rest)]]--;
+                }
+                taken++;
+            }
+        }
+        return taken;
+    }
+
+    /**
+     *
+     * @param subSet The bitmask of the subset.
+     * @return true if and only if, the remaining dice values contain each and every value of the subset, duplicates included.
+     */
+    private boolean containsAllValues(int subSet)
+    {
+        boolean containsAll = true;
+        int rest;
+        for(rest = subSet; rest != 0; rest &= rest - 1)
+        {
+            if(--remainingValueCounts[diceValues[Integer.numberOfTrailingZeros(rest)]] < 0)
+            {
+                containsAll = false;
+            }
+        }
+        for(rest = subSet; rest != 0; rest &= rest - 1)
+        {
+            remainingValueCounts[diceValues[Integer.numberOfTrailingZeros(rest)]]++;
+        }
+        return containsAll;
+    }
+
+    /**
+     * Grows the internal arrays if a hand has more dices than any previous hand.
+     *
+     * @param n The number of dices in the hand.
+     */
+    private void ensureCapacity(int n)
+    {
+        if(diceValues.length < n)
+        {
+            diceValues = new int[n];
+        }
+        if(subSetSums.length < (1 << n))
+        {
+            subSetSums = new int[1 << n];
+            filteredSubSets = new int[1 << n];
+        }
+    }
+
+    /**
+     * Grows the value counts if the hand has a dice value higher than any previous hand.
+     */
+    private void ensureValueCapacity()
+    {
+        int highestValue = 0;
+        for(int j = 0; j < numDices; j++)
+        {
+            highestValue = Math.max(highestValue, diceValues[j]);
+        }
+        if(remainingValueCounts.length <= highestValue)
+        {
+            remainingValueCounts = new int[highestValue + 1];
+        }
+    }
+}
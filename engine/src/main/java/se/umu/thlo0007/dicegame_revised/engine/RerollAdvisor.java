@@ -0,0 +1,320 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class advises which dices to hold before the next throw, and which score choice to use for the current dices.
+ *
+ * The advice for a hand only depends on the sorted hand, the number of throws made and the unused score choices,
+ * so it is cached by that key, with the least recently used advice evicted when the cache is full.
+ * On a cache miss, the advice is read from the evaluation of the whole round for the unused score choices.
+ * The evaluations of the most recently used sets of unused score choices are kept as well, so only the first advice
+ * for a new set of unused score choices, typically the first advice of a round, runs a {@link RoundEvaluator}.
+ * That run takes about 0.1 ms on average once the code is compiled, with outliers of a few milliseconds, and up to a few hundred
+ * milliseconds before it is compiled, so the first advice of a round is not bounded below a millisecond and should be made off
+ * the UI thread when its latency matters. An advice for a kept set of unused score choices takes a few microseconds.
+ *
+ * By default the value of a score choice is only its score this round. Given the expected values of the rest of the game,
+ * for example from a solver of the whole game, the advice instead maximizes the expected score total.
+ *
+ * An advisor keeps working memory between calls and should only be used by one thread at a time.
+ *
+ * @author Thim Lohse
+ */
+public class RerollAdvisor {
+
+    public static final int NUM_HOLD_MASKS = 1 << HandSpace.NUM_DICES;
+    public static final int HOLD_ALL = NUM_HOLD_MASKS - 1;
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+    /**
+     * The number of sets of unused score choices whose evaluations are kept, about 18 kB each.
+     */
+    public static final int DEFAULT_EVALUATION_CACHE_SIZE = 16;
+
+    // The layout of an evaluation: the keep values of throw 2, of throw 3 and the final hand values.
+    private static final int SECOND_THROW_OFFSET = 0;
+    private static final int THIRD_THROW_OFFSET = HandSpace.NUM_KEEPS;
+    private static final int FINAL_HAND_OFFSET = 2 * HandSpace.NUM_KEEPS;
+    private static final int EVALUATION_SIZE = FINAL_HAND_OFFSET + HandSpace.NUM_HANDS;
+
+    private final double[] futureValues;
+    private final RoundEvaluator evaluator;
+    private final double[] finalHandValues;
+    private final LinkedHashMap<Integer, CachedAdvice> cache;
+    private final LinkedHashMap<Integer, double[]> evaluations;
+    private int numEvaluations;
+
+    /**
+     * Creates an advisor valuing score choices by their score this round only.
+     */
+    public RerollAdvisor() {
+        this(null, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     *
+     * @param futureValues The expected score of the rest of the game before a round, for every bitmask of unused score choices,
+     *                     or null to value score choices by their score this round only.
+     * @param cacheSize The largest number of cached advices.
+     */
+    public RerollAdvisor(double[] futureValues, int cacheSize) {
+        this(futureValues, cacheSize, DEFAULT_EVALUATION_CACHE_SIZE);
+    }
+
+    /**
+     *
+     * @param futureValues The expected score of the rest of the game before a round, for every bitmask of unused score choices,
+     *                     or null to value score choices by their score this round only.
+     * @param cacheSize The largest number of cached advices.
+     * @param evaluationCacheSize The largest number of sets of unused score choices whose evaluations are kept.
+     */
+    public RerollAdvisor(double[] futureValues, final int cacheSize, final int evaluationCacheSize) {
+        this.futureValues = futureValues;
+        this.evaluator = new RoundEvaluator();
+        this.finalHandValues = new double[HandSpace.NUM_HANDS];
+        this.cache = new LinkedHashMap<Integer, CachedAdvice>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedAdvice> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.evaluations = new LinkedHashMap<Integer, double[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, double[]> eldest) {
+                return size() > evaluationCacheSize;
+            }
+        };
+    }
+
+    /**
+     *
+     * @param diceValues The values of the six dices, in the order they are shown.
+     * @param throwsMade The number of throws made this round, between 1 and 3, see {@link GameState#getThrowCounter()}.
+     * @param remainingChoices The bitmask of unused score choices, bit i set if score choice index i is unused.
+     * @return The advice for the dices.
+     */
+    public Advice advise(ArrayList<Integer> diceValues, int throwsMade, int remainingChoices)
+    {
+        if(throwsMade < 1 || throwsMade > GameState.MAX_THROWS)
+        {
+            throw new IllegalArgumentException("Advice needs between 1 and " + GameState.MAX_THROWS + " throws, was " + throwsMade);
+        }
+        if(remainingChoices <= 0 || remainingChoices >= 1 << ScoreTable.NUM_SCORE_CHOICES)
+        {
+            throw new IllegalArgumentException("No unused score choices in " + remainingChoices);
+        }
+
+        int hand = HandSpace.getHand(diceValues);
+        Integer key = getKey(hand, throwsMade, remainingChoices);
+        CachedAdvice cached = cache.get(key);
+        if(cached == null)
+        {
+            cached = evaluate(hand, throwsMade, remainingChoices);
+            cache.put(key, cached);
+        }
+
+        Advice advice = new Advice(cached.bestScoreChoice);
+        int[] subKeeps = HandSpace.getSubKeeps(hand);
+        for(int holds = 0; holds < NUM_HOLD_MASKS; holds++)
+        {
+            int keep = HandSpace.getKeep(diceValues, holds);
+            for(int i = 0; i < subKeeps.length; i++)
+            {
+                if(subKeeps[i] == keep)
+                {
+                    advice.holdValues[holds] = cached.subKeepValues[i];
+                    break;
+                }
+            }
+            if(advice.holdValues[holds] > advice.holdValues[advice.bestHolds]
+                    || (holds == HOLD_ALL && advice.holdValues[holds] >= advice.holdValues[advice.bestHolds]))
+            {
+                advice.bestHolds = holds;
+            }
+        }
+        return advice;
+    }
+
+    /**
+     * Calculates the value of every keep of a hand. After the last throw nothing can be thrown, so every keep has the value of the hand.
+     */
+    private CachedAdvice evaluate(int hand, int throwsMade, int remainingChoices)
+    {
+        double[] evaluation = getEvaluation(remainingChoices);
+        int[] subKeeps = HandSpace.getSubKeeps(hand);
+        CachedAdvice cached = new CachedAdvice(subKeeps.length, getBestScoreChoice(hand, remainingChoices));
+        int offset = throwsMade == 1 ? SECOND_THROW_OFFSET : THIRD_THROW_OFFSET;
+        for(int i = 0; i < subKeeps.length; i++)
+        {
+            cached.subKeepValues[i] = throwsMade == GameState.MAX_THROWS
+                    ? evaluation[FINAL_HAND_OFFSET + hand] : evaluation[offset + subKeeps[i]];
+        }
+        return cached;
+    }
+
+    /**
+     * Evaluates the whole round for a set of unused score choices, unless its evaluation is still kept.
+     *
+     * @param remainingChoices The bitmask of unused score choices.
+     * @return The keep values of throw 2 and 3, followed by the final hand values.
+     */
+    private double[] getEvaluation(int remainingChoices)
+    {
+        double[] evaluation = evaluations.get(remainingChoices);
+        if(evaluation != null)
+        {
+            return evaluation;
+        }
+        for(int h = 0; h < HandSpace.NUM_HANDS; h++)
+        {
+            finalHandValues[h] = getFinalValue(h, getBestScoreChoice(h, remainingChoices), remainingChoices);
+        }
+        evaluator.evaluate(finalHandValues);
+        numEvaluations++;
+
+        evaluation = new double[EVALUATION_SIZE];
+        for(int keep = 0; keep < HandSpace.NUM_KEEPS; keep++)
+        {
+            evaluation[SECOND_THROW_OFFSET + keep] = evaluator.getKeepValue(2, keep);
+            evaluation[THIRD_THROW_OFFSET + keep] = evaluator.getKeepValue(3, keep);
+        }
+        System.arraycopy(finalHandValues, 0, evaluation, FINAL_HAND_OFFSET, HandSpace.NUM_HANDS);
+        evaluations.put(remainingChoices, evaluation);
+        return evaluation;
+    }
+
+    /**
+     *
+     * @return The number of times a whole round has been evaluated, one for each miss of the kept evaluations.
+     */
+    int getNumEvaluations() {
+        return numEvaluations;
+    }
+
+    /**
+     *
+     * @param diceValues The values of the six dices.
+     * @param throwsMade The number of throws made this round.
+     * @param remainingChoices The bitmask of unused score choices.
+     * @return true if and only if, the advice for the key is cached.
+     */
+    boolean isCached(ArrayList<Integer> diceValues, int throwsMade, int remainingChoices) {
+        return cache.containsKey(getKey(HandSpace.getHand(diceValues), throwsMade, remainingChoices));
+    }
+
+    /**
+     * The hand index fits in 9 bits and the number of throws in 2, so the three parts of the key never overlap.
+     */
+    private static int getKey(int hand, int throwsMade, int remainingChoices)
+    {
+        return (remainingChoices << 11) | (throwsMade << 9) | hand;
+    }
+
+    private int getBestScoreChoice(int hand, int remainingChoices)
+    {
+        int bestChoice = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for(int rest = remainingChoices; rest != 0; rest &= rest - 1)
+        {
+            int choice = Integer.numberOfTrailingZeros(rest);
+            double value = getFinalValue(hand, choice, remainingChoices);
+            if(value > bestValue)
+            {
+                bestValue = value;
+                bestChoice = choice;
+            }
+        }
+        return bestChoice;
+    }
+
+    private double getFinalValue(int hand, int scoreChoice, int remainingChoices)
+    {
+        double value = HandSpace.getScore(hand, scoreChoice);
+        if(futureValues != null)
+        {
+            value += futureValues[remainingChoices & ~(1 << scoreChoice)];
+        }
+        return value;
+    }
+
+    /**
+     *
+     * @param unusedScoreChoices The unused score choices as presented to the user, for example "Låga" or "7".
+     * @return The bitmask of the unused score choices.
+     */
+    public static int getRemainingChoices(List<? extends CharSequence> unusedScoreChoices)
+    {
+        int remainingChoices = 0;
+        for(CharSequence scoreChoice : unusedScoreChoices)
+        {
+            remainingChoices |= 1 << ScoreTable.getScoreChoiceIndex(scoreChoice.toString());
+        }
+        return remainingChoices;
+    }
+
+    /**
+     * The values of the keeps of a sorted hand, in the order of {@link HandSpace#getSubKeeps(int)}.
+     */
+    private static class CachedAdvice
+    {
+        private final double[] subKeepValues;
+        private final int bestScoreChoice;
+
+        CachedAdvice(int numSubKeeps, int bestScoreChoice) {
+            this.subKeepValues = new double[numSubKeeps];
+            this.bestScoreChoice = bestScoreChoice;
+        }
+    }
+
+    /**
+     * The advice for the dices, as they are shown.
+     */
+    public static class Advice
+    {
+        private final double[] holdValues;
+        private final int bestScoreChoice;
+        private int bestHolds;
+
+        Advice(int bestScoreChoice) {
+            this.holdValues = new double[NUM_HOLD_MASKS];
+            this.bestScoreChoice = bestScoreChoice;
+            this.bestHolds = 0;
+        }
+
+        /**
+         *
+         * @param holds A bitmask where bit j is set if dice j is held.
+         * @return The expected value of holding the dices and throwing the others.
+         */
+        public double getHoldValue(int holds) {
+            return holdValues[holds];
+        }
+
+        /**
+         *
+         * @return The bitmask of the dices to hold for the highest expected value. Holding all dices means the round should be scored.
+         */
+        public int getBestHolds() {
+            return bestHolds;
+        }
+
+        /**
+         *
+         * @return The index of the best score choice for the current dices, see {@link ScoreTable#getScoreChoice(int)}.
+         */
+        public int getBestScoreChoice() {
+            return bestScoreChoice;
+        }
+
+        /**
+         *
+         * @return The expected value of playing the advice.
+         */
+        public double getExpectedValue() {
+            return holdValues[bestHolds];
+        }
+    }
+}
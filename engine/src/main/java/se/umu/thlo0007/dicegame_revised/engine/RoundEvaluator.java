@@ -0,0 +1,116 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+/**
+ * This class calculates the expected value of every decision within a round, working backwards from the last throw.
+ *
+ * The value of ending the round with each hand is given by the caller. After throw 3 the hand is final.
+ * After throw 1 or 2 the best keep of the hand is chosen, and the other dices are thrown again.
+ * The value of a keep is the average of the values of adding each face to it, one thrown dice at a time,
+ * see {@link HandSpace}. All values are kept in primitive arrays that are reused between calls.
+ *
+ * @author Thim Lohse
+ */
+public class RoundEvaluator {
+
+    private final double[][] handValues;
+    private final double[][] keepValues;
+
+    public RoundEvaluator() {
+        this.handValues = new double[GameState.MAX_THROWS + 1][HandSpace.NUM_HANDS];
+        this.keepValues = new double[GameState.MAX_THROWS + 1][HandSpace.NUM_KEEPS];
+    }
+
+    /**
+     *
+     * @param finalHandValues The value of ending the round with each hand, indexed by the hand index of {@link HandSpace}.
+     */
+    public void evaluate(double[] finalHandValues)
+    {
+        System.arraycopy(finalHandValues, 0, handValues[GameState.MAX_THROWS], 0, HandSpace.NUM_HANDS);
+        for(int throwNumber = GameState.MAX_THROWS; throwNumber >= 1; throwNumber--)
+        {
+            double[] thrownHandValues = handValues[throwNumber];
+            double[] values = keepValues[throwNumber];
+            for(int keep = HandSpace.NUM_KEEPS - 1; keep >= 0; keep--)
+            {
+                if(keep >= HandSpace.FIRST_HAND_KEEP)
+                {
+                    values[keep] = thrownHandValues[keep - HandSpace.FIRST_HAND_KEEP];
+                }
+                else
+                {
+                    double sum = 0;
+                    for(int face = 1; face <= HandSpace.NUM_FACES; face++)
+                    {
+                        sum += values[HandSpace.addFace(keep, face)];
+                    }
+                    values[keep] = sum / HandSpace.NUM_FACES;
+                }
+            }
+            if(throwNumber > 1)
+            {
+                double[] previousHandValues = handValues[throwNumber - 1];
+                for(int hand = 0; hand < HandSpace.NUM_HANDS; hand++)
+                {
+                    previousHandValues[hand] = values[getBestKeep(values, hand)];
+                }
+            }
+        }
+    }
+
+    private static int getBestKeep(double[] values, int hand)
+    {
+        int[] subKeeps = HandSpace.getSubKeeps(hand);
+        int bestKeep = subKeeps[subKeeps.length - 1];
+        for(int i = 0; i < subKeeps.length; i++)
+        {
+            if(values[subKeeps[i]] > values[bestKeep])
+            {
+                bestKeep = subKeeps[i];
+            }
+        }
+        return bestKeep;
+    }
+
+    /**
+     *
+     * @return The expected value of the round before the first throw.
+     */
+    public double getRoundStartValue()
+    {
+        return keepValues[1][HandSpace.EMPTY_KEEP];
+    }
+
+    /**
+     *
+     * @param throwsMade The number of throws made, between 1 and 3.
+     * @param hand The index of the hand.
+     * @return The expected value of the round with the hand after the throws, playing the remaining throws optimally.
+     */
+    public double getHandValue(int throwsMade, int hand)
+    {
+        return handValues[throwsMade][hand];
+    }
+
+    /**
+     *
+     * @param throwNumber The number of the next throw, between 1 and 3.
+     * @param keep The index of the keep held during the throw.
+     * @return The expected value of the round when the dices outside the keep are thrown.
+     */
+    public double getKeepValue(int throwNumber, int keep)
+    {
+        return keepValues[throwNumber][keep];
+    }
+
+    /**
+     *
+     * @param throwsMade The number of throws made, 1 or 2.
+     * @param hand The index of the hand.
+     * @return The index of the keep with the highest expected value. Ties keep the most dices.
+     */
+    public int getBestKeep(int throwsMade, int hand)
+    {
+        return getBestKeep(keepValues[throwsMade + 1], hand);
+    }
+}
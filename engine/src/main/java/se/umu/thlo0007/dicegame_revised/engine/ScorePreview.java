@@ -0,0 +1,143 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+
+/**
+ * This class keeps the highest possible score of every score choice for the current dices, while the dices are thrown.
+ *
+ * Setting a dice value only stores it, and the scores are calculated when they are first read after a change,
+ * so a throw changing several dices is scored once. A hand supported by the {@link ScoreTable} is looked up in the table;
+ * any other hand generates its power set once and is scored in one pass with {@link PartitionScorer#getScores(PowerSetMasks, int[])}.
+ * Held dices keep their values, so holding a dice does not change the preview.
+ *
+ * A preview keeps working memory between calls and should only be used by one thread at a time.
+ *
+ * @author Thim Lohse
+ */
+public class ScorePreview {
+
+    private final ArrayList<Integer> diceValues;
+    private final int[] scores;
+    private PowerSetMasks powerSet;
+    private PartitionScorer partitionScorer;
+    private int[] powerSetValues;
+    private boolean changed;
+
+    /**
+     * Creates a preview of six dices, all showing 1 like a new {@link Die}.
+     */
+    public ScorePreview() {
+        this(ScoreTable.NUM_DICES);
+    }
+
+    /**
+     *
+     * @param numDices The number of dices, all showing 1 like a new {@link Die}.
+     */
+    public ScorePreview(int numDices) {
+        this.diceValues = new ArrayList<>(numDices);
+        this.scores = new int[ScoreTable.NUM_SCORE_CHOICES];
+        for(int j = 0; j < numDices; j++)
+        {
+            diceValues.add(1);
+        }
+        this.changed = true;
+    }
+
+    /**
+     *
+     * @param position The position of the dice.
+     * @param value The new value of the dice.
+     */
+    public void setDiceValue(int position, int value)
+    {
+        if(diceValues.get(position) != value)
+        {
+            diceValues.set(position, value);
+            changed = true;
+        }
+    }
+
+    /**
+     *
+     * @param diceValues The values of all dices, in the order they are shown.
+     */
+    public void setDiceValues(ArrayList<Integer> diceValues)
+    {
+        for(int j = 0; j < diceValues.size(); j++)
+        {
+            setDiceValue(j, diceValues.get(j));
+        }
+    }
+
+    /**
+     *
+     * @param scoreChoiceIndex The index of the score choice, see {@link ScoreTable#getScoreChoiceIndex(String)}.
+     * @return The highest possible score of the current dices for the score choice.
+     */
+    public int getScore(int scoreChoiceIndex)
+    {
+        update();
+        return scores[scoreChoiceIndex];
+    }
+
+    /**
+     *
+     * @param remainingChoices The bitmask of unused score choices, bit i set if score choice index i is unused.
+     * @return The index of the unused score choice with the highest score, the lowest index on ties, or -1 if no score choice is unused.
+     */
+    public int getBestScoreChoice(int remainingChoices)
+    {
+        update();
+        int bestChoice = -1;
+        for(int rest = remainingChoices; rest != 0; rest &= rest - 1)
+        {
+            int choice = Integer.numberOfTrailingZeros(rest);
+            if(bestChoice < 0 || scores[choice] > scores[bestChoice])
+            {
+                bestChoice = choice;
+            }
+        }
+        return bestChoice;
+    }
+
+    /**
+     * Calculates the scores of all score choices, if a dice has changed since they were last calculated.
+     */
+    private void update()
+    {
+        if(!changed)
+        {
+            return;
+        }
+        if(ScoreTable.isSupported(diceValues))
+        {
+            ScoreTable.getScores(diceValues, scores);
+        }
+        else
+        {
+            updatePowerSet();
+        }
+        changed = false;
+    }
+
+    /**
+     * Generates the power set of the current dices and scores it. The scorer and its working memory are only created
+     * the first time a hand is not supported by the score table.
+     */
+    private void updatePowerSet()
+    {
+        if(powerSet == null)
+        {
+            powerSet = new PowerSetMasks();
+            partitionScorer = new PartitionScorer();
+            powerSetValues = new int[diceValues.size()];
+        }
+        for(int j = 0; j < powerSetValues.length; j++)
+        {
+            powerSetValues[j] = diceValues.get(j);
+        }
+        powerSet.generate(powerSetValues, powerSetValues.length);
+        partitionScorer.getScores(powerSet, scores);
+    }
+}
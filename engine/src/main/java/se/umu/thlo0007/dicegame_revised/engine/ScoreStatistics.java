@@ -0,0 +1,180 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class collects the score distribution of every score choice, over all rounds of any number of games played at once.
+ * It is a {@link GameState.RoundListener}, so it can be set on the game state of every running game.
+ *
+ * Each score choice keeps the sum of the number of throws used and a histogram with one bucket per possible round score,
+ * from 0 to {@link ScoreTable#MAX_ROUND_SCORE}, from which the count, mean and percentiles are derived.
+ * The counters are striped like a LongAdder: each thread counts in the stripe picked by its thread id,
+ * so a scored round costs two uncontended atomic increments and never takes a lock.
+ * A {@link Snapshot} adds the stripes together and can be taken at any time while rounds are recorded.
+ *
+ * @author Thim Lohse
+ */
+public class ScoreStatistics implements GameState.RoundListener {
+
+    private static final int NUM_BUCKETS = ScoreTable.MAX_ROUND_SCORE + 1;
+    /**
+     * A row of counters holds the sum of throws used, followed by the histogram.
+     */
+    private static final int ROW_SIZE = 1 + NUM_BUCKETS;
+    private static final int STRIPE_SIZE = ScoreTable.NUM_SCORE_CHOICES * ROW_SIZE;
+
+    private final AtomicLongArray counters;
+    private final int stripeMask;
+
+    public ScoreStatistics() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     *
+     * @param numStripes The number of stripes of the counters, rounded up to a power of two.
+     */
+    public ScoreStatistics(int numStripes) {
+        int size = 1;
+        while(size < numStripes)
+        {
+            size <<= 1;
+        }
+        this.counters = new AtomicLongArray(size * STRIPE_SIZE);
+        this.stripeMask = size - 1;
+    }
+
+    /**
+     * Records a scored round. Can be called from any thread.
+     *
+     * @param scoreChoiceIndex The index of the score choice used for the round, see {@link ScoreTable#getScoreChoiceIndex(String)}.
+     * @param score The score of the round.
+     * @param throwsUsed The number of throws made before the round was scored.
+     */
+    @Override
+    public void onRoundScored(int scoreChoiceIndex, int score, int throwsUsed) {
+        if(score < 0 || score > ScoreTable.MAX_ROUND_SCORE)
+        {
+            throw new IllegalArgumentException("No round score " + score);
+        }
+        int stripe = (int) DiceRandom.mix(Thread.currentThread().getId()) & stripeMask;
+        int row = stripe * STRIPE_SIZE + scoreChoiceIndex * ROW_SIZE;
+        counters.addAndGet(row, throwsUsed);
+        counters.incrementAndGet(row + 1 + score);
+    }
+
+    /**
+     * Adds the stripes together. Rounds recorded while the snapshot is taken may be partly included,
+     * so the sum of throws and the histogram of a score choice can be a round apart.
+     *
+     * @return The statistics of all rounds recorded so far.
+     */
+    public Snapshot getSnapshot()
+    {
+        long[][] histograms = new long[ScoreTable.NUM_SCORE_CHOICES][NUM_BUCKETS];
+        long[] throwsSums = new long[ScoreTable.NUM_SCORE_CHOICES];
+        for(int stripe = 0; stripe <= stripeMask; stripe++)
+        {
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                int row = stripe * STRIPE_SIZE + choice * ROW_SIZE;
+                throwsSums[choice] += counters.get(row);
+                for(int score = 0; score < NUM_BUCKETS; score++)
+                {
+                    histograms[choice][score] += counters.get(row + 1 + score);
+                }
+            }
+        }
+        return new Snapshot(histograms, throwsSums);
+    }
+
+    /**
+     * The statistics of every score choice at the time the snapshot was taken.
+     */
+    public static final class Snapshot
+    {
+        private final long[][] histograms;
+        private final long[] throwsSums;
+        private final long[] counts;
+        private final long[] scoreSums;
+
+        Snapshot(long[][] histograms, long[] throwsSums) {
+            this.histograms = histograms;
+            this.throwsSums = throwsSums;
+            this.counts = new long[ScoreTable.NUM_SCORE_CHOICES];
+            this.scoreSums = new long[ScoreTable.NUM_SCORE_CHOICES];
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                for(int score = 0; score < NUM_BUCKETS; score++)
+                {
+                    counts[choice] += histograms[choice][score];
+                    scoreSums[choice] += score * histograms[choice][score];
+                }
+            }
+        }
+
+        /**
+         *
+         * @param scoreChoiceIndex The index of the score choice.
+         * @return The number of rounds scored with the score choice.
+         */
+        public long getCount(int scoreChoiceIndex)
+        {
+            return counts[scoreChoiceIndex];
+        }
+
+        /**
+         *
+         * @param scoreChoiceIndex The index of the score choice.
+         * @return The mean score of the rounds scored with the score choice, or 0 if there are none.
+         */
+        public double getMean(int scoreChoiceIndex)
+        {
+            return counts[scoreChoiceIndex] == 0 ? 0 : (double) scoreSums[scoreChoiceIndex] / counts[scoreChoiceIndex];
+        }
+
+        /**
+         *
+         * @param scoreChoiceIndex The index of the score choice.
+         * @return The mean number of throws made in the rounds scored with the score choice, or 0 if there are none.
+         */
+        public double getMeanThrows(int scoreChoiceIndex)
+        {
+            return counts[scoreChoiceIndex] == 0 ? 0 : (double) throwsSums[scoreChoiceIndex] / counts[scoreChoiceIndex];
+        }
+
+        /**
+         *
+         * @param scoreChoiceIndex The index of the score choice.
+         * @param percentile The percentile, between 0 and 100.
+         * @return The lowest score that at least the given percent of the rounds scored with the score choice do not exceed,
+         * or 0 if there are none.
+         */
+        public int getPercentile(int scoreChoiceIndex, double percentile)
+        {
+            long[] histogram = histograms[scoreChoiceIndex];
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * counts[scoreChoiceIndex]));
+            long seen = 0;
+            for(int score = 0; score < NUM_BUCKETS; score++)
+            {
+                seen += histogram[score];
+                if(seen >= rank)
+                {
+                    return score;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         *
+         * @param scoreChoiceIndex The index of the score choice.
+         * @param score A round score.
+         * @return The number of rounds scored with the score choice that got the score.
+         */
+        public long getScoreCount(int scoreChoiceIndex, int score)
+        {
+            return histograms[scoreChoiceIndex][score];
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+
+/**
+ * This class holds a precomputed score for every distinct hand of six 6-sided dices and every score choice.
+ *
+ * The order of the dices in a hand does not affect the score, so a hand is identified by how many dices show each face.
+ * With six dices there are only 462 such hands, which together with the 10 score choices gives a table small enough
+ * to be built once when the class is loaded. A score lookup is then a ranking of the face counts and an array read.
+ *
+ * @author Thim Lohse
+ */
+public final class ScoreTable {
+
+    public static final int NUM_DICES = 6;
+    public static final int NUM_FACES = 6;
+    public static final int NUM_HANDS = 462;
+    public static final int NUM_SCORE_CHOICES = 10;
+    /**
+     * The highest score of a single round. Six dices can at most form three groups of 12.
+     */
+    public static final int MAX_ROUND_SCORE = 36;
+    public static final String LOW_SCORE_CHOICE = "Låga";
+    /**
+     * The score choices by index, so looking up a score choice never creates a new string.
+     */
+    private static final String[] SCORE_CHOICES = {LOW_SCORE_CHOICE, "4", "5", "6", "7", "8", "9", "10", "11", "12"};
+
+    /**
+     * COMPLETIONS[f][d] holds the number of ways d dices can be spread over f faces.
+     */
+    private static final int[][] COMPLETIONS = new int[NUM_FACES + 1][NUM_DICES + 1];
+    private static final byte[] SCORES = new byte[NUM_HANDS * NUM_SCORE_CHOICES];
+
+    static
+    {
+        COMPLETIONS[0][0] = 1;
+        for(int f = 1; f <= NUM_FACES; f++)
+        {
+            for(int d = 0; d <= NUM_DICES; d++)
+            {
+                for(int onFace = 0; onFace <= d; onFace++)
+                {
+                    COMPLETIONS[f][d] += COMPLETIONS[f - 1][d - onFace];
+                }
+            }
+        }
+        fillTable(new Scorer(), new ArrayList<Integer>(), 1);
+    }
+
+    private ScoreTable() {
+    }
+
+    /**
+     * This method recursively generates every hand with the dice values in increasing order,
+     * and stores the score of each score choice for the hand in the table.
+     *
+     * @param scorer The scorer used to calculate the scores, see {@link Scorer#CalculateOptimal(ArrayList, String)}.
+     * @param hand The dice values generated so far.
+     * @param lowestValue The lowest dice value allowed for the next dice, keeping the hand sorted.
+     */
+    private static void fillTable(Scorer scorer, ArrayList<Integer> hand, int lowestValue)
+    {
+        if(hand.size() == NUM_DICES)
+        {
+            int offset = getHandIndex(hand) * NUM_SCORE_CHOICES;
+            for(int choice = 0; choice < NUM_SCORE_CHOICES; choice++)
+            {
+                SCORES[offset + choice] = (byte) scorer.CalculateOptimal(hand, getScoreChoice(choice));
+            }
+            return;
+        }
+        for(int value = lowestValue; value <= NUM_FACES; value++)
+        {
+            hand.add(value);
+            fillTable(scorer, hand, value);
+            hand.remove(hand.size() - 1);
+        }
+    }
+
+    /**
+     *
+     * @param diceValues The dice values of a hand.
+     * @return true if and only if, the hand consists of six dices with values between 1 and 6 and can be looked up in the table.
+     */
+    public static boolean isSupported(ArrayList<Integer> diceValues)
+    {
+        if(diceValues == null || diceValues.size() != NUM_DICES)
+        {
+            return false;
+        }
+        for(int i = 0; i < NUM_DICES; i++)
+        {
+            int value = diceValues.get(i);
+            if(value < 1 || value > NUM_FACES)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method looks up the score of a hand for a score choice.
+     * The hand must be supported, see {@link ScoreTable#isSupported(ArrayList)}.
+     *
+     * @param diceValues The dice values of the hand, in any order.
+     * @param scoreChoiceIndex The index of the score choice, see {@link ScoreTable#getScoreChoiceIndex(String)}.
+     * @return The score of the hand for the score choice.
+     */
+    public static int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex)
+    {
+        return SCORES[getHandIndex(diceValues) * NUM_SCORE_CHOICES + scoreChoiceIndex];
+    }
+
+    /**
+     * This method looks up the scores of a hand for every score choice, ranking the hand only once.
+     * The hand must be supported, see {@link ScoreTable#isSupported(ArrayList)}.
+     *
+     * @param diceValues The dice values of the hand, in any order.
+     * @param scores The array receiving the score of each score choice, indexed as {@link ScoreTable#getScoreChoiceIndex(String)}.
+     */
+    public static void getScores(ArrayList<Integer> diceValues, int[] scores)
+    {
+        int offset = getHandIndex(diceValues) * NUM_SCORE_CHOICES;
+        for(int choice = 0; choice < NUM_SCORE_CHOICES; choice++)
+        {
+            scores[choice] = SCORES[offset + choice];
+        }
+    }
+
+    /**
+     * This method ranks a hand among all the hands of six dices, using only the number of dices showing each face.
+     *
+     * @param diceValues The dice values of the hand, in any order.
+     * @return The index of the hand, between 0 and {@link ScoreTable#NUM_HANDS} - 1.
+     */
+    private static int getHandIndex(ArrayList<Integer> diceValues)
+    {
+        int ones = 0, twos = 0, threes = 0, fours = 0, fives = 0;
+        for(int i = 0; i < NUM_DICES; i++)
+        {
+            switch(diceValues.get(i))
+            {
+                case 1: ones++; break;
+                case 2: twos++; break;
+                case 3: threes++; break;
+                case 4: fours++; break;
+                case 5: fives++; break;
+                default: break;
+            }
+        }
+        int index = 0;
+        int remainingDices = NUM_DICES;
+        index += countSkippedHands(NUM_FACES - 1, remainingDices, ones);
+        remainingDices -= ones;
+        index += countSkippedHands(NUM_FACES - 2, remainingDices, twos);
+        remainingDices -= twos;
+        index += countSkippedHands(NUM_FACES - 3, remainingDices, threes);
+        remainingDices -= threes;
+        index += countSkippedHands(NUM_FACES - 4, remainingDices, fours);
+        remainingDices -= fours;
+        index += countSkippedHands(NUM_FACES - 5, remainingDices, fives);
+        return index;
+    }
+
+    /**
+     *
+     * @param remainingFaces The number of faces after the current face.
+     * @param remainingDices The number of dices not yet counted for a face.
+     * @param count The number of dices showing the current face.
+     * @return The number of hands ordered before the current one, with fewer dices showing the current face.
+     */
+    private static int countSkippedHands(int remainingFaces, int remainingDices, int count)
+    {
+        int skipped = 0;
+        for(int fewer = 0; fewer < count; fewer++)
+        {
+            skipped += COMPLETIONS[remainingFaces][remainingDices - fewer];
+        }
+        return skipped;
+    }
+
+    /**
+     *
+     * @param scoreChoice The score choice, "Låga" or a target sum between 4 and 12.
+     * @return The index of the score choice, between 0 and {@link ScoreTable#NUM_SCORE_CHOICES} - 1.
+     */
+    public static int getScoreChoiceIndex(String scoreChoice)
+    {
+        if(scoreChoice.equals(LOW_SCORE_CHOICE))
+        {
+            return 0;
+        }
+        return Integer.parseInt(scoreChoice) - 3;
+    }
+
+    /**
+     *
+     * @param scoreChoiceIndex The index of the score choice.
+     * @return The score choice as presented to the user.
+     */
+    public static String getScoreChoice(int scoreChoiceIndex)
+    {
+        return SCORE_CHOICES[scoreChoiceIndex];
+    }
+}
@@ -0,0 +1,521 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * This class holds the rules for calculating the score of a round from the dice values and the score choice.
+ * It has no dependencies on Android, so it can be used both by the app and on a plain JVM.
+ *
+ * @author Thim Lohse
+ */
+public class Scorer {
+
+    /**
+     * The time of {@link Scorer#getScore(ArrayList, int)}, the path taken when a round is scored.
+     */
+    public static final String GET_SCORE_TIMER = "scorer.getScore";
+    /**
+     * The time of {@link Scorer#getScores(ArrayList, int[])}.
+     */
+    public static final String GET_SCORES_TIMER = "scorer.getScores";
+    /**
+     * The number of hands scored by {@link Scorer#getScore(ArrayList, int)} or {@link Scorer#getScores(ArrayList, int[])}
+     * that were not in the {@link ScoreTable} and had to be calculated.
+     */
+    public static final String CALCULATED_HANDS_COUNTER = "scorer.calculatedHands";
+    public static final String CALCULATE_TIMER = "scorer.calculate";
+    public static final String POWER_SET_SIZE_COUNTER = "scorer.calculate.powerSetSize";
+    public static final String SUBSET_CANDIDATES_COUNTER = "scorer.calculate.subSetCandidates";
+    /**
+     * An estimate of the objects allocated by {@link Scorer#Calculate(ArrayList, String)}, counted from the sizes of the lists
+     * it builds. It is not measured, and leaves out for example the boxing of dice values and the growing of lists.
+     */
+    public static final String ESTIMATED_ALLOCATIONS_COUNTER = "scorer.calculate.estimatedAllocations";
+
+    private ScoringEngine scoringEngine;
+    private PartitionScorer partitionScorer;
+    private PowerSetMasks powerSetMasks;
+    private SubMultisets subMultisets;
+
+    /**
+     * This enum is used to select how the score of a target sum score choice is calculated.
+     * OPTIMAL_PARTITION always finds the largest number of disjoint subsets summing up to the target,
+     * see {@link PartitionScorer}. GREEDY is the original calculation using sorted power sets,
+     * see {@link Scorer#CalculateGreedy(ArrayList, String)}, kept for benchmarking and comparisons.
+     */
+    public enum ScoringEngine
+    {
+        OPTIMAL_PARTITION, GREEDY
+    }
+
+    /**
+     * This enum is used to provide an easy way to sort the generated power set in different ways.
+     */
+    public enum SortChoice
+    {
+        SORT_ON_SUM_ONLY,SORT_ON_SUM_AND_NUM_DICES_NEEDED
+    }
+
+    private static final SortChoice[] SORT_CHOICES = SortChoice.values();
+
+    /**
+     * The working memory of each calculation is only created the first time the calculation is used,
+     * so a scorer that only looks up scores in the {@link ScoreTable} allocates none of it.
+     */
+    public Scorer() {
+        this.scoringEngine = ScoringEngine.OPTIMAL_PARTITION;
+    }
+
+    public void setScoringEngine(ScoringEngine scoringEngine) {
+        this.scoringEngine = scoringEngine;
+    }
+
+    public ScoringEngine getScoringEngine() { return scoringEngine; }
+
+    private PartitionScorer getPartitionScorer()
+    {
+        if(partitionScorer == null)
+        {
+            partitionScorer = new PartitionScorer();
+        }
+        return partitionScorer;
+    }
+
+    private PowerSetMasks getPowerSetMasks()
+    {
+        if(powerSetMasks == null)
+        {
+            powerSetMasks = new PowerSetMasks();
+        }
+        return powerSetMasks;
+    }
+
+    private SubMultisets getSubMultisets()
+    {
+        if(subMultisets == null)
+        {
+            subMultisets = new SubMultisets();
+        }
+        return subMultisets;
+    }
+
+    /**
+     * With the default {@link ScoringEngine#OPTIMAL_PARTITION} the score is looked up in the precomputed {@link ScoreTable}
+     * when the hand is a regular hand of six dices, and other hands are calculated with
+     * {@link Scorer#CalculateOptimal(ArrayList, String)}. With {@link ScoringEngine#GREEDY} the score is always
+     * calculated with {@link Scorer#CalculateGreedy(ArrayList, String)}.
+     * The time of each call, and the number of hands that had to be calculated, are recorded with {@link Metrics} when enabled.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @param scoreChoiceIndex The index of the score choice used the current round, see {@link ScoreTable#getScoreChoiceIndex(String)}.
+     * @return The score of the dice values for the score choice.
+     */
+    public int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex)
+    {
+        long startNanos = Metrics.startTimer();
+        int score;
+        if(scoringEngine == ScoringEngine.GREEDY)
+        {
+            score = CalculateGreedy(diceValues, ScoreTable.getScoreChoice(scoreChoiceIndex));
+        }
+        else if(ScoreTable.isSupported(diceValues))
+        {
+            score = ScoreTable.getScore(diceValues, scoreChoiceIndex);
+        }
+        else
+        {
+            Metrics.count(CALCULATED_HANDS_COUNTER, 1);
+            score = CalculateOptimal(diceValues, ScoreTable.getScoreChoice(scoreChoiceIndex));
+        }
+        Metrics.stopTimer(GET_SCORE_TIMER, startNanos);
+        return score;
+    }
+
+    /**
+     * This method calculates the score of every score choice, with the same {@link ScoringEngine} rules as
+     * {@link Scorer#getScore(ArrayList, int)}, but a regular hand is only looked up once and other hands
+     * are calculated in one pass for all score choices, see {@link Scorer#CalculateAll(ArrayList)}.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @param scores The array receiving the score of each score choice, indexed as {@link ScoreTable#getScoreChoiceIndex(String)}.
+     */
+    public void getScores(ArrayList<Integer> diceValues, int[] scores)
+    {
+        long startNanos = Metrics.startTimer();
+        if(scoringEngine == ScoringEngine.GREEDY)
+        {
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                scores[choice] = CalculateGreedy(diceValues, ScoreTable.getScoreChoice(choice));
+            }
+        }
+        else if(ScoreTable.isSupported(diceValues))
+        {
+            ScoreTable.getScores(diceValues, scores);
+        }
+        else
+        {
+            Metrics.count(CALCULATED_HANDS_COUNTER, 1);
+            getPartitionScorer().getScores(diceValues, scores);
+        }
+        Metrics.stopTimer(GET_SCORES_TIMER, startNanos);
+    }
+
+    /**
+     * This method calculates the highest possible score of every score choice, with one enumeration of the subsets of the dices
+     * shared by all target sums, see {@link PartitionScorer#getScores(PowerSetMasks, int[])}.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @return The score of each score choice, "Låga" first and then the target sums 4 to 12.
+     */
+    public int[] CalculateAll(ArrayList<Integer> diceValues)
+    {
+        int[] scores = new int[ScoreTable.NUM_SCORE_CHOICES];
+        getPartitionScorer().getScores(diceValues, scores);
+        return scores;
+    }
+
+    /**
+     * This method calculates the total score of the round depending on the score choice and the dice values.
+     * Target sum score choices are calculated with {@link PartitionScorer}, which always finds the best grouping of the dices.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @param scoreChoice The score choice used the current round.
+     * @return The highest possible score of the dice values for the score choice.
+     */
+    public int CalculateOptimal(ArrayList<Integer> diceValues, String scoreChoice)
+    {
+        if(scoreChoice.equals(ScoreTable.LOW_SCORE_CHOICE))
+        {
+            return CalculateLow(diceValues);
+        }
+        return getPartitionScorer().getScore(diceValues, Integer.parseInt(scoreChoice));
+    }
+
+    /**
+     * This method calculates the same score as {@link Scorer#Calculate(ArrayList, String)},
+     * but uses {@link PowerSetMasks} instead of lists of {@link SubSetAndSum}, so no memory is allocated per call.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @param scoreChoice The score choice used the current round.
+     * @return The highest integer value of the two score calculations.
+     */
+    public int CalculateGreedy(ArrayList<Integer> diceValues, String scoreChoice)
+    {
+        if(scoreChoice.equals(ScoreTable.LOW_SCORE_CHOICE))
+        {
+            return CalculateLow(diceValues);
+        }
+        int integerScoreChoice = Integer.parseInt(scoreChoice);
+        int highestGroupCount = 0;
+
+        PowerSetMasks powerSetMasks = getPowerSetMasks();
+        powerSetMasks.generate(diceValues);
+        for (SortChoice sortChoice : SORT_CHOICES)
+        {
+            powerSetMasks.filter(integerScoreChoice, sortChoice);
+            highestGroupCount = ReturnLargest(highestGroupCount, powerSetMasks.countDisjointFilteredSubSets());
+        }
+        return highestGroupCount * integerScoreChoice;
+    }
+
+    /**
+     * This method calculates the total score of the round depending on the score choice and the dice values.
+     * The method uses {@link Scorer.SortChoice} to calculate the score in two ways,
+     * to ensure the order of the combinations in the subset is not affecting the outcome.
+     * The time of each call, the size of the power sets, the number of candidate subsets and an estimate of the number of
+     * lists and subsets allocated are recorded with {@link Metrics} when enabled. The app scores rounds with
+     * {@link Scorer#getScore(ArrayList, int)}, so these are only recorded when this calculation is called directly.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @param scoreChoice The score choice used the current round.
+     * @return The highest integer value of the two score calculations.
+     */
+    public int Calculate(ArrayList<Integer> diceValues, String scoreChoice)
+    {
+        long startNanos = Metrics.startTimer();
+
+        int totalScore = 0;
+        int SortOnSumOnlyScore = 0;
+        int SortOnSumAndNumDicesScore = 0;
+        ArrayList<SubSetAndSum> filteredSubSets;
+        ArrayList<Integer> remainingDiceValues;
+
+        if(scoreChoice.equals(ScoreTable.LOW_SCORE_CHOICE))
+        {
+            totalScore = CalculateLow(diceValues);
+        }
+        else
+        {
+            int integerScoreChoice = Integer.valueOf(scoreChoice);
+
+            for (SortChoice sortChoice : SortChoice.values())
+            {
+
+                remainingDiceValues = new ArrayList<>();
+                remainingDiceValues.addAll(diceValues);
+
+                ArrayList<SubSetAndSum> powerSet = GeneratePowerSet(diceValues);
+                filteredSubSets = FilterAndSort(powerSet, integerScoreChoice, sortChoice);
+                if(Metrics.isEnabled())
+                {
+                    Metrics.count(POWER_SET_SIZE_COUNTER, powerSet.size());
+                    Metrics.count(SUBSET_CANDIDATES_COUNTER, filteredSubSets.size());
+                    // The remaining, power set and filtered lists, a SubSetAndSum and its list per subset,
+                    // and one list per candidate checked by ContainsAllElements.
+                    Metrics.count(ESTIMATED_ALLOCATIONS_COUNTER, 3 + 2 * powerSet.size() + filteredSubSets.size());
+                }
+
+                for (SubSetAndSum ssp : filteredSubSets)
+                {
+
+                    if (ContainsAllElements(remainingDiceValues, ssp.getSet()))
+                    {
+
+                        for (int diceValue : ssp.getSet())
+                        {
+                            int indexToBeRemoved = remainingDiceValues.indexOf(diceValue);
+                            remainingDiceValues.remove(indexToBeRemoved);
+                        }
+                        switch(sortChoice)
+                        {
+                            case SORT_ON_SUM_ONLY:
+                            {
+                                SortOnSumOnlyScore += ssp.getSum();
+                                break;
+                            }
+                            case SORT_ON_SUM_AND_NUM_DICES_NEEDED:
+                            {
+                                SortOnSumAndNumDicesScore += ssp.getSum();
+                                break;
+                            }
+                        }
+
+                    }
+
+                }
+            }
+
+            totalScore = ReturnLargest(SortOnSumOnlyScore, SortOnSumAndNumDicesScore);
+        }
+
+        Metrics.stopTimer(CALCULATE_TIMER, startNanos);
+        return totalScore;
+    }
+
+    /**
+     * This method calculates the score of a target sum score choice like {@link Scorer#Calculate(ArrayList, String)},
+     * but the candidates are the distinct subsets of values, see {@link Scorer#GenerateDistinctSubSets(ArrayList)},
+     * and each candidate is taken as many times as the remaining dice values allow.
+     * For hands of six dices it gives the same score as {@link Scorer#Calculate(ArrayList, String)} with fewer candidates,
+     * but with more dices the greedy order of the candidates differs, and so can the score.
+     *
+     * @param diceValues The values of the dices used the current round, between 1 and {@link ScoreTable#NUM_FACES}.
+     * @param scoreChoice The score choice used the current round.
+     * @return The highest integer value of the two score calculations.
+     */
+    public int CalculateDistinct(ArrayList<Integer> diceValues, String scoreChoice)
+    {
+        if(scoreChoice.equals(ScoreTable.LOW_SCORE_CHOICE))
+        {
+            return CalculateLow(diceValues);
+        }
+        int integerScoreChoice = Integer.parseInt(scoreChoice);
+        int highestScore = 0;
+
+        for (SortChoice sortChoice : SORT_CHOICES)
+        {
+            ArrayList<Integer> remainingDiceValues = new ArrayList<>(diceValues);
+            ArrayList<SubSetAndSum> filteredSubSets = FilterAndSort(GenerateDistinctSubSets(diceValues), integerScoreChoice, sortChoice);
+            int score = 0;
+
+            for (SubSetAndSum ssp : filteredSubSets)
+            {
+                while (ContainsAllElements(remainingDiceValues, ssp.getSet()))
+                {
+                    for (int diceValue : ssp.getSet())
+                    {
+                        remainingDiceValues.remove(remainingDiceValues.indexOf(diceValue));
+                    }
+                    score += ssp.getSum();
+                }
+            }
+            highestScore = ReturnLargest(highestScore, score);
+        }
+        return highestScore;
+    }
+    /**
+     * This method calculates the score of the "Låga" score choice, which is the sum of all dices with a value below 4.
+     *
+     * @param diceValues The values of the dices used the current round.
+     * @return The sum of the dice values below 4.
+     */
+    private int CalculateLow(ArrayList<Integer> diceValues)
+    {
+        int lowScore = 0;
+        for(int i = 0; i < diceValues.size(); i++)
+        {
+            int value = diceValues.get(i);
+            if(value < 4)
+            {
+                lowScore += value;
+            }
+        }
+        return lowScore;
+    }
+
+    /**
+     * This method generate a power set from the array list of values of the dices for the current round.
+     * Each set in the power set is a SubSetAndSum object, which holds the sub set and the sum of that sub set.
+     * @return The power set as an array list of {@link SubSetAndSum}.
+     *
+     * <b>Note:</b> The GetPowerSet method is based on the following algorithm:
+     * <a href="http://www.geeksforgeeks.org/finding-all-subsets-of-a-given-set-in-java/">http://www.geeksforgeeks.org/finding-all-subsets-of-a-given-set-in-java/</a>
+     * <b>For more about power sets:</b>
+     * <a href="https://en.wikipedia.org/wiki/Power_set">https://en.wikipedia.org/wiki/Power_set</a>
+     */
+    public ArrayList<SubSetAndSum> GeneratePowerSet(ArrayList<Integer> setOfValues)
+    {
+
+        int n = setOfValues.size();
+        int numberOfSubsets = (int)Math.pow(2,n);
+        ArrayList<SubSetAndSum> subSetList = new ArrayList<>();
+
+        for(int i = 0; i < numberOfSubsets; i++)
+        {
+            subSetList.add(new SubSetAndSum());
+        }
+        for(int i = 0; i < (1<<n); i++)
+        {
+            for(int j = 0; j < n; j++)
+            {
+                if((i & ( 1 << j)) > 0)
+                {
+                    subSetList.get(i).addElement(setOfValues.get(j));
+                }
+            }
+        }
+
+        return subSetList;
+    }
+
+    /**
+     * This method generates every distinct subset of the values of the dices for the current round, once,
+     * with the {@link SubMultisets} of the values. A hand with repeated values has fewer distinct subsets
+     * than subsets of dices in {@link Scorer#GeneratePowerSet(ArrayList)}, for example 24 instead of 64 for 1, 1, 1, 2, 2, 3.
+     * The values of each subset are in increasing order.
+     *
+     * @param setOfValues The values of the dices used the current round.
+     * @return The distinct subsets as an array list of {@link SubSetAndSum}, starting with the empty subset.
+     */
+    public ArrayList<SubSetAndSum> GenerateDistinctSubSets(ArrayList<Integer> setOfValues)
+    {
+        SubMultisets subMultisets = getSubMultisets();
+        subMultisets.generate(setOfValues);
+        int numberOfSubsets = subMultisets.getNumSubMultisets();
+        ArrayList<SubSetAndSum> subSetList = new ArrayList<>(numberOfSubsets);
+
+        for(int i = 0; i < numberOfSubsets; i++)
+        {
+            SubSetAndSum subSet = new SubSetAndSum();
+            for(int face = 1; face <= ScoreTable.NUM_FACES; face++)
+            {
+                for(int k = 0; k < subMultisets.getFaceCount(i, face); k++)
+                {
+                    subSet.addElement(face);
+                }
+            }
+            subSetList.add(subSet);
+        }
+
+        return subSetList;
+    }
+
+    /**
+     * This method compares two lists of Integers.
+     *
+     * @param sourceData A first list of integers.
+     * @param comparableData A second list of integers.
+     * @return true if and only if, the first list of integers contains each and every one of the elements in the second list, duplicates included.
+     */
+    private boolean ContainsAllElements(ArrayList<Integer> sourceData, ArrayList<Integer> comparableData)
+    {
+        ArrayList<Integer> remainingValues = new ArrayList<>();
+        remainingValues.addAll(sourceData);
+
+        int indexOfElement;
+
+        for(int comparableInteger : comparableData)
+        {
+
+            indexOfElement = remainingValues.indexOf(comparableInteger);
+            if(indexOfElement != -1)
+            {
+                remainingValues.remove(indexOfElement);
+            }
+            else
+            {
+
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method is used to filter down the power set list of {@link SubSetAndSum},
+     * to those having the same sum as the score choice for the round.
+     * The method also sort the list depending on which {@link Scorer.SortChoice} is used.
+     * This is done to simplify the actual calculation.
+     *
+     * @param sourceData The power set for the current round.
+     * @param scoreChoice The score choice for the current round, converted to Integer.
+     * @param sortChoice The {@link Scorer.SortChoice}. Decides which sorting should be executed.
+     * @return The filtered and sorted list of {@link SubSetAndSum}.
+     */
+    public ArrayList<SubSetAndSum> FilterAndSort(ArrayList<SubSetAndSum> sourceData, int scoreChoice, SortChoice sortChoice)
+    {
+        ArrayList<SubSetAndSum> filteredData = new ArrayList<>();
+        for(SubSetAndSum ssp : sourceData) {
+            if (ssp.getSum() / scoreChoice == 1 && ssp.getSum() % scoreChoice == 0) {
+                filteredData.add(ssp);
+            }
+        }
+        switch (sortChoice)
+        {
+            case SORT_ON_SUM_ONLY:
+            {
+                Collections.sort(filteredData, SubSetAndSum.SumComparator);
+                break;
+            }
+            case SORT_ON_SUM_AND_NUM_DICES_NEEDED:
+            {
+                Collections.sort(filteredData, SubSetAndSum.SumAndNumDicesComparator);
+                break;
+            }
+            default:
+            {
+                break;
+            }
+        }
+
+        return filteredData;
+    }
+
+    /**
+     * This method compares two integer values.
+     *
+     * @param i1 The first integer value.
+     * @param i2 The second integer value.
+     * @return The largest of the two integer values.
+     */
+    public int ReturnLargest(int i1, int i2)
+    {
+        if(i1 >= i2)
+        {
+            return i1;
+        }
+        return i2;
+    }
+}
@@ -0,0 +1,163 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+
+/**
+ * This class enumerates the distinct sub-multisets of the dice values of a round, each only once.
+ *
+ * A hand with repeated values has many subsets of dices with the same values, for example the 15 pairs of dices
+ * of a hand of six 3s, which are all the same pair of 3s. Here a sub-multiset is identified by how many dices
+ * of each face it takes, so a hand with the face counts c1 to c6 has the product of (ci + 1) sub-multisets
+ * instead of the 2^n subsets of the power set, from 64 for six different values down to 7 for six equal values.
+ * The multiplicity of a sub-multiset is the number of subsets of dices with its values, the product of the binomials
+ * (ci choose ki), so the multiplicities of all sub-multisets add up to 2^n.
+ *
+ * The sub-multisets are kept in primitive arrays that are reused between calls, like {@link PowerSetMasks}.
+ * They are ordered by the count of face 1, then face 2 and so on, starting with the empty sub-multiset.
+ *
+ * @author Thim Lohse
+ */
+public class SubMultisets {
+
+    private final int[] handCounts;
+    private final int[] faceCounts;
+    private int[] counts;
+    private int[] sums;
+    private int[] sizes;
+    private int[] multiplicities;
+    private int numSubMultisets;
+
+    public SubMultisets() {
+        this.handCounts = new int[ScoreTable.NUM_FACES + 1];
+        this.faceCounts = new int[ScoreTable.NUM_FACES + 1];
+        this.counts = new int[(1 << ScoreTable.NUM_DICES) * ScoreTable.NUM_FACES];
+        this.sums = new int[1 << ScoreTable.NUM_DICES];
+        this.sizes = new int[1 << ScoreTable.NUM_DICES];
+        this.multiplicities = new int[1 << ScoreTable.NUM_DICES];
+    }
+
+    /**
+     * This method generates the distinct sub-multisets of the dice values.
+     *
+     * @param diceValues The values of the dices used the current round, between 1 and {@link ScoreTable#NUM_FACES}.
+     */
+    public void generate(ArrayList<Integer> diceValues)
+    {
+        for(int face = 1; face <= ScoreTable.NUM_FACES; face++)
+        {
+            handCounts[face] = 0;
+        }
+        for(int i = 0; i < diceValues.size(); i++)
+        {
+            handCounts[diceValues.get(i)]++;
+        }
+        int total = 1;
+        for(int face = 1; face <= ScoreTable.NUM_FACES; face++)
+        {
+            total *= handCounts[face] + 1;
+        }
+        ensureCapacity(total);
+        numSubMultisets = 0;
+        generate(1, 0, 0, 1);
+    }
+
+    /**
+     * Recursively stores every sub-multiset, by choosing how many of the dices showing each face it takes in turn.
+     *
+     * @param face The face to choose the count of.
+     * @param sum The sum of the faces chosen so far.
+     * @param size The number of dices chosen so far.
+     * @param multiplicity The number of ways to choose the dices chosen so far.
+     */
+    private void generate(int face, int sum, int size, int multiplicity)
+    {
+        if(face > ScoreTable.NUM_FACES)
+        {
+            System.arraycopy(faceCounts, 1, counts, numSubMultisets * ScoreTable.NUM_FACES, ScoreTable.NUM_FACES);
+            sums[numSubMultisets] = sum;
+            sizes[numSubMultisets] = size;
+            multiplicities[numSubMultisets] = multiplicity;
+            numSubMultisets++;
+            return;
+        }
+        int ways = 1;
+        for(int count = 0; count <= handCounts[face]; count++)
+        {
+            faceCounts[face] = count;
+            generate(face + 1, sum + count * face, size + count, multiplicity * ways);
+            // (c choose count + 1) from (c choose count).
+            ways = ways * (handCounts[face] - count) / (count + 1);
+        }
+        faceCounts[face] = 0;
+    }
+
+    /**
+     *
+     * @return The number of distinct sub-multisets, including the empty one.
+     */
+    public int getNumSubMultisets() {
+        return numSubMultisets;
+    }
+
+    /**
+     *
+     * @param subMultiset The index of the sub-multiset.
+     * @return The sum of the values of the sub-multiset.
+     */
+    public int getSum(int subMultiset) {
+        return sums[subMultiset];
+    }
+
+    /**
+     *
+     * @param subMultiset The index of the sub-multiset.
+     * @return The number of dices in the sub-multiset.
+     */
+    public int getSize(int subMultiset) {
+        return sizes[subMultiset];
+    }
+
+    /**
+     *
+     * @param subMultiset The index of the sub-multiset.
+     * @return The number of subsets of the dices having the values of the sub-multiset.
+     */
+    public int getMultiplicity(int subMultiset) {
+        return multiplicities[subMultiset];
+    }
+
+    /**
+     *
+     * @param subMultiset The index of the sub-multiset.
+     * @param face The face value, between 1 and {@link ScoreTable#NUM_FACES}.
+     * @return The number of dices of the sub-multiset showing the face.
+     */
+    public int getFaceCount(int subMultiset, int face) {
+        return counts[subMultiset * ScoreTable.NUM_FACES + face - 1];
+    }
+
+    /**
+     *
+     * @param face The face value, between 1 and {@link ScoreTable#NUM_FACES}.
+     * @return The number of dices of the whole hand showing the face.
+     */
+    public int getHandFaceCount(int face) {
+        return handCounts[face];
+    }
+
+    /**
+     * Grows the internal arrays if a hand has more sub-multisets than any previous hand.
+     *
+     * @param total The number of sub-multisets of the hand.
+     */
+    private void ensureCapacity(int total)
+    {
+        if(sums.length < total)
+        {
+            counts = new int[total * ScoreTable.NUM_FACES];
+            sums = new int[total];
+            sizes = new int[total];
+            multiplicities = new int[total];
+        }
+    }
+}
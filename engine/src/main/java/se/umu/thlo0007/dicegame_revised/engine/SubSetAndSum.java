@@ -1,10 +1,11 @@
-package se.umu.thlo0007.dicegame_revised;
+package se.umu.thlo0007.dicegame_revised.engine;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 
 /**
  * This class represents a subset of dices and the corresponding subset sum.
+ * See {@link PowerSetMasks} for a primitive representation that does not allocate a new object per subset.
  * @author Thim Lohse
  *
  */
@@ -0,0 +1,147 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * This class is a complete game of Thirty without any user interface, combining the dices, the {@link GameState} and the {@link Scorer}.
+ * It follows the same rules as the app: at most 3 throws per round, dices can only be held after the first throw,
+ * a round can only be scored after at least one throw, each score choice can only be used once, and the game ends after 10 rounds.
+ *
+ * @author Thim Lohse
+ */
+public class ThirtyGame {
+
+    public static final int NUM_DICES = 6;
+
+    private final Die[] dices;
+    private final GameState state;
+    private final Scorer scorer;
+    private final Random random;
+    private final boolean[] usedScoreChoices;
+    private final ArrayList<Integer> diceValues;
+    private final ScorePreview scorePreview;
+
+    /**
+     *
+     * @param random The random generator used for all throws of the game.
+     */
+    public ThirtyGame(Random random) {
+        this.dices = new Die[NUM_DICES];
+        for(int i = 0; i < NUM_DICES; i++)
+        {
+            dices[i] = new Die();
+        }
+        this.state = new GameState();
+        this.scorer = new Scorer();
+        this.random = random;
+        this.usedScoreChoices = new boolean[ScoreTable.NUM_SCORE_CHOICES];
+        this.diceValues = new ArrayList<>(NUM_DICES);
+        this.scorePreview = new ScorePreview(NUM_DICES);
+    }
+
+    /**
+     * Throws all dices that are not held.
+     *
+     * @return true if and only if, the throw was allowed by the rules and made.
+     */
+    public boolean throwDices()
+    {
+        if(!state.canThrow())
+        {
+            return false;
+        }
+        for(int j = 0; j < NUM_DICES; j++)
+        {
+            if(dices[j].roll(random))
+            {
+                scorePreview.setDiceValue(j, dices[j].getValue());
+            }
+        }
+        state.newThrow();
+        return true;
+    }
+
+    /**
+     * Alternates a dice between being held and not held. Dices can only be held after the first throw of a round.
+     *
+     * @param position The position of the dice.
+     * @return true if and only if, the dice was toggled.
+     */
+    public boolean toggleHold(int position)
+    {
+        if(state.isGameOver() || state.getThrowCounter() == 0)
+        {
+            return false;
+        }
+        dices[position].toggleHold();
+        return true;
+    }
+
+    /**
+     * Scores the current round with a score choice, releases all dices and starts the next round.
+     *
+     * @param scoreChoiceIndex The index of the score choice, see {@link ScoreTable#getScoreChoiceIndex(String)}.
+     * @return The score of the round, or -1 if the round could not be scored with the score choice.
+     */
+    public int scoreRound(int scoreChoiceIndex)
+    {
+        if(!state.canScoreRound() || usedScoreChoices[scoreChoiceIndex])
+        {
+            return -1;
+        }
+        int score = scorer.getScore(getDiceValues(), scoreChoiceIndex);
+        for(Die d : dices)
+        {
+            d.release();
+        }
+        usedScoreChoices[scoreChoiceIndex] = true;
+        state.addScore(score);
+        state.addScoreChoice(ScoreTable.getScoreChoice(scoreChoiceIndex));
+        state.newRound();
+        return score;
+    }
+
+    /**
+     *
+     * @return The values of the dices. The list is reused and updated by the next call.
+     */
+    public ArrayList<Integer> getDiceValues()
+    {
+        diceValues.clear();
+        for(Die d : dices)
+        {
+            diceValues.add(d.getValue());
+        }
+        return diceValues;
+    }
+
+    /**
+     *
+     * @param scoreChoiceIndex The index of the score choice.
+     * @return true if and only if, the score choice has already been used in the game.
+     */
+    public boolean isScoreChoiceUsed(int scoreChoiceIndex) {
+        return usedScoreChoices[scoreChoiceIndex];
+    }
+
+    /**
+     *
+     * @return The highest possible score of every score choice for the current dices, kept up to date by every throw.
+     */
+    public ScorePreview getScorePreview() {
+        return scorePreview;
+    }
+
+    public Die getDie(int position) {
+        return dices[position];
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    public Scorer getScorer() {
+        return scorer;
+    }
+}
@@ -0,0 +1,142 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * This class is a complete game of a variant of Thirty, played with the dices, rounds and targets of some {@link GameRules}.
+ * Apart from the limits, it follows the same rules as {@link ThirtyGame}, and scores the rounds with a {@link MultisetScorer},
+ * so hands of 20 to 30 dices are scored as fast as the six dices of the app.
+ *
+ * The score choices of the game state are the ones of the rules. Round listeners and the packed game state
+ * assume the score choices of Thirty, so they should only be used with {@link GameRules#THIRTY}.
+ *
+ * @author Thim Lohse
+ */
+public class VariantGame {
+
+    private final GameRules rules;
+    private final Die[] dices;
+    private final GameState state;
+    private final MultisetScorer scorer;
+    private final Random random;
+    private final boolean[] usedScoreChoices;
+    private final ArrayList<Integer> diceValues;
+
+    /**
+     *
+     * @param rules The rules of the game.
+     * @param random The random generator used for all throws of the game.
+     */
+    public VariantGame(GameRules rules, Random random) {
+        this.rules = rules;
+        this.dices = new Die[rules.getNumDices()];
+        for(int i = 0; i < dices.length; i++)
+        {
+            dices[i] = new Die(rules.getNumFaces());
+        }
+        this.state = new GameState(rules.getMaxThrows(), rules.getNumRounds());
+        this.scorer = new MultisetScorer(rules);
+        this.random = random;
+        this.usedScoreChoices = new boolean[rules.getNumScoreChoices()];
+        this.diceValues = new ArrayList<>(dices.length);
+    }
+
+    /**
+     * Throws all dices that are not held.
+     *
+     * @return true if and only if, the throw was allowed by the rules and made.
+     */
+    public boolean throwDices()
+    {
+        if(!state.canThrow())
+        {
+            return false;
+        }
+        for(Die d : dices)
+        {
+            d.roll(random);
+        }
+        state.newThrow();
+        return true;
+    }
+
+    /**
+     * Alternates a dice between being held and not held. Dices can only be held after the first throw of a round.
+     *
+     * @param position The position of the dice.
+     * @return true if and only if, the dice was toggled.
+     */
+    public boolean toggleHold(int position)
+    {
+        if(state.isGameOver() || state.getThrowCounter() == 0)
+        {
+            return false;
+        }
+        dices[position].toggleHold();
+        return true;
+    }
+
+    /**
+     * Scores the current round with a score choice, releases all dices and starts the next round.
+     *
+     * @param scoreChoiceIndex The index of the score choice, see {@link GameRules#getScoreChoiceIndex(String)}.
+     * @return The score of the round, or -1 if the round could not be scored with the score choice.
+     */
+    public int scoreRound(int scoreChoiceIndex)
+    {
+        if(!state.canScoreRound() || usedScoreChoices[scoreChoiceIndex])
+        {
+            return -1;
+        }
+        int score = scorer.getScore(getDiceValues(), scoreChoiceIndex);
+        for(Die d : dices)
+        {
+            d.release();
+        }
+        usedScoreChoices[scoreChoiceIndex] = true;
+        state.addScore(score);
+        state.addScoreChoice(rules.getScoreChoice(scoreChoiceIndex));
+        state.newRound();
+        return score;
+    }
+
+    /**
+     *
+     * @return The values of the dices. The list is reused and updated by the next call.
+     */
+    public ArrayList<Integer> getDiceValues()
+    {
+        diceValues.clear();
+        for(Die d : dices)
+        {
+            diceValues.add(d.getValue());
+        }
+        return diceValues;
+    }
+
+    /**
+     *
+     * @param scoreChoiceIndex The index of the score choice.
+     * @return true if and only if, the score choice has already been used in the game.
+     */
+    public boolean isScoreChoiceUsed(int scoreChoiceIndex) {
+        return usedScoreChoices[scoreChoiceIndex];
+    }
+
+    public Die getDie(int position) {
+        return dices[position];
+    }
+
+    public GameRules getRules() {
+        return rules;
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    public MultisetScorer getScorer() {
+        return scorer;
+    }
+}
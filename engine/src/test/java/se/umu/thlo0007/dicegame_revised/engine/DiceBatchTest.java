@@ -0,0 +1,54 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DiceBatchTest {
+
+    @Test
+    public void heldDicesKeepTheirValues() throws Exception {
+        DiceBatch batch = new DiceBatch(new DiceRandom(30));
+        int numHands = 1000;
+        byte[] dices = new byte[numHands * DiceBatch.NUM_DICES];
+        int[] holds = new int[numHands];
+        batch.throwDices(dices, numHands);
+        for(int h = 0; h < numHands; h++)
+        {
+            holds[h] = h % 64;
+        }
+        byte[] before = dices.clone();
+        for(int i = 0; i < 10; i++)
+        {
+            batch.throwDices(dices, holds, numHands);
+        }
+        for(int h = 0; h < numHands; h++)
+        {
+            for(int j = 0; j < DiceBatch.NUM_DICES; j++)
+            {
+                int i = h * DiceBatch.NUM_DICES + j;
+                assertTrue(dices[i] >= 1 && dices[i] <= Die.NUM_FACES);
+                if((holds[h] & (1 << j)) != 0)
+                {
+                    assertEquals(before[i], dices[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void everyFaceIsThrownEvenly() throws Exception {
+        DiceBatch batch = new DiceBatch(new DiceRandom(7));
+        byte[] dices = new byte[10000 * DiceBatch.NUM_DICES];
+        batch.throwDices(dices, 10000);
+        int[] counts = new int[Die.NUM_FACES + 1];
+        for(byte value : dices)
+        {
+            counts[value]++;
+        }
+        for(int face = 1; face <= Die.NUM_FACES; face++)
+        {
+            assertTrue(Math.abs(counts[face] - 10000) < 500);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DiceRandomTest {
+
+    @Test
+    public void sameSeedGivesSameThrows() throws Exception {
+        DiceRandom first = new DiceRandom(30);
+        DiceRandom second = new DiceRandom(30);
+        for(int i = 0; i < 1000; i++)
+        {
+            assertEquals(first.nextInt(Die.NUM_FACES), second.nextInt(Die.NUM_FACES));
+        }
+    }
+
+    @Test
+    public void restoredGeneratorContinuesTheSameThrows() throws Exception {
+        DiceRandom random = new DiceRandom(30);
+        for(int i = 0; i < 17; i++)
+        {
+            random.nextInt(Die.NUM_FACES);
+        }
+        DiceRandom restored = new DiceRandom(random.getSeed(), random.getState());
+        assertEquals(30, restored.getSeed());
+        for(int i = 0; i < 1000; i++)
+        {
+            assertEquals(random.nextInt(Die.NUM_FACES), restored.nextInt(Die.NUM_FACES));
+        }
+    }
+
+    @Test
+    public void everyFaceIsThrown() throws Exception {
+        DiceRandom random = new DiceRandom(7);
+        int[] counts = new int[Die.NUM_FACES];
+        for(int i = 0; i < 60000; i++)
+        {
+            counts[random.nextInt(Die.NUM_FACES)]++;
+        }
+        for(int count : counts)
+        {
+            assertTrue(Math.abs(count - 10000) < 500);
+        }
+    }
+}
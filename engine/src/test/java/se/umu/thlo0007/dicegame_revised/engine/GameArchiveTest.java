@@ -0,0 +1,199 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class GameArchiveTest {
+
+    /**
+     * Plays a game throwing once per round and using the score choices in order.
+     */
+    private static GameRecord playGame(long seed)
+    {
+        ThirtyGame game = new ThirtyGame(new DiceRandom(seed));
+        GameRecord record = new GameRecord();
+        record.reset(seed);
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            game.throwDices();
+            record.addThrow(0);
+            int score = game.scoreRound(choice);
+            record.addRound(game.getDiceValues(), choice, score);
+        }
+        return record;
+    }
+
+    @Test
+    public void viewReadsTheAppendedGames() throws Exception {
+        GameArchive archive = new GameArchive(10);
+        GameRecord first = playGame(1);
+        GameRecord second = playGame(2);
+        assertEquals(0, archive.append(first));
+        assertEquals(1, archive.append(second));
+        assertEquals(2, archive.getNumGames());
+
+        GameArchive.View view = archive.newView();
+        assertTrue(view.next());
+        assertTrue(view.next());
+        assertFalse(view.next());
+        assertEquals(2, view.getSeed());
+        assertEquals(second.getScoreTotal(), view.getScoreTotal());
+
+        view.moveTo(0);
+        int[] scores = new int[GameState.MAX_ROUNDS];
+        String[] scoreChoices = new String[GameState.MAX_ROUNDS];
+        view.getScores(scores);
+        view.getScoreChoices(scoreChoices);
+        for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+        {
+            assertEquals(GameRecord.getScore(first.getRound(round)), scores[round]);
+            assertEquals(ScoreTable.getScoreChoice(round), scoreChoices[round]);
+            assertEquals(first.getRound(round), view.getRound(round));
+            assertEquals(1, view.getThrowsMade(round));
+        }
+    }
+
+    @Test
+    public void fullArchiveRejectsGames() throws Exception {
+        GameArchive archive = new GameArchive(1);
+        GameRecord record = playGame(3);
+        assertEquals(0, archive.append(record));
+        assertEquals(-1, archive.append(record));
+        assertEquals(1, archive.getNumGames());
+    }
+
+    @Test
+    public void concurrentAppendsArePublishedWithoutGaps() throws Exception {
+        final GameArchive archive = new GameArchive(1 << 20);
+        final int gamesPerThread = 30000;
+        Thread[] threads = new Thread[4];
+        int[] scoreTotals = new int[threads.length];
+        for(int t = 0; t < threads.length; t++)
+        {
+            final GameRecord record = playGame(t);
+            scoreTotals[t] = record.getScoreTotal();
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int i = 0; i < gamesPerThread; i++)
+                    {
+                        archive.append(record);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(threads.length * gamesPerThread, archive.getNumGames());
+        int[] gamesPerSeed = new int[threads.length];
+        GameArchive.View view = archive.newView();
+        while(view.next())
+        {
+            int seed = (int) view.getSeed();
+            gamesPerSeed[seed]++;
+            assertEquals(scoreTotals[seed], view.getScoreTotal());
+        }
+        for(int games : gamesPerSeed)
+        {
+            assertEquals(gamesPerThread, games);
+        }
+    }
+
+    @Test
+    public void failedAppendIsSkippedAndLaterGamesArePublished() throws Exception {
+        GameArchive archive = new GameArchive(10);
+        GameRecord failing = new GameRecord() {
+            @Override
+            public void write(ByteBuffer buffer, int offset) {
+                throw new IllegalStateException("Write failed");
+            }
+        };
+        failing.read(toBuffer(playGame(4)), 0);
+
+        assertEquals(0, archive.append(playGame(1)));
+        try
+        {
+            archive.append(failing);
+            fail("The error of the write should be thrown");
+        }
+        catch(IllegalStateException expected)
+        {
+        }
+        assertEquals(2, archive.append(playGame(2)));
+        assertEquals(3, archive.getNumGames());
+        assertEquals(1, archive.getNumFailed());
+        assertTrue(archive.isFailed(1));
+
+        GameArchive.View view = archive.newView();
+        assertTrue(view.next());
+        assertEquals(1, view.getSeed());
+        assertTrue(view.next());
+        assertEquals(2, view.getIndex());
+        assertEquals(2, view.getSeed());
+        assertFalse(view.next());
+        try
+        {
+            view.moveTo(1);
+            fail("A failed game should not be readable");
+        }
+        catch(IllegalArgumentException expected)
+        {
+        }
+    }
+
+    @Test
+    public void stalledAppendDoesNotBlockLaterAppends() throws Exception {
+        final GameArchive archive = new GameArchive(10);
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch resume = new CountDownLatch(1);
+        final GameRecord stalling = new GameRecord() {
+            @Override
+            public void write(ByteBuffer buffer, int offset) {
+                writing.countDown();
+                try
+                {
+                    resume.await();
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(buffer, offset);
+            }
+        };
+        stalling.read(toBuffer(playGame(5)), 0);
+        Thread stalled = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                archive.append(stalling);
+            }
+        });
+        stalled.start();
+        writing.await();
+
+        // The later append returns while the earlier slot is still being written, and is published once it is.
+        assertEquals(1, archive.append(playGame(6)));
+        assertEquals(0, archive.getNumGames());
+        resume.countDown();
+        stalled.join();
+        assertEquals(2, archive.getNumGames());
+        GameArchive.View view = archive.newView();
+        assertEquals(5, view.moveTo(0).getSeed());
+        assertEquals(6, view.moveTo(1).getSeed());
+    }
+
+    private static ByteBuffer toBuffer(GameRecord record)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(GameRecord.RECORD_SIZE);
+        record.write(buffer, 0);
+        return buffer;
+    }
+}
@@ -0,0 +1,199 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class GameJournalTest {
+
+    /**
+     * Replays journal events on a headless game.
+     */
+    private static class GameReplay implements GameJournal.Listener
+    {
+        private ThirtyGame game;
+
+        @Override
+        public void onNewGame(long seed) {
+            game = new ThirtyGame(new DiceRandom(seed));
+        }
+
+        @Override
+        public void onClickDice(int position) {
+            game.toggleHold(position);
+        }
+
+        @Override
+        public void onThrow() {
+            game.throwDices();
+        }
+
+        @Override
+        public void onScoreRound(int scoreChoiceIndex) {
+            game.scoreRound(scoreChoiceIndex);
+        }
+    }
+
+    @Test
+    public void replayedGameMatchesPlayedGame() throws Exception {
+        File file = File.createTempFile("game", ".journal");
+        file.deleteOnExit();
+        GameJournal journal = new GameJournal(file);
+        ThirtyGame game = null;
+        for(long seed = 1; seed <= 2; seed++)
+        {
+            game = new ThirtyGame(new DiceRandom(seed));
+            journal.newGame(seed);
+            for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+            {
+                game.throwDices();
+                journal.newThrow();
+                game.toggleHold(round % ThirtyGame.NUM_DICES);
+                journal.clickDice(round % ThirtyGame.NUM_DICES);
+                game.throwDices();
+                journal.newThrow();
+                game.scoreRound(round);
+                journal.scoreRound(round);
+            }
+        }
+        journal.flush();
+        journal.close();
+
+        // The second game replaced the first one.
+        GameReplay replay = new GameReplay();
+        assertEquals(1 + GameState.MAX_ROUNDS * 4, GameJournal.read(file, replay));
+        assertEquals(9 + GameState.MAX_ROUNDS * 6, file.length());
+        assertTrue(replay.game.getState().isGameOver());
+        assertEquals(game.getState().getScores(), replay.game.getState().getScores());
+    }
+
+    @Test
+    public void closeWritesTheAppendedEventsBeforeReturning() throws Exception {
+        File file = File.createTempFile("game", ".journal");
+        file.deleteOnExit();
+        GameJournal journal = new GameJournal(file);
+        journal.newGame(30);
+        journal.newThrow();
+        journal.close();
+
+        // Opening the journal again must neither miss the events nor cut them off.
+        journal = new GameJournal(file);
+        journal.close();
+        GameReplay replay = new GameReplay();
+        assertEquals(2, GameJournal.read(file, replay));
+        assertEquals(1, replay.game.getState().getThrowCounter());
+    }
+
+    @Test
+    public void interruptedWriterFailsTheJournal() throws Exception {
+        File file = File.createTempFile("game", ".journal");
+        file.deleteOnExit();
+        GameJournal journal = new GameJournal(file);
+        journal.newGame(30);
+        journal.flush();
+        assertFalse(journal.isFailed());
+        // The writer is the only thread of that name left running, the journals of the other tests are closed.
+        for(Thread thread : Thread.getAllStackTraces().keySet())
+        {
+            if(thread.getName().equals("GameJournal"))
+            {
+                thread.interrupt();
+                thread.join();
+            }
+        }
+        assertTrue(journal.isFailed());
+        // Later events are ignored instead of being kept in memory.
+        for(int i = 0; i < 100000; i++)
+        {
+            journal.newThrow();
+        }
+        try
+        {
+            journal.flush();
+            fail("A failed journal was flushed");
+        }
+        catch(IOException e)
+        {
+            // Expected, a flush must not wait for a writer that has stopped.
+        }
+        journal.close();
+        assertEquals(9, file.length());
+    }
+
+    @Test
+    public void partialEventAtTheEndIsIgnored() throws Exception {
+        File file = File.createTempFile("game", ".journal");
+        file.deleteOnExit();
+        GameJournal journal = new GameJournal(file);
+        journal.newGame(30);
+        journal.newThrow();
+        journal.scoreRound(2);
+        journal.flush();
+        journal.close();
+        RandomAccessFile truncated = new RandomAccessFile(file, "rw");
+        truncated.setLength(truncated.length() - 1);
+        truncated.close();
+
+        GameReplay replay = new GameReplay();
+        assertEquals(2, GameJournal.read(file, replay));
+        assertEquals(1, replay.game.getState().getThrowCounter());
+    }
+
+    @Test
+    public void tornTailIsCutOffWhenReopened() throws Exception {
+        File file = File.createTempFile("game", ".journal");
+        file.deleteOnExit();
+        GameJournal journal = new GameJournal(file);
+        journal.newGame(30);
+        journal.newThrow();
+        journal.clickDice(2);
+        journal.flush();
+        journal.close();
+        // The process was killed in the middle of writing a score, and of the event after it.
+        RandomAccessFile torn = new RandomAccessFile(file, "rw");
+        torn.seek(torn.length());
+        torn.write(new byte[]{GameJournal.SCORE_ROUND, 3, GameJournal.NEW_GAME, 0, 0});
+        torn.setLength(torn.length() - 4);
+        torn.close();
+
+        journal = new GameJournal(file);
+        journal.newThrow();
+        journal.scoreRound(3);
+        journal.flush();
+        journal.close();
+
+        GameReplay replay = new GameReplay();
+        assertEquals(5, GameJournal.read(file, replay));
+        assertEquals(1, replay.game.getState().getScores().size());
+        assertTrue(replay.game.isScoreChoiceUsed(3));
+    }
+
+    @Test
+    public void unknownEventsAtTheEndAreCutOffWhenReopened() throws Exception {
+        File file = File.createTempFile("game", ".journal");
+        file.deleteOnExit();
+        GameJournal journal = new GameJournal(file);
+        journal.newGame(30);
+        journal.flush();
+        journal.close();
+        // A crash can leave a block of zeros instead of the last write.
+        RandomAccessFile torn = new RandomAccessFile(file, "rw");
+        torn.seek(torn.length());
+        torn.write(new byte[16]);
+        torn.close();
+        assertEquals(1, GameJournal.read(file, new GameReplay()));
+
+        journal = new GameJournal(file);
+        journal.newThrow();
+        journal.flush();
+        journal.close();
+
+        GameReplay replay = new GameReplay();
+        assertEquals(2, GameJournal.read(file, replay));
+        assertEquals(1, replay.game.getState().getThrowCounter());
+    }
+}
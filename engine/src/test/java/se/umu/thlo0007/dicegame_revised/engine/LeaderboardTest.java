@@ -0,0 +1,86 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardTest {
+
+    @Test
+    public void keepsTheBestGamesEarliestFirst() throws Exception {
+        Leaderboard leaderboard = new Leaderboard(3);
+        assertTrue(leaderboard.submit(150, 1));
+        assertTrue(leaderboard.submit(200, 2));
+        assertTrue(leaderboard.submit(150, 3));
+        assertTrue(leaderboard.submit(180, 4));
+        assertFalse(leaderboard.submit(150, 5));
+        assertFalse(leaderboard.submit(100, 6));
+
+        ArrayList<Leaderboard.Entry> entries = leaderboard.getTopEntries();
+        assertEquals(3, entries.size());
+        assertEquals(2, entries.get(0).getGameId());
+        assertEquals(4, entries.get(1).getGameId());
+        assertEquals(1, entries.get(2).getGameId());
+        assertEquals(6, leaderboard.getNumScores());
+        assertEquals(1, leaderboard.getRank(200));
+        assertEquals(3, leaderboard.getRank(170));
+        assertEquals(3, leaderboard.getRank(150));
+    }
+
+    @Test
+    public void concurrentSubmissionsKeepTheExactTopGames() throws Exception {
+        final Leaderboard leaderboard = new Leaderboard(50, 4);
+        final int numThreads = 8;
+        final int gamesPerThread = 50000;
+        final int[] scoreTotals = new int[numThreads * gamesPerThread];
+        final boolean[] madeTheList = new boolean[scoreTotals.length];
+        DiceRandom random = new DiceRandom(16);
+        for(int i = 0; i < scoreTotals.length; i++)
+        {
+            scoreTotals[i] = random.nextInt(Leaderboard.MAX_SCORE_TOTAL + 1);
+        }
+
+        Thread[] threads = new Thread[numThreads];
+        for(int t = 0; t < numThreads; t++)
+        {
+            final int first = t * gamesPerThread;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int i = first; i < first + gamesPerThread; i++)
+                    {
+                        madeTheList[i] = leaderboard.submit(scoreTotals[i], i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        int[] sorted = scoreTotals.clone();
+        Arrays.sort(sorted);
+        ArrayList<Leaderboard.Entry> entries = leaderboard.getTopEntries();
+        assertEquals(50, entries.size());
+        for(int i = 0; i < entries.size(); i++)
+        {
+            Leaderboard.Entry entry = entries.get(i);
+            assertEquals(sorted[sorted.length - 1 - i], entry.getScoreTotal());
+            assertEquals(scoreTotals[(int) entry.getGameId()], entry.getScoreTotal());
+            // A game that was not on the list when its submission finished never gets back on it.
+            assertTrue(madeTheList[(int) entry.getGameId()]);
+        }
+        assertEquals(scoreTotals.length, leaderboard.getNumScores());
+        long[] histogram = leaderboard.getHistogram();
+        for(int scoreTotal : scoreTotals)
+        {
+            histogram[scoreTotal]--;
+        }
+        assertArrayEquals(new long[histogram.length], histogram);
+    }
+}
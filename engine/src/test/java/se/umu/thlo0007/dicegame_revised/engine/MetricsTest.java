@@ -0,0 +1,78 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @After
+    public void disableMetrics() throws Exception {
+        Metrics.setRegistry(null);
+    }
+
+    @Test
+    public void everyValueFallsInABucketThatHoldsIt() throws Exception {
+        for(long value = 0; value < 100000; value += 7)
+        {
+            int bucket = LatencyHistogram.getBucket(value);
+            assertTrue(LatencyHistogram.getHighestValue(bucket) >= value);
+            assertTrue(bucket == 0 || LatencyHistogram.getHighestValue(bucket - 1) < value);
+        }
+        long highest = LatencyHistogram.getHighestValue(LatencyHistogram.getBucket(LatencyHistogram.MAX_VALUE));
+        assertEquals(LatencyHistogram.MAX_VALUE, highest);
+    }
+
+    @Test
+    public void percentilesAreWithinTheBucketPrecision() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(long value = 1; value <= 1000; value++)
+        {
+            histogram.record(value * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getMean(), 1e-6);
+        assertEquals(1000000, histogram.getMax());
+        long median = histogram.getValueAtPercentile(50);
+        assertTrue(median >= 500000 && median <= 500000 + 500000 / LatencyHistogram.SUB_BUCKET_COUNT);
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void calculateIsRecordedOnlyWhenEnabled() throws Exception {
+        Scorer scorer = new Scorer();
+        ArrayList<Integer> diceValues = new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5, 6));
+        scorer.Calculate(diceValues, "7");
+        assertFalse(Metrics.isEnabled());
+        assertEquals(0, Metrics.startTimer());
+
+        MetricsRegistry registry = new MetricsRegistry();
+        Metrics.setRegistry(registry);
+        scorer.Calculate(diceValues, "7");
+        assertEquals(1, registry.getTimer(Scorer.CALCULATE_TIMER).getCount());
+        assertEquals(2 * 64, registry.getCounter(Scorer.POWER_SET_SIZE_COUNTER).get());
+        // {1,6}, {2,5}, {3,4} and {1,2,4} sum to 7, for each of the two sort choices.
+        assertEquals(2 * 4, registry.getCounter(Scorer.SUBSET_CANDIDATES_COUNTER).get());
+        assertTrue(registry.dump().contains(Scorer.CALCULATE_TIMER + ": count 1"));
+    }
+
+    @Test
+    public void getScoreIsRecordedOnTheDefaultEngine() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        Metrics.setRegistry(registry);
+        Scorer scorer = new Scorer();
+        scorer.getScore(new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5, 6)), ScoreTable.getScoreChoiceIndex("7"));
+        scorer.getScore(new ArrayList<>(Arrays.asList(1, 6, 3, 4)), ScoreTable.getScoreChoiceIndex("7"));
+        scorer.getScores(new ArrayList<>(Arrays.asList(6, 6, 6, 6, 6, 6)), new int[ScoreTable.NUM_SCORE_CHOICES]);
+        assertEquals(2, registry.getTimer(Scorer.GET_SCORE_TIMER).getCount());
+        assertEquals(1, registry.getTimer(Scorer.GET_SCORES_TIMER).getCount());
+        // Only the hand of four dices is not in the score table.
+        assertEquals(1, registry.getCounter(Scorer.CALCULATED_HANDS_COUNTER).get());
+        // Calculate is never called on the default engine.
+        assertEquals(0, registry.getTimer(Scorer.CALCULATE_TIMER).getCount());
+    }
+}
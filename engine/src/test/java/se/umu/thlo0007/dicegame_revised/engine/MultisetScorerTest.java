@@ -0,0 +1,80 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MultisetScorerTest {
+
+    @Test
+    public void thirtyRulesMatchTheScorer() throws Exception {
+        Scorer scorer = new Scorer();
+        MultisetScorer multisetScorer = new MultisetScorer(new GameRules(9, Die.NUM_FACES, GameState.MAX_ROUNDS,
+                GameState.MAX_THROWS, new int[]{4, 5, 6, 7, 8, 9, 10, 11, 12}, 3));
+        Random random = new Random(30);
+        int[] scores = new int[ScoreTable.NUM_SCORE_CHOICES];
+        for(int i = 0; i < 2000; i++)
+        {
+            ArrayList<Integer> diceValues = new ArrayList<>();
+            int numDices = 1 + random.nextInt(9);
+            for(int j = 0; j < numDices; j++)
+            {
+                diceValues.add(1 + random.nextInt(Die.NUM_FACES));
+            }
+            multisetScorer.getScores(diceValues, scores);
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                assertEquals(scorer.CalculateOptimal(diceValues, ScoreTable.getScoreChoice(choice)), scores[choice]);
+            }
+        }
+    }
+
+    @Test
+    public void largeHandsAreScored() throws Exception {
+        GameRules rules = new GameRules(30, 8, 5, 3, new int[]{12, 20, 30, 40}, 2);
+        MultisetScorer scorer = new MultisetScorer(rules);
+        ArrayList<Integer> diceValues = new ArrayList<>();
+        for(int j = 0; j < 30; j++)
+        {
+            diceValues.add(j % 2 == 0 ? 8 : 4);
+        }
+        // 15 pairs of 8 and 4. 9 groups of 20 use all dices, as 7 groups of 8, 8 and 4, one of 8, 4, 4 and 4 and one of five 4.
+        assertEquals(15 * 12, scorer.getScore(diceValues, rules.getScoreChoiceIndex("12")));
+        assertEquals(9 * 20, scorer.getScore(diceValues, rules.getScoreChoiceIndex("20")));
+        assertEquals(0, scorer.getScore(diceValues, rules.getScoreChoiceIndex("30")));
+        assertEquals(4 * 40, scorer.getScore(diceValues, rules.getScoreChoiceIndex("40")));
+        assertEquals(0, scorer.getScore(diceValues, 0));
+
+        diceValues.set(0, 1);
+        diceValues.set(1, 2);
+        assertEquals(3, scorer.getScore(diceValues, 0));
+    }
+
+    @Test
+    public void variantGameIsPlayedToTheEnd() throws Exception {
+        GameRules rules = new GameRules(24, 10, 6, 2, new int[]{10, 15, 20, 25, 30, 40}, 3);
+        VariantGame game = new VariantGame(rules, new DiceRandom(30));
+        for(int choice = rules.getNumScoreChoices() - 1; choice > 0; choice--)
+        {
+            assertTrue(game.throwDices());
+            assertTrue(game.throwDices());
+            assertFalse(game.throwDices());
+            for(int value : game.getDiceValues())
+            {
+                assertTrue(value >= 1 && value <= 10);
+            }
+            assertTrue(game.scoreRound(choice) >= 0);
+            assertEquals(-1, game.scoreRound(choice));
+        }
+        assertTrue(game.getState().isGameOver());
+        assertEquals(rules.getNumRounds(), game.getState().getScores().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyCountVectorsAreRejected() throws Exception {
+        new MultisetScorer(new GameRules(60, 30, 5, 3, new int[]{30, 40, 50, 60}, 3));
+    }
+}
@@ -0,0 +1,73 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PartitionScorerTest {
+
+    private static ArrayList<Integer> hand(Integer... diceValues)
+    {
+        return new ArrayList<>(Arrays.asList(diceValues));
+    }
+
+    @Test
+    public void knownHandsAreScored() throws Exception {
+        PartitionScorer scorer = new PartitionScorer();
+        // 6 + 6 and 5 + 4 + 2 + 1.
+        assertEquals(24, scorer.getScore(hand(6, 6, 5, 1, 4, 2), 12));
+        // 1 + 6, 2 + 5 and 3 + 4.
+        assertEquals(21, scorer.getScore(hand(1, 2, 3, 4, 5, 6), 7));
+        // The dices sum to 23, so at most two groups of 9 can be formed, for example 4 + 5 and 6 + 3.
+        assertEquals(18, scorer.getScore(hand(4, 4, 1, 5, 6, 3), 9));
+        assertEquals(0, scorer.getScore(hand(1, 1, 1, 1, 1, 1), 12));
+        assertEquals(4, scorer.getScore(hand(1, 1, 1, 1, 6, 6), 4));
+    }
+
+    @Test
+    public void handsWithMoreThanSixDicesAreScored() throws Exception {
+        PartitionScorer scorer = new PartitionScorer();
+        assertEquals(27, scorer.getScore(hand(3, 3, 3, 3, 3, 3, 3, 3, 3), 9));
+        assertEquals(24, scorer.getScore(hand(3, 3, 3, 3, 3, 3, 3, 3, 3), 6));
+        assertEquals(48, scorer.getScore(hand(6, 6, 6, 6, 6, 6, 6, 6), 12));
+        // A larger hand after a smaller one grows the working memory, and a smaller one after it still works.
+        assertEquals(21, scorer.getScore(hand(1, 2, 3, 4, 5, 6), 7));
+
+        int[] scores = new int[ScoreTable.NUM_SCORE_CHOICES];
+        scorer.getScores(hand(1, 2, 3, 4, 5, 6, 6, 6, 2, 1), scores);
+        assertEquals(1 + 2 + 3 + 2 + 1, scores[ScoreTable.getScoreChoiceIndex(ScoreTable.LOW_SCORE_CHOICE)]);
+        assertEquals(4 * 9, scores[ScoreTable.getScoreChoiceIndex("9")]);
+        assertEquals(3 * 12, scores[ScoreTable.getScoreChoiceIndex("12")]);
+    }
+
+    @Test
+    public void getScoresMatchesGetScoreAndTheOptimalScore() throws Exception {
+        PartitionScorer scorer = new PartitionScorer();
+        Scorer optimal = new Scorer();
+        Random random = new Random(30);
+        int[] scores = new int[ScoreTable.NUM_SCORE_CHOICES];
+        for(int i = 0; i < 1000; i++)
+        {
+            ArrayList<Integer> diceValues = new ArrayList<>();
+            int numDices = 1 + random.nextInt(10);
+            for(int j = 0; j < numDices; j++)
+            {
+                diceValues.add(1 + random.nextInt(Die.NUM_FACES));
+            }
+            scorer.getScores(diceValues, scores);
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                String scoreChoice = ScoreTable.getScoreChoice(choice);
+                assertEquals(diceValues + " " + scoreChoice, optimal.CalculateOptimal(diceValues, scoreChoice), scores[choice]);
+                if(choice > 0)
+                {
+                    assertEquals(scores[choice], scorer.getScore(diceValues, Integer.parseInt(scoreChoice)));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PowerSetMasksTest {
+
+    /**
+     *
+     * @return The dice values of a subset, in the order of the dices like {@link SubSetAndSum#getSet()}.
+     */
+    private static ArrayList<Integer> getValues(PowerSetMasks powerSet, int subSet)
+    {
+        ArrayList<Integer> values = new ArrayList<>();
+        for(int j = 0; j < powerSet.getNumDices(); j++)
+        {
+            if((subSet & (1 << j)) != 0)
+            {
+                values.add(powerSet.getValue(j));
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void sumsMatchTheLegacyPowerSet() throws Exception {
+        Scorer scorer = new Scorer();
+        PowerSetMasks powerSet = new PowerSetMasks();
+        Random random = new Random(30);
+        for(int i = 0; i < 200; i++)
+        {
+            ArrayList<Integer> diceValues = new ArrayList<>();
+            int numDices = 1 + random.nextInt(9);
+            for(int j = 0; j < numDices; j++)
+            {
+                diceValues.add(1 + random.nextInt(Die.NUM_FACES));
+            }
+            powerSet.generate(diceValues);
+            ArrayList<SubSetAndSum> legacy = scorer.GeneratePowerSet(diceValues);
+            assertEquals(legacy.size(), powerSet.getNumSubSets());
+            for(int subSet = 0; subSet < powerSet.getNumSubSets(); subSet++)
+            {
+                assertEquals(legacy.get(subSet).getSum(), powerSet.getSum(subSet));
+                assertEquals(legacy.get(subSet).getSet().size(), PowerSetMasks.getSize(subSet));
+            }
+        }
+    }
+
+    @Test
+    public void filterKeepsTheOrderOfTheLegacySort() throws Exception {
+        Scorer scorer = new Scorer();
+        PowerSetMasks powerSet = new PowerSetMasks();
+        Random random = new Random(7);
+        for(int i = 0; i < 200; i++)
+        {
+            ArrayList<Integer> diceValues = new ArrayList<>();
+            int numDices = 1 + random.nextInt(9);
+            for(int j = 0; j < numDices; j++)
+            {
+                diceValues.add(1 + random.nextInt(Die.NUM_FACES));
+            }
+            powerSet.generate(diceValues);
+            ArrayList<SubSetAndSum> legacyPowerSet = scorer.GeneratePowerSet(diceValues);
+            for(int target = PartitionScorer.LOWEST_TARGET; target <= PartitionScorer.HIGHEST_TARGET; target++)
+            {
+                for(Scorer.SortChoice sortChoice : Scorer.SortChoice.values())
+                {
+                    ArrayList<SubSetAndSum> legacy = scorer.FilterAndSort(legacyPowerSet, target, sortChoice);
+                    int numFiltered = powerSet.filter(target, sortChoice);
+                    assertEquals(legacy.size(), numFiltered);
+                    for(int position = 0; position < numFiltered; position++)
+                    {
+                        assertEquals(diceValues + " " + target + " " + sortChoice,
+                                legacy.get(position).getSet(), getValues(powerSet, powerSet.getFilteredSubSet(position)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sortOnNumDicesPutsTheSmallestSubsetsFirst() throws Exception {
+        PowerSetMasks powerSet = new PowerSetMasks();
+        ArrayList<Integer> diceValues = new ArrayList<>();
+        for(int value : new int[]{2, 2, 4, 1, 3, 6})
+        {
+            diceValues.add(value);
+        }
+        powerSet.generate(diceValues);
+        int numFiltered = powerSet.filter(6, Scorer.SortChoice.SORT_ON_SUM_AND_NUM_DICES_NEEDED);
+        int previousSize = 0;
+        for(int position = 0; position < numFiltered; position++)
+        {
+            int size = PowerSetMasks.getSize(powerSet.getFilteredSubSet(position));
+            assertTrue(size >= previousSize);
+            previousSize = size;
+        }
+        // The single 6 comes first, then 2 + 4 twice in the order of the dices.
+        assertEquals(1 << 5, powerSet.getFilteredSubSet(0));
+        assertEquals((1 << 0) | (1 << 2), powerSet.getFilteredSubSet(1));
+        assertEquals((1 << 1) | (1 << 2), powerSet.getFilteredSubSet(2));
+    }
+}
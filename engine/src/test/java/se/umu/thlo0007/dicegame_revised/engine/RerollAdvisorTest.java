@@ -0,0 +1,162 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RerollAdvisorTest {
+
+    private static final int ALL_CHOICES = (1 << ScoreTable.NUM_SCORE_CHOICES) - 1;
+    private static final double DELTA = 1e-9;
+
+    private static ArrayList<Integer> hand(Integer... diceValues)
+    {
+        return new ArrayList<>(Arrays.asList(diceValues));
+    }
+
+    /**
+     * Evaluates a round on its own, valuing each final hand by its best score among the unused score choices.
+     */
+    private static RoundEvaluator evaluate(int remainingChoices)
+    {
+        double[] finalHandValues = new double[HandSpace.NUM_HANDS];
+        for(int h = 0; h < HandSpace.NUM_HANDS; h++)
+        {
+            finalHandValues[h] = getBestScore(h, remainingChoices);
+        }
+        RoundEvaluator evaluator = new RoundEvaluator();
+        evaluator.evaluate(finalHandValues);
+        return evaluator;
+    }
+
+    private static int getBestScore(int hand, int remainingChoices)
+    {
+        int best = 0;
+        for(int rest = remainingChoices; rest != 0; rest &= rest - 1)
+        {
+            best = Math.max(best, HandSpace.getScore(hand, Integer.numberOfTrailingZeros(rest)));
+        }
+        return best;
+    }
+
+    private static void assertAdviceMatches(RerollAdvisor.Advice advice, ArrayList<Integer> diceValues, int throwsMade, int remainingChoices)
+    {
+        RoundEvaluator evaluator = evaluate(remainingChoices);
+        double best = Double.NEGATIVE_INFINITY;
+        for(int holds = 0; holds < RerollAdvisor.NUM_HOLD_MASKS; holds++)
+        {
+            double expected = throwsMade == GameState.MAX_THROWS
+                    ? getBestScore(HandSpace.getHand(diceValues), remainingChoices)
+                    : evaluator.getKeepValue(throwsMade + 1, HandSpace.getKeep(diceValues, holds));
+            assertEquals(diceValues + " holds " + holds, expected, advice.getHoldValue(holds), DELTA);
+            best = Math.max(best, expected);
+        }
+        assertEquals(best, advice.getExpectedValue(), DELTA);
+    }
+
+    @Test
+    public void holdMasksMapToTheKeepsOfTheShownDices() throws Exception {
+        RerollAdvisor advisor = new RerollAdvisor();
+        ArrayList<Integer> diceValues = hand(3, 5, 3, 1, 6, 3);
+        RerollAdvisor.Advice advice = advisor.advise(diceValues, 1, ALL_CHOICES);
+        assertAdviceMatches(advice, diceValues, 1, ALL_CHOICES);
+        // Holding either of two dices showing 3 keeps the same values.
+        assertEquals(advice.getHoldValue(1), advice.getHoldValue(1 << 2), 0);
+        assertEquals(advice.getHoldValue(1 | (1 << 5)), advice.getHoldValue((1 << 2) | (1 << 5)), 0);
+
+        // The same hand in another order uses the cached advice, with the holds following the dices as shown.
+        ArrayList<Integer> reordered = hand(6, 3, 1, 3, 5, 3);
+        RerollAdvisor.Advice reorderedAdvice = advisor.advise(reordered, 1, ALL_CHOICES);
+        assertAdviceMatches(reorderedAdvice, reordered, 1, ALL_CHOICES);
+        assertEquals(advice.getHoldValue(1 << 4), reorderedAdvice.getHoldValue(1), 0);
+        assertEquals(advice.getExpectedValue(), reorderedAdvice.getExpectedValue(), 0);
+        assertEquals(1, advisor.getNumEvaluations());
+    }
+
+    @Test
+    public void everyDiceIsHeldOnTheThirdThrow() throws Exception {
+        RerollAdvisor advisor = new RerollAdvisor();
+        // 6 + 6 scores 12 on "12", and 1 + 3 scores 4 on "4".
+        ArrayList<Integer> diceValues = hand(6, 6, 1, 2, 3, 5);
+        int remainingChoices = (1 << ScoreTable.getScoreChoiceIndex("12")) | (1 << ScoreTable.getScoreChoiceIndex("4"));
+        RerollAdvisor.Advice advice = advisor.advise(diceValues, GameState.MAX_THROWS, remainingChoices);
+        assertEquals(RerollAdvisor.HOLD_ALL, advice.getBestHolds());
+        assertEquals(ScoreTable.getScoreChoiceIndex("12"), advice.getBestScoreChoice());
+        for(int holds = 0; holds < RerollAdvisor.NUM_HOLD_MASKS; holds++)
+        {
+            assertEquals(12, advice.getHoldValue(holds), DELTA);
+        }
+    }
+
+    @Test
+    public void cacheKeySeparatesThrowsMadeAndRemainingChoices() throws Exception {
+        RerollAdvisor advisor = new RerollAdvisor();
+        ArrayList<Integer> diceValues = hand(4, 4, 2, 6, 1, 5);
+        int lowOnly = 1 << ScoreTable.getScoreChoiceIndex(ScoreTable.LOW_SCORE_CHOICE);
+        int[] remainingChoices = {ALL_CHOICES, lowOnly};
+        RerollAdvisor.Advice[][] advices = new RerollAdvisor.Advice[remainingChoices.length][GameState.MAX_THROWS + 1];
+        for(int pass = 0; pass < 2; pass++)
+        {
+            for(int c = 0; c < remainingChoices.length; c++)
+            {
+                for(int throwsMade = 1; throwsMade <= GameState.MAX_THROWS; throwsMade++)
+                {
+                    RerollAdvisor.Advice advice = advisor.advise(diceValues, throwsMade, remainingChoices[c]);
+                    assertAdviceMatches(advice, diceValues, throwsMade, remainingChoices[c]);
+                    assertTrue(advisor.isCached(diceValues, throwsMade, remainingChoices[c]));
+                    if(pass == 1)
+                    {
+                        assertEquals(advices[c][throwsMade].getExpectedValue(), advice.getExpectedValue(), 0);
+                    }
+                    advices[c][throwsMade] = advice;
+                }
+            }
+        }
+        assertEquals(2, advisor.getNumEvaluations());
+        assertNotEquals(advices[0][1].getExpectedValue(), advices[0][2].getExpectedValue(), DELTA);
+        assertNotEquals(advices[0][1].getExpectedValue(), advices[1][1].getExpectedValue(), DELTA);
+        assertEquals(0, advices[1][3].getBestScoreChoice());
+    }
+
+    @Test
+    public void leastRecentlyUsedAdviceIsEvicted() throws Exception {
+        RerollAdvisor advisor = new RerollAdvisor(null, 2, 1);
+        ArrayList<Integer> first = hand(1, 1, 1, 1, 1, 1);
+        ArrayList<Integer> second = hand(2, 2, 2, 2, 2, 2);
+        ArrayList<Integer> third = hand(3, 3, 3, 3, 3, 3);
+        advisor.advise(first, 1, ALL_CHOICES);
+        advisor.advise(second, 1, ALL_CHOICES);
+        advisor.advise(first, 1, ALL_CHOICES);
+        advisor.advise(third, 1, ALL_CHOICES);
+        assertTrue(advisor.isCached(first, 1, ALL_CHOICES));
+        assertFalse(advisor.isCached(second, 1, ALL_CHOICES));
+        assertTrue(advisor.isCached(third, 1, ALL_CHOICES));
+    }
+
+    @Test
+    public void evaluationsAreKeptPerRemainingChoices() throws Exception {
+        RerollAdvisor advisor = new RerollAdvisor(null, RerollAdvisor.DEFAULT_CACHE_SIZE, 2);
+        int[] remainingChoices = {ALL_CHOICES, ALL_CHOICES & ~1, ALL_CHOICES & ~2};
+        advisor.advise(hand(1, 2, 3, 4, 5, 6), 1, remainingChoices[0]);
+        advisor.advise(hand(1, 2, 3, 4, 5, 6), 1, remainingChoices[1]);
+        // A new hand with kept unused score choices does not evaluate the round again.
+        advisor.advise(hand(6, 6, 6, 1, 1, 1), 2, remainingChoices[0]);
+        assertEquals(2, advisor.getNumEvaluations());
+
+        // The third set of unused score choices evicts the least recently used evaluation.
+        advisor.advise(hand(1, 2, 3, 4, 5, 6), 1, remainingChoices[2]);
+        advisor.advise(hand(6, 6, 6, 1, 1, 1), 2, remainingChoices[0]);
+        assertEquals(3, advisor.getNumEvaluations());
+        advisor.advise(hand(6, 6, 6, 1, 1, 1), 2, remainingChoices[1]);
+        assertEquals(4, advisor.getNumEvaluations());
+        assertAdviceMatches(advisor.advise(hand(5, 5, 2, 2, 3, 3), 1, remainingChoices[1]), hand(5, 5, 2, 2, 3, 3), 1, remainingChoices[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void adviceNeedsAThrow() throws Exception {
+        new RerollAdvisor().advise(hand(1, 2, 3, 4, 5, 6), 0, ALL_CHOICES);
+    }
+}
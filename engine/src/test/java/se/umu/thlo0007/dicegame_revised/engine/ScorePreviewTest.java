@@ -0,0 +1,53 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ScorePreviewTest {
+
+    @Test
+    public void previewFollowsEveryThrow() throws Exception {
+        ThirtyGame game = new ThirtyGame(new DiceRandom(30));
+        Scorer scorer = new Scorer();
+        Random holds = new Random(30);
+        for(int round = 0; round < GameState.MAX_ROUNDS; round++)
+        {
+            while(game.throwDices())
+            {
+                ArrayList<Integer> diceValues = game.getDiceValues();
+                for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+                {
+                    assertEquals(scorer.getScore(diceValues, choice), game.getScorePreview().getScore(choice));
+                }
+                game.toggleHold(holds.nextInt(ThirtyGame.NUM_DICES));
+            }
+            game.scoreRound(round);
+        }
+    }
+
+    @Test
+    public void previewMatchesOptimalScoreForLargerHands() throws Exception {
+        Scorer scorer = new Scorer();
+        ScorePreview preview = new ScorePreview(9);
+        Random random = new Random(7);
+        ArrayList<Integer> diceValues = new ArrayList<>();
+        for(int j = 0; j < 9; j++)
+        {
+            diceValues.add(1);
+        }
+        for(int i = 0; i < 200; i++)
+        {
+            int position = random.nextInt(9);
+            diceValues.set(position, 1 + random.nextInt(Die.NUM_FACES));
+            preview.setDiceValue(position, diceValues.get(position));
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                assertEquals(scorer.CalculateOptimal(diceValues, ScoreTable.getScoreChoice(choice)), preview.getScore(choice));
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScoreStatisticsTest {
+
+    @Test
+    public void scoredRoundsAreRecordedPerScoreChoice() throws Exception {
+        ScoreStatistics statistics = new ScoreStatistics();
+        ThirtyGame game = new ThirtyGame(new DiceRandom(3));
+        game.getState().setRoundListener(statistics);
+        game.throwDices();
+        game.throwDices();
+        int score = game.scoreRound(ScoreTable.getScoreChoiceIndex("12"));
+
+        ScoreStatistics.Snapshot snapshot = statistics.getSnapshot();
+        int twelve = ScoreTable.getScoreChoiceIndex("12");
+        assertEquals(1, snapshot.getCount(twelve));
+        assertEquals(0, snapshot.getCount(0));
+        assertEquals(score, snapshot.getMean(twelve), 0);
+        assertEquals(2, snapshot.getMeanThrows(twelve), 0);
+        assertEquals(1, snapshot.getScoreCount(twelve, score));
+    }
+
+    @Test
+    public void percentilesFollowTheHistogram() throws Exception {
+        ScoreStatistics statistics = new ScoreStatistics(1);
+        for(int score = 1; score <= 10; score++)
+        {
+            statistics.onRoundScored(0, score, 3);
+        }
+        ScoreStatistics.Snapshot snapshot = statistics.getSnapshot();
+        assertEquals(5.5, snapshot.getMean(0), 1e-9);
+        assertEquals(1, snapshot.getPercentile(0, 0));
+        assertEquals(5, snapshot.getPercentile(0, 50));
+        assertEquals(9, snapshot.getPercentile(0, 90));
+        assertEquals(10, snapshot.getPercentile(0, 100));
+    }
+
+    @Test
+    public void concurrentRoundsAreAllCounted() throws Exception {
+        final ScoreStatistics statistics = new ScoreStatistics(4);
+        final int roundsPerThread = 100000;
+        Thread[] threads = new Thread[8];
+        for(int t = 0; t < threads.length; t++)
+        {
+            final int choice = t % ScoreTable.NUM_SCORE_CHOICES;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int i = 0; i < roundsPerThread; i++)
+                    {
+                        statistics.onRoundScored(choice, i % (ScoreTable.MAX_ROUND_SCORE + 1), 1 + i % GameState.MAX_THROWS);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+        ScoreStatistics.Snapshot snapshot = statistics.getSnapshot();
+        for(int t = 0; t < threads.length; t++)
+        {
+            assertEquals(roundsPerThread, snapshot.getCount(t));
+        }
+        assertEquals(0, snapshot.getCount(9));
+    }
+}
@@ -0,0 +1,80 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ScoreTableTest {
+
+    /**
+     * Generates every hand of six dices with the dice values in increasing order.
+     */
+    private static void addHands(ArrayList<ArrayList<Integer>> hands, ArrayList<Integer> hand, int lowestValue)
+    {
+        if(hand.size() == ScoreTable.NUM_DICES)
+        {
+            hands.add(new ArrayList<>(hand));
+            return;
+        }
+        for(int value = lowestValue; value <= ScoreTable.NUM_FACES; value++)
+        {
+            hand.add(value);
+            addHands(hands, hand, value);
+            hand.remove(hand.size() - 1);
+        }
+    }
+
+    @Test
+    public void everyHandMatchesTheOptimalScore() throws Exception {
+        ArrayList<ArrayList<Integer>> hands = new ArrayList<>();
+        addHands(hands, new ArrayList<Integer>(), 1);
+        assertEquals(ScoreTable.NUM_HANDS, hands.size());
+
+        Scorer scorer = new Scorer();
+        Random random = new Random(30);
+        int[] scores = new int[ScoreTable.NUM_SCORE_CHOICES];
+        for(ArrayList<Integer> hand : hands)
+        {
+            assertTrue(ScoreTable.isSupported(hand));
+            // The order of the dices does not affect the lookup.
+            ArrayList<Integer> shuffled = new ArrayList<>(hand);
+            Collections.shuffle(shuffled, random);
+            ScoreTable.getScores(shuffled, scores);
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                int optimal = scorer.CalculateOptimal(hand, ScoreTable.getScoreChoice(choice));
+                assertEquals(hand + " " + ScoreTable.getScoreChoice(choice), optimal, ScoreTable.getScore(hand, choice));
+                assertEquals(optimal, scores[choice]);
+                assertTrue(optimal <= ScoreTable.MAX_ROUND_SCORE);
+            }
+        }
+    }
+
+    @Test
+    public void scoreChoiceIndexRoundTrips() throws Exception {
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            assertEquals(choice, ScoreTable.getScoreChoiceIndex(ScoreTable.getScoreChoice(choice)));
+        }
+        assertEquals(0, ScoreTable.getScoreChoiceIndex(ScoreTable.LOW_SCORE_CHOICE));
+        assertEquals(1, ScoreTable.getScoreChoiceIndex("4"));
+        assertEquals(9, ScoreTable.getScoreChoiceIndex("12"));
+        // The score choices are shared constants.
+        assertSame(ScoreTable.getScoreChoice(9), ScoreTable.getScoreChoice(ScoreTable.getScoreChoiceIndex("12")));
+    }
+
+    @Test
+    public void onlySixDicesWithSixFacesAreSupported() throws Exception {
+        assertFalse(ScoreTable.isSupported(null));
+        assertFalse(ScoreTable.isSupported(new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5))));
+        assertFalse(ScoreTable.isSupported(new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5, 6, 1))));
+        assertFalse(ScoreTable.isSupported(new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5, 7))));
+        assertFalse(ScoreTable.isSupported(new ArrayList<>(Arrays.asList(0, 2, 3, 4, 5, 6))));
+        assertTrue(ScoreTable.isSupported(new ArrayList<>(Arrays.asList(6, 5, 4, 3, 2, 1))));
+    }
+}
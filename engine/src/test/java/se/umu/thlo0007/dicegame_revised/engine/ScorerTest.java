@@ -0,0 +1,34 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ScorerTest {
+
+    @Test
+    public void calculateAllMatchesEveryScoreChoice() throws Exception {
+        Scorer scorer = new Scorer();
+        Random random = new Random(30);
+        int[] scores = new int[ScoreTable.NUM_SCORE_CHOICES];
+        for(int i = 0; i < 2000; i++)
+        {
+            ArrayList<Integer> diceValues = new ArrayList<>();
+            int numDices = 1 + random.nextInt(9);
+            for(int j = 0; j < numDices; j++)
+            {
+                diceValues.add(1 + random.nextInt(Die.NUM_FACES));
+            }
+            int[] all = scorer.CalculateAll(diceValues);
+            scorer.getScores(diceValues, scores);
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                assertEquals(scorer.CalculateOptimal(diceValues, ScoreTable.getScoreChoice(choice)), all[choice]);
+                assertEquals(scorer.getScore(diceValues, choice), scores[choice]);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SubMultisetsTest {
+
+    @Test
+    public void multiplicitiesCountTheSubsetsOfDices() throws Exception {
+        SubMultisets subMultisets = new SubMultisets();
+        PowerSetMasks powerSet = new PowerSetMasks();
+        Random random = new Random(30);
+        for(int i = 0; i < 500; i++)
+        {
+            ArrayList<Integer> diceValues = new ArrayList<>();
+            int numDices = 1 + random.nextInt(9);
+            for(int j = 0; j < numDices; j++)
+            {
+                diceValues.add(1 + random.nextInt(Die.NUM_FACES));
+            }
+
+            // Count the subsets of dices with each sum and number of dices, which the sub-multisets must add up to.
+            HashMap<Integer, Integer> expected = new HashMap<>();
+            powerSet.generate(diceValues);
+            for(int subSet = 0; subSet < powerSet.getNumSubSets(); subSet++)
+            {
+                int key = powerSet.getSum(subSet) * 16 + PowerSetMasks.getSize(subSet);
+                expected.put(key, (expected.containsKey(key) ? expected.get(key) : 0) + 1);
+            }
+
+            subMultisets.generate(diceValues);
+            HashMap<Integer, Integer> actual = new HashMap<>();
+            int total = 1;
+            for(int face = 1; face <= Die.NUM_FACES; face++)
+            {
+                total *= subMultisets.getHandFaceCount(face) + 1;
+            }
+            assertEquals(total, subMultisets.getNumSubMultisets());
+            for(int s = 0; s < subMultisets.getNumSubMultisets(); s++)
+            {
+                int key = subMultisets.getSum(s) * 16 + subMultisets.getSize(s);
+                actual.put(key, (actual.containsKey(key) ? actual.get(key) : 0) + subMultisets.getMultiplicity(s));
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void calculateDistinctMatchesCalculateOnSixDices() throws Exception {
+        Scorer scorer = new Scorer();
+        ArrayList<Integer> repeats = new ArrayList<>(Arrays.asList(1, 1, 1, 2, 2, 3));
+        assertEquals(24, scorer.GenerateDistinctSubSets(repeats).size());
+
+        Random random = new Random(30);
+        for(int i = 0; i < 2000; i++)
+        {
+            ArrayList<Integer> diceValues = new ArrayList<>();
+            for(int j = 0; j < ScoreTable.NUM_DICES; j++)
+            {
+                // Every other hand has only three values, so values repeat often.
+                diceValues.add(i % 2 == 0 ? 1 + random.nextInt(Die.NUM_FACES) : 1 + random.nextInt(3) * 2);
+            }
+            for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+            {
+                String scoreChoice = ScoreTable.getScoreChoice(choice);
+                assertEquals(scorer.Calculate(diceValues, scoreChoice), scorer.CalculateDistinct(diceValues, scoreChoice));
+            }
+        }
+    }
+
+    @Test
+    public void calculateDistinctCanDifferWithMoreDices() throws Exception {
+        Scorer scorer = new Scorer();
+        ArrayList<Integer> diceValues = new ArrayList<>(Arrays.asList(4, 3, 4, 1, 2, 3, 2));
+        // 4 + 3 + 2 twice makes two groups of 9. The greedy order of the power set misses the second one.
+        assertEquals(9, scorer.Calculate(diceValues, "9"));
+        assertEquals(18, scorer.CalculateDistinct(diceValues, "9"));
+        assertEquals(18, scorer.CalculateOptimal(diceValues, "9"));
+    }
+}
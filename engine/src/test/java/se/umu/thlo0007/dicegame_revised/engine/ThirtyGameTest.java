@@ -0,0 +1,97 @@
+package se.umu.thlo0007.dicegame_revised.engine;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests of the game rules, run on a plain JVM without Android.
+ */
+public class ThirtyGameTest {
+
+    @Test
+    public void throwsAreLimitedPerRound() throws Exception {
+        ThirtyGame game = new ThirtyGame(new Random(1));
+        assertTrue(game.throwDices());
+        assertTrue(game.throwDices());
+        assertTrue(game.throwDices());
+        assertFalse(game.throwDices());
+        assertEquals(GameState.MAX_THROWS, game.getState().getThrowCounter());
+    }
+
+    @Test
+    public void dicesCanOnlyBeHeldAfterFirstThrow() throws Exception {
+        ThirtyGame game = new ThirtyGame(new Random(1));
+        assertFalse(game.toggleHold(0));
+        game.throwDices();
+        assertTrue(game.toggleHold(0));
+        int heldValue = game.getDie(0).getValue();
+        game.throwDices();
+        assertEquals(heldValue, game.getDie(0).getValue());
+    }
+
+    @Test
+    public void roundNeedsThrowAndUnusedScoreChoice() throws Exception {
+        ThirtyGame game = new ThirtyGame(new Random(1));
+        assertEquals(-1, game.scoreRound(0));
+        game.throwDices();
+        assertTrue(game.scoreRound(0) >= 0);
+        game.throwDices();
+        assertEquals(-1, game.scoreRound(0));
+    }
+
+    @Test
+    public void gameIsOverAfterTenRounds() throws Exception {
+        ThirtyGame game = new ThirtyGame(new Random(30));
+        int total = 0;
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            assertFalse(game.getState().isGameOver());
+            game.throwDices();
+            total += game.scoreRound(choice);
+        }
+        assertTrue(game.getState().isGameOver());
+        assertFalse(game.throwDices());
+        assertEquals(total, game.getState().getScoreTotal());
+        assertEquals(GameState.MAX_ROUNDS, game.getState().getScores().size());
+    }
+
+    @Test
+    public void packedGameStateIsRestored() throws Exception {
+        ThirtyGame game = new ThirtyGame(new Random(30));
+        for(int choice = 9; choice > 5; choice--)
+        {
+            game.throwDices();
+            game.scoreRound(choice);
+        }
+        game.throwDices();
+        GameState state = game.getState();
+        ByteBuffer buffer = ByteBuffer.allocate(GameState.getPackedSize(state.getScores().size()));
+        state.writePacked(buffer);
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+
+        GameState restored = new GameState(buffer);
+        assertEquals(state.getThrowCounter(), restored.getThrowCounter());
+        assertEquals(state.getRoundCounter(), restored.getRoundCounter());
+        assertEquals(state.isGameOver(), restored.isGameOver());
+        assertEquals(state.getScores(), restored.getScores());
+        assertEquals(state.getScoreChoices(), restored.getScoreChoices());
+        assertEquals(state.getScoreTotal(), restored.getScoreTotal());
+    }
+
+    @Test
+    public void scoringEnginesAgree() throws Exception {
+        Scorer scorer = new Scorer();
+        ArrayList<Integer> hand = new ArrayList<>(Arrays.asList(1, 2, 3, 4, 5, 6));
+        assertEquals(6, scorer.getScore(hand, ScoreTable.getScoreChoiceIndex("Låga")));
+        assertEquals(21, scorer.getScore(hand, ScoreTable.getScoreChoiceIndex("7")));
+        assertEquals(scorer.Calculate(hand, "7"), scorer.CalculateGreedy(hand, "7"));
+        assertEquals(scorer.Calculate(hand, "7"), scorer.CalculateOptimal(hand, "7"));
+    }
+}
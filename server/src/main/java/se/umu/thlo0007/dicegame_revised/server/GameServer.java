@@ -0,0 +1,275 @@
+package se.umu.thlo0007.dicegame_revised.server;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import se.umu.thlo0007.dicegame_revised.engine.DiceRandom;
+import se.umu.thlo0007.dicegame_revised.engine.GameArchive;
+import se.umu.thlo0007.dicegame_revised.engine.GameRecord;
+import se.umu.thlo0007.dicegame_revised.engine.Leaderboard;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreStatistics;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+
+/**
+ * This class hosts many games of Thirty at once, as {@link GameSession}s played through an in-process API.
+ *
+ * Each session runs its commands in its own {@link Mailbox} on a shared executor, so a session waiting for its player
+ * costs no thread, and thousands of sessions are served by a thread per core. Sessions are kept in a {@link SessionRegistry},
+ * and sessions that have not received a command for the idle timeout are expired by a background sweep.
+ * Every finished game is submitted to the {@link Leaderboard} of the server,
+ * and every scored round is recorded in the {@link ScoreStatistics} of the server.
+ * The history of finished games is kept off the heap in the {@link GameArchive} of the server, until it is full.
+ * By default the archive takes at most half of the direct memory the JVM allows, see {@link GameServer#getDefaultArchiveCapacity()}.
+ *
+ * @author Thim Lohse
+ */
+public class GameServer {
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    public static final int LEADERBOARD_CAPACITY = 100;
+
+    private final Executor executor;
+    private final SessionRegistry registry;
+    private final long idleTimeoutNanos;
+    private final AtomicLong sessionCounter;
+    private final ScheduledExecutorService expirer;
+    private final Leaderboard leaderboard;
+    private final ScoreStatistics statistics;
+    private final GameArchive archive;
+
+    /**
+     * Creates a server running the sessions on the common fork-join pool, with an archive of the default capacity.
+     */
+    public GameServer() {
+        this(ForkJoinPool.commonPool(), 4 * Runtime.getRuntime().availableProcessors(), DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a server with an archive of the default capacity, see {@link GameServer#getDefaultArchiveCapacity()}.
+     *
+     * @param executor The executor running the commands of all sessions.
+     * @param numStripes The number of stripes of the session registry.
+     * @param idleTimeoutMillis The time after which a session without commands is expired.
+     */
+    public GameServer(Executor executor, int numStripes, long idleTimeoutMillis) {
+        this(executor, numStripes, idleTimeoutMillis, getDefaultArchiveCapacity());
+    }
+
+    /**
+     *
+     * @param executor The executor running the commands of all sessions.
+     * @param numStripes The number of stripes of the session registry.
+     * @param idleTimeoutMillis The time after which a session without commands is expired.
+     * @param archiveCapacity The number of finished games kept in the archive. Games finished when it is full are not archived.
+     */
+    public GameServer(Executor executor, int numStripes, long idleTimeoutMillis, long archiveCapacity) {
+        this.executor = executor;
+        this.registry = new SessionRegistry(numStripes);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.sessionCounter = new AtomicLong();
+        this.leaderboard = new Leaderboard(LEADERBOARD_CAPACITY);
+        this.statistics = new ScoreStatistics();
+        this.archive = new GameArchive(archiveCapacity);
+        this.expirer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "GameServer-expirer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long sweepMillis = Math.max(1, idleTimeoutMillis / 2);
+        expirer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                expireIdleSessions();
+            }
+        }, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The archive allocates native memory as it grows, which is limited by -XX:MaxDirectMemorySize, or by the largest heap
+     * when the option is not set. The default capacity is the number of whole buffers of the archive that fit in half of the limit,
+     * so other direct buffers still have room, and at least one buffer.
+     *
+     * @return The default number of games kept in the archive.
+     */
+    public static long getDefaultArchiveCapacity()
+    {
+        long chunkBytes = (long) GameArchive.RECORDS_PER_CHUNK * GameRecord.RECORD_SIZE;
+        return Math.max(1, getMaxDirectMemory() / 2 / chunkBytes) * GameArchive.RECORDS_PER_CHUNK;
+    }
+
+    /**
+     *
+     * @return The most direct memory the JVM allows to be allocated.
+     */
+    private static long getMaxDirectMemory()
+    {
+        long maxDirectMemory = 0;
+        try
+        {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            if(hotSpot != null)
+            {
+                maxDirectMemory = Long.parseLong(hotSpot.getVMOption("MaxDirectMemorySize").getValue());
+            }
+        }
+        catch(IllegalArgumentException e)
+        {
+            // Not a HotSpot JVM, the limit is assumed to be the default.
+        }
+        return maxDirectMemory > 0 ? maxDirectMemory : Runtime.getRuntime().maxMemory();
+    }
+
+    /**
+     * Opens a session with a random seed.
+     *
+     * @return The new session.
+     */
+    public GameSession openSession()
+    {
+        return openSession(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Opens a session. The session id is a mix of a counter, so ids are unique but not sequential.
+     *
+     * @param seed The seed of the random generator throwing the dices of the game.
+     * @return The new session.
+     */
+    public GameSession openSession(long seed)
+    {
+        GameSession session = new GameSession(DiceRandom.mix(sessionCounter.incrementAndGet()), seed, executor, leaderboard, statistics, archive);
+        registry.register(session);
+        return session;
+    }
+
+    /**
+     *
+     * @param sessionId The id of the session.
+     * @return The open session, or null if it does not exist, was closed or has expired.
+     */
+    public GameSession getSession(long sessionId)
+    {
+        return registry.get(sessionId);
+    }
+
+    /**
+     *
+     * @param sessionId The id of the session.
+     * @return true if and only if, the session was open.
+     */
+    public boolean closeSession(long sessionId)
+    {
+        return registry.remove(sessionId);
+    }
+
+    /**
+     * Expires the sessions that have not received a command for longer than the idle timeout.
+     * Called periodically by the server, but can also be called directly.
+     *
+     * @return The number of expired sessions.
+     */
+    public int expireIdleSessions()
+    {
+        return registry.expireIdle(System.nanoTime(), idleTimeoutNanos);
+    }
+
+    /**
+     *
+     * @return The number of open sessions.
+     */
+    public int getNumSessions()
+    {
+        return registry.size();
+    }
+
+    /**
+     *
+     * @return The leaderboard of all games finished on the server.
+     */
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     *
+     * @return The score statistics of all rounds scored on the server.
+     */
+    public ScoreStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     *
+     * @return The archive of all games finished on the server.
+     */
+    public GameArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Stops the background sweep. The sessions are left as they are.
+     */
+    public void shutdown()
+    {
+        expirer.shutdownNow();
+    }
+
+    /**
+     * Opens sessions and plays them all to the end at the same time, then prints the throughput.
+     *
+     * @param args The number of sessions.
+     */
+    public static void main(String[] args)
+    {
+        int numSessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        GameServer server = new GameServer();
+
+        long start = System.nanoTime();
+        ArrayList<GameSession> sessions = new ArrayList<>(numSessions);
+        ArrayList<CompletableFuture<GameSnapshot>> games = new ArrayList<>(numSessions);
+        for(int i = 0; i < numSessions; i++)
+        {
+            sessions.add(server.openSession(i));
+            games.add(SessionPlayer.play(sessions.get(i)));
+        }
+        long scoreTotals = 0;
+        for(CompletableFuture<GameSnapshot> game : games)
+        {
+            scoreTotals += game.join().getScoreTotal();
+        }
+        // The finished games are submitted to the leaderboard and archive after the last round, before any later command.
+        for(GameSession session : sessions)
+        {
+            session.getSnapshot().join();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        server.shutdown();
+
+        System.out.printf("Played %d concurrent sessions in %d ms, mean score total %.2f%n",
+                numSessions, elapsedMillis, (double) scoreTotals / numSessions);
+        System.out.println("Best game: " + server.getLeaderboard().getTopEntries().get(0));
+        GameArchive archive = server.getArchive();
+        System.out.printf("Archived %d games in %d KB off the heap, %d could not be archived%n",
+                archive.getNumGames() - archive.getNumFailed(), archive.getAllocatedBytes() / 1024, archive.getNumFailed());
+        ScoreStatistics.Snapshot snapshot = server.getStatistics().getSnapshot();
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            System.out.printf("%5s: mean %.2f, median %d, 90th percentile %d%n", ScoreTable.getScoreChoice(choice),
+                    snapshot.getMean(choice), snapshot.getPercentile(choice, 50), snapshot.getPercentile(choice, 90));
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package se.umu.thlo0007.dicegame_revised.server;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import se.umu.thlo0007.dicegame_revised.engine.DiceRandom;
+import se.umu.thlo0007.dicegame_revised.engine.GameArchive;
+import se.umu.thlo0007.dicegame_revised.engine.GameRecord;
+import se.umu.thlo0007.dicegame_revised.engine.Leaderboard;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreStatistics;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
+
+/**
+ * This class is one game hosted by the {@link GameServer}, played by sending it commands.
+ *
+ * The session is an actor: its game, dices and scorer are only touched by the commands, which are run one at a time
+ * by the {@link Mailbox} of the session. Commands can be sent from any thread, and each command completes
+ * a future with a {@link GameSnapshot} of the game right after it was run, or with the exception it threw.
+ * Every scored round is recorded in the score statistics of the server.
+ * Every throw and round is also recorded in a {@link GameRecord}. When the last round is scored, the score total is
+ * submitted to the leaderboard of the server and the record is appended to its off-heap archive. This is done after
+ * the future of the round is completed, so a failure there never fails a round that was already scored.
+ * A game that can not be archived, because the native memory of the archive has run out, is counted by the archive
+ * as failed, see {@link GameArchive#getNumFailed()}, and the session carries on.
+ * The finished game is on the leaderboard and in the archive when the future of any later command of the session is completed.
+ *
+ * @author Thim Lohse
+ */
+public class GameSession {
+
+    private final long id;
+    private final ThirtyGame game;
+    private final Mailbox mailbox;
+    private final Leaderboard leaderboard;
+    private final GameArchive archive;
+    private final GameRecord record;
+    // Only used by the commands, set when the last round has been scored.
+    private boolean gameFinished;
+    private volatile long lastActive;
+    private volatile boolean closed;
+
+    /**
+     *
+     * @param id The id of the session.
+     * @param seed The seed of the random generator throwing the dices of the game.
+     * @param executor The executor running the commands of all sessions.
+     * @param leaderboard The leaderboard the finished game is submitted to.
+     * @param statistics The statistics every scored round is recorded in.
+     * @param archive The archive the finished game is appended to.
+     */
+    GameSession(long id, long seed, Executor executor, Leaderboard leaderboard, ScoreStatistics statistics, GameArchive archive) {
+        this.id = id;
+        this.game = new ThirtyGame(new DiceRandom(seed));
+        game.getState().setRoundListener(statistics);
+        this.mailbox = new Mailbox(executor);
+        this.leaderboard = leaderboard;
+        this.archive = archive;
+        this.record = new GameRecord();
+        record.reset(seed);
+        this.lastActive = System.nanoTime();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Throws all dices that are not held.
+     */
+    public CompletableFuture<GameSnapshot> throwDices()
+    {
+        return submit(new Command() {
+            @Override
+            public GameSnapshot run() {
+                int heldDices = 0;
+                for(int j = 0; j < ThirtyGame.NUM_DICES; j++)
+                {
+                    if(game.getDie(j).isHeld())
+                    {
+                        heldDices |= 1 << j;
+                    }
+                }
+                boolean accepted = game.throwDices();
+                if(accepted)
+                {
+                    record.addThrow(heldDices);
+                }
+                return new GameSnapshot(id, game, accepted, -1);
+            }
+        });
+    }
+
+    /**
+     * Alternates a dice between being held and not held, like a click on the dice in the app.
+     *
+     * @param position The position of the dice.
+     */
+    public CompletableFuture<GameSnapshot> toggleHold(final int position)
+    {
+        if(position < 0 || position >= ThirtyGame.NUM_DICES)
+        {
+            return failed(new IllegalArgumentException("No dice at position " + position));
+        }
+        return submit(new Command() {
+            @Override
+            public GameSnapshot run() {
+                return new GameSnapshot(id, game, game.toggleHold(position), -1);
+            }
+        });
+    }
+
+    /**
+     * Holds exactly the dices in the bitmask.
+     *
+     * @param holds A bitmask where bit j is set if dice j should be held.
+     */
+    public CompletableFuture<GameSnapshot> setHolds(final int holds)
+    {
+        return submit(new Command() {
+            @Override
+            public GameSnapshot run() {
+                boolean accepted = true;
+                for(int j = 0; j < ThirtyGame.NUM_DICES; j++)
+                {
+                    if(game.getDie(j).isHeld() != ((holds & (1 << j)) != 0))
+                    {
+                        accepted &= game.toggleHold(j);
+                    }
+                }
+                return new GameSnapshot(id, game, accepted, -1);
+            }
+        });
+    }
+
+    /**
+     * Scores the current round with a score choice and starts the next round.
+     *
+     * @param scoreChoiceIndex The index of the score choice, see {@link ScoreTable#getScoreChoiceIndex(String)}.
+     */
+    public CompletableFuture<GameSnapshot> scoreRound(final int scoreChoiceIndex)
+    {
+        if(scoreChoiceIndex < 0 || scoreChoiceIndex >= ScoreTable.NUM_SCORE_CHOICES)
+        {
+            return failed(new IllegalArgumentException("No score choice with index " + scoreChoiceIndex));
+        }
+        return submit(new Command() {
+            @Override
+            public GameSnapshot run() {
+                int score = game.scoreRound(scoreChoiceIndex);
+                if(score >= 0)
+                {
+                    record.addRound(game.getDiceValues(), scoreChoiceIndex, score);
+                    gameFinished = game.getState().isGameOver();
+                }
+                return new GameSnapshot(id, game, score >= 0, score);
+            }
+        });
+    }
+
+    /**
+     * Reads the state of the game without changing it.
+     */
+    public CompletableFuture<GameSnapshot> getSnapshot()
+    {
+        return submit(new Command() {
+            @Override
+            public GameSnapshot run() {
+                return new GameSnapshot(id, game, true, -1);
+            }
+        });
+    }
+
+    /**
+     * Sends a command to the mailbox. A command reaching a closed session fails with an {@link IllegalStateException}.
+     * The future is completed whatever the command throws. An {@link Error} is then thrown on to the executor.
+     */
+    private CompletableFuture<GameSnapshot> submit(final Command command)
+    {
+        final CompletableFuture<GameSnapshot> result = new CompletableFuture<>();
+        lastActive = System.nanoTime();
+        mailbox.execute(new Runnable() {
+            @Override
+            public void run() {
+                if(closed)
+                {
+                    result.completeExceptionally(new IllegalStateException("Session " + id + " is closed"));
+                    return;
+                }
+                GameSnapshot snapshot;
+                try
+                {
+                    snapshot = command.run();
+                }
+                catch(Throwable e)
+                {
+                    result.completeExceptionally(e);
+                    if(e instanceof Error)
+                    {
+                        throw (Error) e;
+                    }
+                    return;
+                }
+                result.complete(snapshot);
+                if(gameFinished)
+                {
+                    gameFinished = false;
+                    submitFinishedGame();
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Submits the finished game to the leaderboard and appends it to the archive, even if the leaderboard fails.
+     * Runs in the mailbox after the future of the last round is completed.
+     */
+    private void submitFinishedGame()
+    {
+        try
+        {
+            leaderboard.submit(game.getState().getScoreTotal(), id);
+        }
+        finally
+        {
+            try
+            {
+                archive.append(record);
+            }
+            catch(OutOfMemoryError e)
+            {
+                // The archive has marked the slot of the game as failed and counted it.
+            }
+        }
+    }
+
+    private static CompletableFuture<GameSnapshot> failed(Throwable cause)
+    {
+        CompletableFuture<GameSnapshot> result = new CompletableFuture<>();
+        result.completeExceptionally(cause);
+        return result;
+    }
+
+    /**
+     *
+     * @param now The current time, from {@link System#nanoTime()}.
+     * @param timeoutNanos The longest time a session may go without commands.
+     * @return true if and only if, no command has been sent to the session for longer than the timeout.
+     */
+    boolean isIdle(long now, long timeoutNanos)
+    {
+        return now - lastActive > timeoutNanos;
+    }
+
+    /**
+     * Closes the session. Commands already sent but not yet run, and all later commands, fail.
+     */
+    void close()
+    {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * A command run by the mailbox of the session, with exclusive access to the game.
+     */
+    private interface Command
+    {
+        GameSnapshot run();
+    }
+}
@@ -0,0 +1,124 @@
+package se.umu.thlo0007.dicegame_revised.server;
+
+import java.util.Arrays;
+
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
+
+/**
+ * This class is an immutable copy of the state of a {@link GameSession}, taken right after a command was run,
+ * so it can be handed to any thread while the session moves on.
+ *
+ * @author Thim Lohse
+ */
+public final class GameSnapshot {
+
+    private final long sessionId;
+    private final boolean accepted;
+    private final int roundScore;
+    private final int[] diceValues;
+    private final int holds;
+    private final int throwCounter;
+    private final int roundCounter;
+    private final int scoreTotal;
+    private final int remainingChoices;
+    private final boolean gameOver;
+
+    GameSnapshot(long sessionId, ThirtyGame game, boolean accepted, int roundScore) {
+        this.sessionId = sessionId;
+        this.accepted = accepted;
+        this.roundScore = roundScore;
+        this.diceValues = new int[ThirtyGame.NUM_DICES];
+        int heldDices = 0;
+        for(int j = 0; j < ThirtyGame.NUM_DICES; j++)
+        {
+            diceValues[j] = game.getDie(j).getValue();
+            if(game.getDie(j).isHeld())
+            {
+                heldDices |= 1 << j;
+            }
+        }
+        this.holds = heldDices;
+        this.throwCounter = game.getState().getThrowCounter();
+        this.roundCounter = game.getState().getRoundCounter();
+        this.scoreTotal = game.getState().getScoreTotal();
+        int unused = 0;
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            if(!game.isScoreChoiceUsed(choice))
+            {
+                unused |= 1 << choice;
+            }
+        }
+        this.remainingChoices = unused;
+        this.gameOver = game.getState().isGameOver();
+    }
+
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     *
+     * @return true if and only if, the command was allowed by the rules and made.
+     */
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    /**
+     *
+     * @return The score of the round scored by the command, or -1 if the command did not score a round.
+     */
+    public int getRoundScore() {
+        return roundScore;
+    }
+
+    /**
+     *
+     * @param position The position of the dice.
+     * @return The value of the dice.
+     */
+    public int getDiceValue(int position) {
+        return diceValues[position];
+    }
+
+    /**
+     *
+     * @return A bitmask of the held dices, bit j set if dice j is held.
+     */
+    public int getHolds() {
+        return holds;
+    }
+
+    public int getThrowCounter() {
+        return throwCounter;
+    }
+
+    public int getRoundCounter() {
+        return roundCounter;
+    }
+
+    public int getScoreTotal() {
+        return scoreTotal;
+    }
+
+    /**
+     *
+     * @return The bitmask of unused score choices, bit i set if score choice index i is unused.
+     */
+    public int getRemainingChoices() {
+        return remainingChoices;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public String toString() {
+        return "GameSnapshot{session=" + sessionId + ", accepted=" + accepted + ", dices=" + Arrays.toString(diceValues)
+                + ", holds=" + Integer.toBinaryString(holds) + ", throw=" + throwCounter + ", round=" + roundCounter
+                + ", scoreTotal=" + scoreTotal + ", gameOver=" + gameOver + "}";
+    }
+}
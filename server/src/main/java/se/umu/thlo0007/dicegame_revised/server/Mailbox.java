@@ -0,0 +1,81 @@
+package se.umu.thlo0007.dicegame_revised.server;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class runs the messages of one actor, such as a {@link GameSession}, one at a time and in the order they were sent,
+ * on a shared executor.
+ *
+ * A mailbox only occupies a thread of the executor while it has messages, so thousands of mailboxes can share a few threads,
+ * and a waiting actor costs no thread at all. At most {@link Mailbox#MESSAGES_PER_RUN} messages are run before the thread
+ * is given back to the executor, so a busy actor does not starve the others.
+ *
+ * @author Thim Lohse
+ */
+public class Mailbox implements Executor {
+
+    public static final int MESSAGES_PER_RUN = 64;
+
+    private final Executor executor;
+    private final ConcurrentLinkedQueue<Runnable> messages;
+    private final AtomicBoolean scheduled;
+    private final Runnable drain;
+
+    /**
+     *
+     * @param executor The executor shared by all mailboxes.
+     */
+    public Mailbox(Executor executor) {
+        this.executor = executor;
+        this.messages = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+        this.drain = new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        };
+    }
+
+    /**
+     * Sends a message to the actor. Can be called from any thread.
+     *
+     * @param message The message to run.
+     */
+    @Override
+    public void execute(Runnable message) {
+        messages.add(message);
+        schedule();
+    }
+
+    private void schedule()
+    {
+        if(!messages.isEmpty() && scheduled.compareAndSet(false, true))
+        {
+            executor.execute(drain);
+        }
+    }
+
+    private void drain()
+    {
+        try
+        {
+            for(int i = 0; i < MESSAGES_PER_RUN; i++)
+            {
+                Runnable message = messages.poll();
+                if(message == null)
+                {
+                    break;
+                }
+                message.run();
+            }
+        }
+        finally
+        {
+            scheduled.set(false);
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package se.umu.thlo0007.dicegame_revised.server;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import se.umu.thlo0007.dicegame_revised.engine.GameState;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.Scorer;
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
+
+/**
+ * This class plays a {@link GameSession} to the end without blocking a thread, like a player connected to the server:
+ * it never holds any dices, throws all three times, and uses the unused score choice giving the highest score.
+ * Each command is sent when the snapshot of the previous one arrives.
+ *
+ * @author Thim Lohse
+ */
+class SessionPlayer implements Function<GameSnapshot, CompletableFuture<GameSnapshot>> {
+
+    private final GameSession session;
+    private final Scorer scorer;
+    private final ArrayList<Integer> diceValues;
+    private final int[] scores;
+
+    private SessionPlayer(GameSession session) {
+        this.session = session;
+        this.scorer = new Scorer();
+        this.diceValues = new ArrayList<>(ThirtyGame.NUM_DICES);
+        this.scores = new int[ScoreTable.NUM_SCORE_CHOICES];
+    }
+
+    /**
+     *
+     * @param session The session to play.
+     * @return The snapshot of the finished game.
+     */
+    static CompletableFuture<GameSnapshot> play(GameSession session)
+    {
+        SessionPlayer player = new SessionPlayer(session);
+        return session.getSnapshot().thenCompose(player);
+    }
+
+    @Override
+    public CompletableFuture<GameSnapshot> apply(GameSnapshot snapshot) {
+        if(snapshot.isGameOver())
+        {
+            return CompletableFuture.completedFuture(snapshot);
+        }
+        if(snapshot.getThrowCounter() < GameState.MAX_THROWS)
+        {
+            return session.throwDices().thenCompose(this);
+        }
+        return session.scoreRound(chooseScoreChoice(snapshot)).thenCompose(this);
+    }
+
+    private int chooseScoreChoice(GameSnapshot snapshot)
+    {
+        diceValues.clear();
+        for(int j = 0; j < ThirtyGame.NUM_DICES; j++)
+        {
+            diceValues.add(snapshot.getDiceValue(j));
+        }
+        scorer.getScores(diceValues, scores);
+        int bestChoice = -1;
+        for(int rest = snapshot.getRemainingChoices(); rest != 0; rest &= rest - 1)
+        {
+            int choice = Integer.numberOfTrailingZeros(rest);
+            if(bestChoice < 0 || scores[choice] > scores[bestChoice])
+            {
+                bestChoice = choice;
+            }
+        }
+        return bestChoice;
+    }
+}
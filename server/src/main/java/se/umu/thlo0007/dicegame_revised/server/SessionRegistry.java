@@ -0,0 +1,121 @@
+package se.umu.thlo0007.dicegame_revised.server;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import se.umu.thlo0007.dicegame_revised.engine.DiceRandom;
+
+/**
+ * This class holds the open {@link GameSession}s, keyed by session id, split over a number of independent stripes.
+ *
+ * A session id picks its stripe from its mixed bits, so sessions spread evenly. Lookups and registrations
+ * only touch one stripe, and idle sessions are expired one stripe at a time with conditional removals,
+ * so neither ever takes a lock over the whole registry.
+ *
+ * @author Thim Lohse
+ */
+public class SessionRegistry {
+
+    private final List<ConcurrentHashMap<Long, GameSession>> stripes;
+    private final int stripeMask;
+
+    /**
+     *
+     * @param numStripes The number of stripes, rounded up to a power of two.
+     */
+    public SessionRegistry(int numStripes) {
+        int size = 1;
+        while(size < numStripes)
+        {
+            size <<= 1;
+        }
+        this.stripes = new ArrayList<>(size);
+        for(int i = 0; i < size; i++)
+        {
+            stripes.add(new ConcurrentHashMap<Long, GameSession>());
+        }
+        this.stripeMask = size - 1;
+    }
+
+    private ConcurrentHashMap<Long, GameSession> getStripe(long sessionId)
+    {
+        return stripes.get((int) DiceRandom.mix(sessionId) & stripeMask);
+    }
+
+    void register(GameSession session)
+    {
+        if(getStripe(session.getId()).putIfAbsent(session.getId(), session) != null)
+        {
+            throw new IllegalStateException("Session " + session.getId() + " is already registered");
+        }
+    }
+
+    /**
+     *
+     * @param sessionId The id of the session.
+     * @return The open session, or null if there is no such session.
+     */
+    public GameSession get(long sessionId)
+    {
+        return getStripe(sessionId).get(sessionId);
+    }
+
+    /**
+     * Removes and closes a session.
+     *
+     * @param sessionId The id of the session.
+     * @return true if and only if, the session was open.
+     */
+    public boolean remove(long sessionId)
+    {
+        GameSession session = getStripe(sessionId).remove(sessionId);
+        if(session == null)
+        {
+            return false;
+        }
+        session.close();
+        return true;
+    }
+
+    /**
+     * Removes and closes every session that has not received a command for longer than the timeout.
+     *
+     * @param now The current time, from {@link System#nanoTime()}.
+     * @param timeoutNanos The longest time a session may go without commands.
+     * @return The number of expired sessions.
+     */
+    public int expireIdle(long now, long timeoutNanos)
+    {
+        int expired = 0;
+        for(ConcurrentHashMap<Long, GameSession> stripe : stripes)
+        {
+            Iterator<GameSession> sessions = stripe.values().iterator();
+            while(sessions.hasNext())
+            {
+                GameSession session = sessions.next();
+                if(session.isIdle(now, timeoutNanos) && stripe.remove(session.getId(), session))
+                {
+                    session.close();
+                    expired++;
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     *
+     * @return The number of open sessions. Not exact while sessions are added or removed.
+     */
+    public int size()
+    {
+        int size = 0;
+        for(ConcurrentHashMap<Long, GameSession> stripe : stripes)
+        {
+            size += stripe.size();
+        }
+        return size;
+    }
+}
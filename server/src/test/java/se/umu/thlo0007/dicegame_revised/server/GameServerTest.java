@@ -0,0 +1,194 @@
+package se.umu.thlo0007.dicegame_revised.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import se.umu.thlo0007.dicegame_revised.engine.GameArchive;
+import se.umu.thlo0007.dicegame_revised.engine.GameRecord;
+import se.umu.thlo0007.dicegame_revised.engine.GameState;
+import se.umu.thlo0007.dicegame_revised.engine.Leaderboard;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreStatistics;
+
+import static org.junit.Assert.*;
+
+public class GameServerTest {
+
+    private ForkJoinPool pool;
+    private ArrayList<GameServer> servers;
+
+    @Before
+    public void setUp() throws Exception {
+        // A command error is thrown on to the worker after its future is completed, the handler keeps it out of the test output.
+        pool = new ForkJoinPool(4, ForkJoinPool.defaultForkJoinWorkerThreadFactory, new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread t, Throwable e) {
+            }
+        }, false);
+        servers = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for(GameServer server : servers)
+        {
+            server.shutdown();
+        }
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * The server runs its sessions on the pool of the test, and is shut down after the test.
+     */
+    private GameServer newServer(int numStripes, long idleTimeoutMillis, long archiveCapacity)
+    {
+        GameServer server = new GameServer(pool, numStripes, idleTimeoutMillis, archiveCapacity);
+        servers.add(server);
+        return server;
+    }
+
+    @Test
+    public void concurrentSessionsPlayToTheEnd() throws Exception {
+        GameServer server = newServer(16, GameServer.DEFAULT_IDLE_TIMEOUT_MILLIS, 1 << 16);
+        ArrayList<GameSession> sessions = new ArrayList<>();
+        ArrayList<CompletableFuture<GameSnapshot>> games = new ArrayList<>();
+        for(int i = 0; i < 2000; i++)
+        {
+            sessions.add(server.openSession(i));
+            games.add(SessionPlayer.play(sessions.get(i)));
+        }
+        assertEquals(2000, server.getNumSessions());
+        long scoreTotals = 0;
+        int bestScoreTotal = 0;
+        for(CompletableFuture<GameSnapshot> game : games)
+        {
+            GameSnapshot snapshot = game.join();
+            assertTrue(snapshot.isGameOver());
+            assertEquals(0, snapshot.getRemainingChoices());
+            assertEquals(GameState.MAX_ROUNDS, snapshot.getRoundCounter());
+            scoreTotals += snapshot.getScoreTotal();
+            bestScoreTotal = Math.max(bestScoreTotal, snapshot.getScoreTotal());
+        }
+        // The finished games are submitted after the last round, so a later command waits for them.
+        for(GameSession session : sessions)
+        {
+            session.getSnapshot().join();
+        }
+
+        assertEquals(bestScoreTotal, server.getLeaderboard().getTopEntries().get(0).getScoreTotal());
+        assertEquals(2000, server.getLeaderboard().getNumScores());
+        GameArchive.View view = server.getArchive().newView();
+        long archivedScoreTotals = 0;
+        while(view.next())
+        {
+            archivedScoreTotals += view.getScoreTotal();
+            assertEquals(GameState.MAX_THROWS, view.getThrowsMade(0));
+        }
+        assertEquals(2000, server.getArchive().getNumGames());
+        assertEquals(scoreTotals, archivedScoreTotals);
+    }
+
+    @Test
+    public void commandsOfOneSessionRunInOrder() throws Exception {
+        GameServer server = newServer(16, GameServer.DEFAULT_IDLE_TIMEOUT_MILLIS, 1 << 16);
+        GameSession session = server.openSession(30);
+        CompletableFuture<GameSnapshot> first = session.throwDices();
+        CompletableFuture<GameSnapshot> hold = session.toggleHold(2);
+        CompletableFuture<GameSnapshot> second = session.throwDices();
+        CompletableFuture<GameSnapshot> score = session.scoreRound(0);
+        assertEquals(1, first.join().getThrowCounter());
+        assertEquals(1 << 2, hold.join().getHolds());
+        assertEquals(first.join().getDiceValue(2), second.join().getDiceValue(2));
+        assertTrue(score.join().isAccepted());
+        assertEquals(2, score.join().getRoundCounter());
+        assertFalse(session.scoreRound(0).join().isAccepted());
+    }
+
+    @Test
+    public void errorInACommandCompletesItsFuture() throws Exception {
+        ScoreStatistics failingStatistics = new ScoreStatistics() {
+            @Override
+            public void onRoundScored(int scoreChoiceIndex, int score, int throwsUsed) {
+                throw new AssertionError("Statistics failed");
+            }
+        };
+        GameSession session = new GameSession(1, 30, pool, new Leaderboard(10), failingStatistics, new GameArchive(16));
+        session.throwDices();
+        try
+        {
+            session.scoreRound(0).get(10, TimeUnit.SECONDS);
+            fail("A failed command completed normally");
+        }
+        catch(ExecutionException e)
+        {
+            assertTrue(e.getCause() instanceof AssertionError);
+        }
+        // The mailbox keeps running the commands of the session.
+        assertNotNull(session.getSnapshot().get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void archiveFailureDoesNotFailTheLastRound() throws Exception {
+        GameArchive fullArchive = new GameArchive(16) {
+            @Override
+            public long append(GameRecord record) {
+                throw new OutOfMemoryError("Direct buffer memory");
+            }
+        };
+        Leaderboard leaderboard = new Leaderboard(10);
+        GameSession session = new GameSession(1, 30, pool, leaderboard, new ScoreStatistics(), fullArchive);
+        GameSnapshot last = SessionPlayer.play(session).get(10, TimeUnit.SECONDS);
+        assertTrue(last.isAccepted());
+        assertTrue(last.isGameOver());
+        session.getSnapshot().get(10, TimeUnit.SECONDS);
+        assertEquals(1, leaderboard.getNumScores());
+    }
+
+    @Test
+    public void archiveKeepsAtMostItsCapacity() throws Exception {
+        GameServer server = newServer(4, GameServer.DEFAULT_IDLE_TIMEOUT_MILLIS, 10);
+        ArrayList<GameSession> sessions = new ArrayList<>();
+        for(int i = 0; i < 20; i++)
+        {
+            sessions.add(server.openSession(i));
+            assertTrue(SessionPlayer.play(sessions.get(i)).join().isGameOver());
+            sessions.get(i).getSnapshot().join();
+        }
+        assertEquals(10, server.getArchive().getNumGames());
+        assertEquals(20, server.getLeaderboard().getNumScores());
+
+        long defaultCapacity = GameServer.getDefaultArchiveCapacity();
+        assertTrue(defaultCapacity > 0);
+        assertEquals(0, defaultCapacity % GameArchive.RECORDS_PER_CHUNK);
+    }
+
+    @Test
+    public void idleSessionsExpire() throws Exception {
+        GameServer server = newServer(4, 500, 16);
+        GameSession idle = server.openSession(1);
+        server.expireIdleSessions();
+        assertEquals(1, server.getNumSessions());
+        // The background sweep may or may not have expired the session by now, the direct call makes sure it has.
+        Thread.sleep(600);
+        server.expireIdleSessions();
+        assertNull(server.getSession(idle.getId()));
+        assertTrue(idle.isClosed());
+        try
+        {
+            idle.throwDices().join();
+            fail("A closed session accepted a command");
+        }
+        catch(CompletionException e)
+        {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
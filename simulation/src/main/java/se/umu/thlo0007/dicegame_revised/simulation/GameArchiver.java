@@ -0,0 +1,103 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import java.io.File;
+import java.io.IOException;
+
+import se.umu.thlo0007.dicegame_revised.engine.DiceRandom;
+import se.umu.thlo0007.dicegame_revised.engine.GameRecord;
+import se.umu.thlo0007.dicegame_revised.engine.GameRecordReader;
+import se.umu.thlo0007.dicegame_revised.engine.GameRecordWriter;
+import se.umu.thlo0007.dicegame_revised.engine.GameState;
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
+
+/**
+ * This class archives simulated games as {@link GameRecord}s, and replays archived games.
+ *
+ * @author Thim Lohse
+ */
+public class GameArchiver {
+
+    private GameArchiver() {
+    }
+
+    /**
+     * Plays games with a strategy and appends their records to a file.
+     *
+     * @param file The file to append to.
+     * @param strategy The strategy playing the games.
+     * @param numGames The number of games to play.
+     * @param seed The seed of the random generator throwing the dices of all games.
+     * @return The result of the games.
+     */
+    public static SimulationResult archive(File file, Strategy strategy, long numGames, long seed) throws IOException
+    {
+        DiceRandom random = new DiceRandom(seed);
+        GameRecord record = new GameRecord();
+        SimulationResult result = new SimulationResult();
+        try(GameRecordWriter writer = new GameRecordWriter(file))
+        {
+            for(long i = 0; i < numGames; i++)
+            {
+                record.reset(random.getState());
+                Simulator.playGame(new ThirtyGame(random), strategy, result, record);
+                writer.write(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Plays a recorded game again, throwing the same dices and making the same choices.
+     *
+     * @param record A complete game record.
+     * @return The replayed game, which is over.
+     */
+    public static ThirtyGame replay(GameRecord record)
+    {
+        ThirtyGame game = new ThirtyGame(new DiceRandom(record.getSeed()));
+        for(int i = 0; i < GameState.MAX_ROUNDS; i++)
+        {
+            long round = record.getRound(i);
+            game.throwDices();
+            for(int throwNumber = 2; throwNumber <= GameRecord.getThrowsMade(round); throwNumber++)
+            {
+                Simulator.applyHolds(game, GameRecord.getHolds(round, throwNumber));
+                game.throwDices();
+            }
+            game.scoreRound(GameRecord.getScoreChoice(round));
+        }
+        return game;
+    }
+
+    /**
+     * Archives games played with the {@link HighestScoreStrategy}, then scans the archive and prints the throughput.
+     *
+     * @param args The file, the number of games, and optionally the seed.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        File file = new File(args.length > 0 ? args[0] : "games.bin");
+        long numGames = args.length > 1 ? Long.parseLong(args[1]) : 1000000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        long start = System.nanoTime();
+        archive(file, new HighestScoreStrategy(), numGames, seed);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        System.out.println("Archived " + numGames + " games in " + elapsedMillis + " ms (seed " + seed + ")");
+
+        start = System.nanoTime();
+        long scoreTotals = 0;
+        long numRecords;
+        try(GameRecordReader reader = new GameRecordReader(file))
+        {
+            numRecords = reader.getNumRecords();
+            while(reader.next())
+            {
+                scoreTotals += reader.getScoreTotal();
+            }
+        }
+        elapsedMillis = (System.nanoTime() - start) / 1000000;
+        System.out.printf("Scanned %d games (%d MB) in %d ms, mean score total %.2f%n", numRecords,
+                numRecords * GameRecord.RECORD_SIZE >> 20, elapsedMillis, (double) scoreTotals / numRecords);
+    }
+}
@@ -0,0 +1,22 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import java.util.ArrayList;
+
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+
+/**
+ * This interface is a scoring engine under verification, see {@link ScoringVerifier}.
+ * A hand scorer is used by one thread at a time, so implementations may keep reusable working memory.
+ *
+ * @author Thim Lohse
+ */
+public interface HandScorer {
+
+    /**
+     *
+     * @param diceValues The values of the dices of a hand.
+     * @param scoreChoiceIndex The index of the score choice, see {@link ScoreTable#getScoreChoiceIndex(String)}.
+     * @return The score of the hand for the score choice.
+     */
+    int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex);
+}
@@ -0,0 +1,36 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.Scorer;
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
+
+/**
+ * A simple baseline strategy: never hold any dices, throw all three times,
+ * and use the unused score choice giving the highest score for the final dices.
+ *
+ * @author Thim Lohse
+ */
+public class HighestScoreStrategy implements Strategy {
+
+    private final Scorer scorer = new Scorer();
+    private final int[] scores = new int[ScoreTable.NUM_SCORE_CHOICES];
+
+    @Override
+    public int chooseHolds(ThirtyGame game) {
+        return 0;
+    }
+
+    @Override
+    public int chooseScoreChoice(ThirtyGame game) {
+        scorer.getScores(game.getDiceValues(), scores);
+        int bestChoice = -1;
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            if(!game.isScoreChoiceUsed(choice) && (bestChoice < 0 || scores[choice] > scores[bestChoice]))
+            {
+                bestChoice = choice;
+            }
+        }
+        return bestChoice;
+    }
+}
@@ -0,0 +1,56 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import java.util.ArrayList;
+
+import se.umu.thlo0007.dicegame_revised.engine.HandSpace;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
+
+/**
+ * This strategy plays the policy of an {@link OptimalStrategySolver}, maximizing the expected score total.
+ *
+ * @author Thim Lohse
+ */
+public class OptimalStrategy implements Strategy {
+
+    private final OptimalStrategySolver solver;
+
+    public OptimalStrategy(OptimalStrategySolver solver) {
+        this.solver = solver;
+    }
+
+    @Override
+    public int chooseHolds(ThirtyGame game) {
+        ArrayList<Integer> diceValues = game.getDiceValues();
+        int hand = HandSpace.getHand(diceValues);
+        int keep = solver.getBestKeep(getRemainingChoices(game), game.getState().getThrowCounter(), hand);
+        if(keep == HandSpace.FIRST_HAND_KEEP + hand)
+        {
+            return HOLD_ALL;
+        }
+        return HandSpace.getHolds(diceValues, keep);
+    }
+
+    @Override
+    public int chooseScoreChoice(ThirtyGame game) {
+        return solver.getBestScoreChoice(getRemainingChoices(game), HandSpace.getHand(game.getDiceValues()));
+    }
+
+    /**
+     *
+     * @param game The game being played.
+     * @return The bitmask of unused score choices, bit i set if score choice index i is unused.
+     */
+    public static int getRemainingChoices(ThirtyGame game)
+    {
+        int remainingChoices = 0;
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            if(!game.isScoreChoiceUsed(choice))
+            {
+                remainingChoices |= 1 << choice;
+            }
+        }
+        return remainingChoices;
+    }
+}
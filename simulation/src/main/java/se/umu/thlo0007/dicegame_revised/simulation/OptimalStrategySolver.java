@@ -0,0 +1,252 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+import se.umu.thlo0007.dicegame_revised.engine.HandSpace;
+import se.umu.thlo0007.dicegame_revised.engine.RoundEvaluator;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+
+/**
+ * This class solves the whole game of Thirty for the policy maximizing the expected score total.
+ *
+ * A state between rounds is the set of unused score choices, as a 10-bit mask. Within a round the state is also the
+ * number of throws made and the sorted hand. The expected value of the rest of the game is calculated backwards:
+ * the value of ending a round with a hand is the best unused score choice, counting both its score and the expected value
+ * of the game after it. A {@link RoundEvaluator} then gives the value of every keep and hand earlier in the round.
+ *
+ * The masks are solved in layers by their number of unused score choices, as each layer only depends on the one below.
+ * The masks of a layer are solved in parallel. Per mask, only the round start value and the keep values before throw 2 and 3
+ * are stored, as floats, which is all a policy needs. The full table takes about 8 MB.
+ *
+ * @author Thim Lohse
+ */
+public class OptimalStrategySolver {
+
+    public static final int NUM_MASKS = 1 << ScoreTable.NUM_SCORE_CHOICES;
+    public static final int ALL_SCORE_CHOICES = NUM_MASKS - 1;
+
+    private static final int MASKS_PER_TASK = 8;
+    private static final int STORED_THROWS = 2;
+
+    private final double[] roundStartValues;
+    private final float[] keepValues;
+
+    private OptimalStrategySolver() {
+        this.roundStartValues = new double[NUM_MASKS];
+        this.keepValues = new float[NUM_MASKS * STORED_THROWS * HandSpace.NUM_KEEPS];
+    }
+
+    /**
+     * Solves the game.
+     *
+     * @param pool The pool solving the masks of each layer in parallel.
+     * @return The solved policy.
+     */
+    public static OptimalStrategySolver solve(ForkJoinPool pool)
+    {
+        OptimalStrategySolver solver = new OptimalStrategySolver();
+        for(int layer = 1; layer <= ScoreTable.NUM_SCORE_CHOICES; layer++)
+        {
+            int[] masks = new int[numMasksWithBitCount(layer)];
+            int numMasks = 0;
+            for(int mask = 1; mask < NUM_MASKS; mask++)
+            {
+                if(Integer.bitCount(mask) == layer)
+                {
+                    masks[numMasks++] = mask;
+                }
+            }
+            pool.invoke(solver.new LayerTask(masks, 0, numMasks));
+        }
+        return solver;
+    }
+
+    private static int numMasksWithBitCount(int bitCount)
+    {
+        int count = 0;
+        for(int mask = 0; mask < NUM_MASKS; mask++)
+        {
+            if(Integer.bitCount(mask) == bitCount)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Solves one mask, using the values of the masks with one score choice less.
+     */
+    private void solveMask(int mask, RoundEvaluator evaluator, double[] finalHandValues)
+    {
+        for(int hand = 0; hand < HandSpace.NUM_HANDS; hand++)
+        {
+            finalHandValues[hand] = getFinalValue(mask, hand);
+        }
+        evaluator.evaluate(finalHandValues);
+        roundStartValues[mask] = evaluator.getRoundStartValue();
+        for(int throwNumber = 2; throwNumber <= 3; throwNumber++)
+        {
+            int offset = getKeepOffset(mask, throwNumber);
+            for(int keep = 0; keep < HandSpace.NUM_KEEPS; keep++)
+            {
+                keepValues[offset + keep] = (float) evaluator.getKeepValue(throwNumber, keep);
+            }
+        }
+    }
+
+    private static int getKeepOffset(int mask, int throwNumber)
+    {
+        return (mask * STORED_THROWS + throwNumber - 2) * HandSpace.NUM_KEEPS;
+    }
+
+    /**
+     *
+     * @param remainingChoices The bitmask of unused score choices, bit i set if score choice index i is unused.
+     * @return The expected score of the rest of the game before the first throw of a round, playing optimally.
+     */
+    public double getExpectedScore(int remainingChoices)
+    {
+        return roundStartValues[remainingChoices];
+    }
+
+    /**
+     *
+     * @return The expected value of the rest of the game for every mask of unused score choices. The array must not be modified.
+     */
+    public double[] getRoundStartValues()
+    {
+        return roundStartValues;
+    }
+
+    /**
+     *
+     * @param remainingChoices The bitmask of unused score choices.
+     * @param hand The index of the final hand of the round.
+     * @return The expected score of the rest of the game when scoring the hand with the best unused score choice.
+     */
+    public double getFinalValue(int remainingChoices, int hand)
+    {
+        return getFinalValue(remainingChoices, hand, getBestScoreChoice(remainingChoices, hand));
+    }
+
+    private double getFinalValue(int remainingChoices, int hand, int scoreChoice)
+    {
+        return HandSpace.getScore(hand, scoreChoice) + roundStartValues[remainingChoices & ~(1 << scoreChoice)];
+    }
+
+    /**
+     *
+     * @param remainingChoices The bitmask of unused score choices.
+     * @param hand The index of the final hand of the round.
+     * @return The unused score choice maximizing the round score plus the expected value of the rest of the game.
+     */
+    public int getBestScoreChoice(int remainingChoices, int hand)
+    {
+        int bestChoice = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for(int rest = remainingChoices; rest != 0; rest &= rest - 1)
+        {
+            int choice = Integer.numberOfTrailingZeros(rest);
+            double value = getFinalValue(remainingChoices, hand, choice);
+            if(value > bestValue)
+            {
+                bestValue = value;
+                bestChoice = choice;
+            }
+        }
+        return bestChoice;
+    }
+
+    /**
+     *
+     * @param remainingChoices The bitmask of unused score choices.
+     * @param throwNumber The number of the next throw, 2 or 3.
+     * @param keep The index of the keep held during the throw.
+     * @return The expected score of the rest of the game when the dices outside the keep are thrown.
+     */
+    public float getKeepValue(int remainingChoices, int throwNumber, int keep)
+    {
+        return keepValues[getKeepOffset(remainingChoices, throwNumber) + keep];
+    }
+
+    /**
+     *
+     * @param remainingChoices The bitmask of unused score choices.
+     * @param throwsMade The number of throws made this round, 1 or 2.
+     * @param hand The index of the current hand.
+     * @return The index of the keep with the highest expected value. Ties keep the most dices.
+     */
+    public int getBestKeep(int remainingChoices, int throwsMade, int hand)
+    {
+        int offset = getKeepOffset(remainingChoices, throwsMade + 1);
+        int[] subKeeps = HandSpace.getSubKeeps(hand);
+        int bestKeep = subKeeps[subKeeps.length - 1];
+        for(int i = 0; i < subKeeps.length; i++)
+        {
+            if(keepValues[offset + subKeeps[i]] > keepValues[offset + bestKeep])
+            {
+                bestKeep = subKeeps[i];
+            }
+        }
+        return bestKeep;
+    }
+
+    /**
+     * Solves a range of the masks of a layer, splitting it until it is small enough for one worker.
+     */
+    @SuppressWarnings("serial")
+    private class LayerTask extends RecursiveAction
+    {
+        private final int[] masks;
+        private final int from;
+        private final int to;
+
+        LayerTask(int[] masks, int from, int to) {
+            this.masks = masks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= MASKS_PER_TASK)
+            {
+                RoundEvaluator evaluator = new RoundEvaluator();
+                double[] finalHandValues = new double[HandSpace.NUM_HANDS];
+                for(int i = from; i < to; i++)
+                {
+                    solveMask(masks[i], evaluator, finalHandValues);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LayerTask(masks, from, middle), new LayerTask(masks, middle, to));
+        }
+    }
+
+    /**
+     * Solves the game, prints the expected optimal score, and checks it with a simulation of the {@link OptimalStrategy}.
+     *
+     * @param args Optionally the number of games to simulate.
+     */
+    public static void main(String[] args)
+    {
+        long numGames = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+
+        long start = System.nanoTime();
+        final OptimalStrategySolver solver = solve(ForkJoinPool.commonPool());
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        System.out.printf("Solved in %d ms, expected score total %.3f%n", elapsedMillis, solver.getExpectedScore(ALL_SCORE_CHOICES));
+
+        SimulationResult result = new Simulator(new Supplier<Strategy>() {
+            @Override
+            public Strategy get() {
+                return new OptimalStrategy(solver);
+            }
+        }).run(numGames, System.nanoTime());
+        System.out.printf("Simulated %d games, mean %.3f, variance %.2f%n", result.getNumGames(), result.getMean(), result.getVariance());
+    }
+}
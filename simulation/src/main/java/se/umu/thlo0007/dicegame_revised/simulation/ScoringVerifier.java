@@ -0,0 +1,353 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+import se.umu.thlo0007.dicegame_revised.engine.GameRules;
+import se.umu.thlo0007.dicegame_revised.engine.MultisetScorer;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.Scorer;
+
+/**
+ * This class verifies that scoring engines agree with a reference engine on every ordered hand of six dices
+ * and every score choice, 466560 scores per engine.
+ *
+ * Each engine scores all hands in one pass over a fork-join pool. The hands are split into blocks of
+ * {@link ScoringVerifier#HANDS_PER_TASK} hands, and each block is scored by one worker with its own {@link HandScorer}
+ * into its own part of a shared array, so the workers share nothing else. The wall-clock time of every pass is recorded,
+ * and the scores of every engine are then compared with the scores of the reference engine.
+ *
+ * @author Thim Lohse
+ */
+public class ScoringVerifier {
+
+    /**
+     * The number of ordered hands of six 6-sided dices, 6^6.
+     */
+    public static final int NUM_HANDS = 46656;
+    public static final int HANDS_PER_TASK = 512;
+
+    private final ForkJoinPool pool;
+
+    /**
+     *
+     * @param pool The pool scoring the hands.
+     */
+    public ScoringVerifier(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     *
+     * @param hand The index of the hand, between 0 and {@link ScoringVerifier#NUM_HANDS} - 1.
+     * @param diceValues The list receiving the dice values of the hand, with the value of dice j as digit j of the index in base 6.
+     */
+    public static void getDiceValues(int hand, ArrayList<Integer> diceValues)
+    {
+        diceValues.clear();
+        for(int j = 0; j < ScoreTable.NUM_DICES; j++)
+        {
+            diceValues.add(hand % ScoreTable.NUM_FACES + 1);
+            hand /= ScoreTable.NUM_FACES;
+        }
+    }
+
+    /**
+     * Scores every hand for every score choice.
+     *
+     * @param scorerFactory Creates the hand scorer used by each block of hands.
+     * @return The scores, the score of hand h for score choice c at index h * {@link ScoreTable#NUM_SCORE_CHOICES} + c.
+     */
+    public int[] scoreAllHands(Supplier<? extends HandScorer> scorerFactory)
+    {
+        int[] scores = new int[NUM_HANDS * ScoreTable.NUM_SCORE_CHOICES];
+        pool.invoke(new HandsTask(scorerFactory, scores, 0, NUM_HANDS));
+        return scores;
+    }
+
+    /**
+     * Scores every hand with the reference engine and with each of the other engines, and compares the scores.
+     *
+     * @param reference The name and factory of the reference engine.
+     * @param engines The names and factories of the engines verified against the reference.
+     * @return The report of every mismatch and the time of every engine.
+     */
+    public Report verify(Map.Entry<String, ? extends Supplier<? extends HandScorer>> reference,
+                         Map<String, ? extends Supplier<? extends HandScorer>> engines)
+    {
+        Report report = new Report(reference.getKey());
+        long start = System.nanoTime();
+        int[] expected = scoreAllHands(reference.getValue());
+        report.elapsedNanos.put(reference.getKey(), System.nanoTime() - start);
+
+        ArrayList<Integer> diceValues = new ArrayList<>(ScoreTable.NUM_DICES);
+        for(Map.Entry<String, ? extends Supplier<? extends HandScorer>> engine : engines.entrySet())
+        {
+            start = System.nanoTime();
+            int[] actual = scoreAllHands(engine.getValue());
+            report.elapsedNanos.put(engine.getKey(), System.nanoTime() - start);
+
+            for(int i = 0; i < expected.length; i++)
+            {
+                if(actual[i] != expected[i])
+                {
+                    int hand = i / ScoreTable.NUM_SCORE_CHOICES;
+                    getDiceValues(hand, diceValues);
+                    report.mismatches.add(new Mismatch(engine.getKey(), diceValues, i % ScoreTable.NUM_SCORE_CHOICES,
+                            expected[i], actual[i]));
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     *
+     * @return The engines of the engine module, by name: the original {@link Scorer#Calculate(ArrayList, String)} first,
+     * followed by the greedy power set, the greedy distinct subsets, the partition dynamic programming, the score table
+     * and the multiset scorer.
+     */
+    public static LinkedHashMap<String, Supplier<HandScorer>> getEngines()
+    {
+        LinkedHashMap<String, Supplier<HandScorer>> engines = new LinkedHashMap<>();
+        engines.put("calculate", new Supplier<HandScorer>() {
+            @Override
+            public HandScorer get() {
+                final Scorer scorer = new Scorer();
+                return new HandScorer() {
+                    @Override
+                    public int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex) {
+                        return scorer.Calculate(diceValues, ScoreTable.getScoreChoice(scoreChoiceIndex));
+                    }
+                };
+            }
+        });
+        engines.put("greedy", new Supplier<HandScorer>() {
+            @Override
+            public HandScorer get() {
+                final Scorer scorer = new Scorer();
+                return new HandScorer() {
+                    @Override
+                    public int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex) {
+                        return scorer.CalculateGreedy(diceValues, ScoreTable.getScoreChoice(scoreChoiceIndex));
+                    }
+                };
+            }
+        });
+        engines.put("distinct", new Supplier<HandScorer>() {
+            @Override
+            public HandScorer get() {
+                final Scorer scorer = new Scorer();
+                return new HandScorer() {
+                    @Override
+                    public int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex) {
+                        return scorer.CalculateDistinct(diceValues, ScoreTable.getScoreChoice(scoreChoiceIndex));
+                    }
+                };
+            }
+        });
+        engines.put("partition", new Supplier<HandScorer>() {
+            @Override
+            public HandScorer get() {
+                final Scorer scorer = new Scorer();
+                return new HandScorer() {
+                    @Override
+                    public int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex) {
+                        return scorer.CalculateOptimal(diceValues, ScoreTable.getScoreChoice(scoreChoiceIndex));
+                    }
+                };
+            }
+        });
+        engines.put("table", new Supplier<HandScorer>() {
+            @Override
+            public HandScorer get() {
+                return new HandScorer() {
+                    @Override
+                    public int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex) {
+                        return ScoreTable.getScore(diceValues, scoreChoiceIndex);
+                    }
+                };
+            }
+        });
+        engines.put("multiset", new Supplier<HandScorer>() {
+            @Override
+            public HandScorer get() {
+                final MultisetScorer scorer = new MultisetScorer(GameRules.THIRTY);
+                return new HandScorer() {
+                    @Override
+                    public int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex) {
+                        return scorer.getScore(diceValues, scoreChoiceIndex);
+                    }
+                };
+            }
+        });
+        return engines;
+    }
+
+    /**
+     * Splits a range of hands in halves until it is small enough to be scored by one worker.
+     */
+    @SuppressWarnings("serial")
+    private static class HandsTask extends RecursiveAction
+    {
+        private final Supplier<? extends HandScorer> scorerFactory;
+        private final int[] scores;
+        private final int firstHand;
+        private final int numHands;
+
+        HandsTask(Supplier<? extends HandScorer> scorerFactory, int[] scores, int firstHand, int numHands) {
+            this.scorerFactory = scorerFactory;
+            this.scores = scores;
+            this.firstHand = firstHand;
+            this.numHands = numHands;
+        }
+
+        @Override
+        protected void compute() {
+            if(numHands <= HANDS_PER_TASK)
+            {
+                HandScorer scorer = scorerFactory.get();
+                ArrayList<Integer> diceValues = new ArrayList<>(ScoreTable.NUM_DICES);
+                for(int hand = firstHand; hand < firstHand + numHands; hand++)
+                {
+                    getDiceValues(hand, diceValues);
+                    for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+                    {
+                        scores[hand * ScoreTable.NUM_SCORE_CHOICES + choice] = scorer.getScore(diceValues, choice);
+                    }
+                }
+                return;
+            }
+            int firstHalf = numHands / 2;
+            invokeAll(new HandsTask(scorerFactory, scores, firstHand, firstHalf),
+                    new HandsTask(scorerFactory, scores, firstHand + firstHalf, numHands - firstHalf));
+        }
+    }
+
+    /**
+     * A score of an engine that differs from the score of the reference engine.
+     */
+    public static final class Mismatch
+    {
+        private final String engine;
+        private final int[] diceValues;
+        private final int scoreChoiceIndex;
+        private final int expectedScore;
+        private final int actualScore;
+
+        Mismatch(String engine, ArrayList<Integer> diceValues, int scoreChoiceIndex, int expectedScore, int actualScore) {
+            this.engine = engine;
+            this.diceValues = new int[diceValues.size()];
+            for(int j = 0; j < this.diceValues.length; j++)
+            {
+                this.diceValues[j] = diceValues.get(j);
+            }
+            this.scoreChoiceIndex = scoreChoiceIndex;
+            this.expectedScore = expectedScore;
+            this.actualScore = actualScore;
+        }
+
+        public String getEngine() {
+            return engine;
+        }
+
+        public int[] getDiceValues() {
+            return diceValues.clone();
+        }
+
+        public int getScoreChoiceIndex() {
+            return scoreChoiceIndex;
+        }
+
+        /**
+         *
+         * @return The score of the reference engine.
+         */
+        public int getExpectedScore() {
+            return expectedScore;
+        }
+
+        /**
+         *
+         * @return The score of the verified engine.
+         */
+        public int getActualScore() {
+            return actualScore;
+        }
+
+        @Override
+        public String toString() {
+            return engine + ": " + Arrays.toString(diceValues) + " " + ScoreTable.getScoreChoice(scoreChoiceIndex)
+                    + " scored " + actualScore + ", expected " + expectedScore;
+        }
+    }
+
+    /**
+     * The mismatches of all engines, in the order of the engines and hands, and the wall-clock time of every engine.
+     */
+    public static final class Report
+    {
+        private final String reference;
+        private final List<Mismatch> mismatches;
+        private final LinkedHashMap<String, Long> elapsedNanos;
+
+        Report(String reference) {
+            this.reference = reference;
+            this.mismatches = new ArrayList<>();
+            this.elapsedNanos = new LinkedHashMap<>();
+        }
+
+        public String getReference() {
+            return reference;
+        }
+
+        public List<Mismatch> getMismatches() {
+            return mismatches;
+        }
+
+        /**
+         *
+         * @return The wall-clock time of scoring every hand, by engine, the reference engine first.
+         */
+        public Map<String, Long> getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /**
+     * Verifies every engine of the engine module against {@link Scorer#Calculate(ArrayList, String)}, prints every mismatch
+     * and the time of every engine, and exits with status 1 if any engine disagrees, so it can gate a build.
+     *
+     * @param args Optionally the number of worker threads, all cores by default.
+     */
+    public static void main(String[] args)
+    {
+        ForkJoinPool pool = args.length > 0 ? new ForkJoinPool(Integer.parseInt(args[0])) : ForkJoinPool.commonPool();
+        LinkedHashMap<String, Supplier<HandScorer>> engines = getEngines();
+        String referenceName = engines.keySet().iterator().next();
+        Map.Entry<String, Supplier<HandScorer>> reference = new AbstractMap.SimpleEntry<>(referenceName, engines.remove(referenceName));
+
+        Report report = new ScoringVerifier(pool).verify(reference, engines);
+        for(Mismatch mismatch : report.getMismatches())
+        {
+            System.out.println(mismatch);
+        }
+        for(Map.Entry<String, Long> elapsed : report.getElapsedNanos().entrySet())
+        {
+            System.out.printf("%10s: %d ms%n", elapsed.getKey(), elapsed.getValue() / 1000000);
+        }
+        System.out.println(report.getMismatches().size() + " mismatches against " + report.getReference()
+                + " on " + NUM_HANDS + " hands with " + pool.getParallelism() + " workers");
+        if(!report.getMismatches().isEmpty())
+        {
+            System.exit(1);
+        }
+    }
+}
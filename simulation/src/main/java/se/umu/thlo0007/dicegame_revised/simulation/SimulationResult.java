@@ -0,0 +1,130 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import se.umu.thlo0007.dicegame_revised.engine.GameState;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+
+/**
+ * This class aggregates the outcome of simulated games: the number of games, the mean and variance of the final score total,
+ * and histograms of the final score total and of the score of each score choice.
+ * A result is filled by a single thread, and results from different threads are combined with {@link SimulationResult#merge(SimulationResult)}.
+ *
+ * @author Thim Lohse
+ */
+public class SimulationResult {
+
+    public static final int MAX_ROUND_SCORE = ScoreTable.MAX_ROUND_SCORE;
+    public static final int MAX_SCORE_TOTAL = MAX_ROUND_SCORE * GameState.MAX_ROUNDS;
+
+    private long numGames;
+    private long scoreTotalSum;
+    private long scoreTotalSquareSum;
+    private final long[] scoreTotalHistogram;
+    private final long[][] categoryHistograms;
+
+    public SimulationResult() {
+        this.scoreTotalHistogram = new long[MAX_SCORE_TOTAL + 1];
+        this.categoryHistograms = new long[ScoreTable.NUM_SCORE_CHOICES][MAX_ROUND_SCORE + 1];
+    }
+
+    /**
+     *
+     * @param scoreChoiceIndex The index of the score choice used for the round.
+     * @param score The score of the round.
+     */
+    public void addRound(int scoreChoiceIndex, int score)
+    {
+        categoryHistograms[scoreChoiceIndex][score]++;
+    }
+
+    /**
+     *
+     * @param scoreTotal The final score total of a game.
+     */
+    public void addGame(int scoreTotal)
+    {
+        numGames++;
+        scoreTotalSum += scoreTotal;
+        scoreTotalSquareSum += (long) scoreTotal * scoreTotal;
+        scoreTotalHistogram[scoreTotal]++;
+    }
+
+    /**
+     * Adds all games of another result to this result.
+     *
+     * @param other The result to add.
+     * @return This result.
+     */
+    public SimulationResult merge(SimulationResult other)
+    {
+        numGames += other.numGames;
+        scoreTotalSum += other.scoreTotalSum;
+        scoreTotalSquareSum += other.scoreTotalSquareSum;
+        for(int i = 0; i < scoreTotalHistogram.length; i++)
+        {
+            scoreTotalHistogram[i] += other.scoreTotalHistogram[i];
+        }
+        for(int choice = 0; choice < categoryHistograms.length; choice++)
+        {
+            for(int score = 0; score <= MAX_ROUND_SCORE; score++)
+            {
+                categoryHistograms[choice][score] += other.categoryHistograms[choice][score];
+            }
+        }
+        return this;
+    }
+
+    public long getNumGames() {
+        return numGames;
+    }
+
+    public double getMean() {
+        return numGames == 0 ? 0 : (double) scoreTotalSum / numGames;
+    }
+
+    /**
+     *
+     * @return The sample variance of the final score total.
+     */
+    public double getVariance() {
+        if(numGames < 2)
+        {
+            return 0;
+        }
+        double mean = getMean();
+        return (scoreTotalSquareSum - numGames * mean * mean) / (numGames - 1);
+    }
+
+    /**
+     *
+     * @return The number of games for each final score total, indexed by the score total.
+     */
+    public long[] getScoreTotalHistogram() {
+        return scoreTotalHistogram;
+    }
+
+    /**
+     *
+     * @param scoreChoiceIndex The index of the score choice.
+     * @return The number of rounds for each score, indexed by the score.
+     */
+    public long[] getCategoryHistogram(int scoreChoiceIndex) {
+        return categoryHistograms[scoreChoiceIndex];
+    }
+
+    /**
+     *
+     * @param scoreChoiceIndex The index of the score choice.
+     * @return The mean score of the rounds scored with the score choice.
+     */
+    public double getCategoryMean(int scoreChoiceIndex) {
+        long rounds = 0;
+        long sum = 0;
+        long[] histogram = categoryHistograms[scoreChoiceIndex];
+        for(int score = 0; score < histogram.length; score++)
+        {
+            rounds += histogram[score];
+            sum += score * histogram[score];
+        }
+        return rounds == 0 ? 0 : (double) sum / rounds;
+    }
+}
@@ -0,0 +1,238 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import se.umu.thlo0007.dicegame_revised.engine.DiceRandom;
+import se.umu.thlo0007.dicegame_revised.engine.GameRecord;
+import se.umu.thlo0007.dicegame_revised.engine.GameState;
+import se.umu.thlo0007.dicegame_revised.engine.Leaderboard;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
+
+/**
+ * This class plays complete games of Thirty with a {@link Strategy}, spread over all cores with a fork-join pool.
+ *
+ * The games are split into blocks of {@link Simulator#GAMES_PER_TASK} games. Each block is played by one worker
+ * with its own {@link DiceRandom}, strategy and {@link SimulationResult}, and the results are merged when the tasks join.
+ * The random generator of a block is seeded from the simulation seed and the position of the block,
+ * so a simulation gives the same result regardless of how the blocks are scheduled.
+ * Every finished game can also be submitted to a shared {@link Leaderboard}, straight from the worker that played it.
+ *
+ * @author Thim Lohse
+ */
+public class Simulator {
+
+    public static final int GAMES_PER_TASK = 4096;
+
+    private final Supplier<? extends Strategy> strategyFactory;
+    private final ForkJoinPool pool;
+    private final Leaderboard leaderboard;
+
+    /**
+     *
+     * @param strategyFactory Creates the strategy used by each block of games.
+     * @param pool The pool running the games.
+     * @param leaderboard The leaderboard every finished game is submitted to, or null.
+     */
+    public Simulator(Supplier<? extends Strategy> strategyFactory, ForkJoinPool pool, Leaderboard leaderboard) {
+        this.strategyFactory = strategyFactory;
+        this.pool = pool;
+        this.leaderboard = leaderboard;
+    }
+
+    /**
+     *
+     * @param strategyFactory Creates the strategy used by each block of games.
+     * @param pool The pool running the games.
+     */
+    public Simulator(Supplier<? extends Strategy> strategyFactory, ForkJoinPool pool) {
+        this(strategyFactory, pool, null);
+    }
+
+    /**
+     *
+     * @param strategyFactory Creates the strategy used by each block of games.
+     */
+    public Simulator(Supplier<? extends Strategy> strategyFactory) {
+        this(strategyFactory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     *
+     * @param numGames The number of games to play.
+     * @param seed The seed of the simulation.
+     * @return The merged result of all games.
+     */
+    public SimulationResult run(long numGames, long seed)
+    {
+        return pool.invoke(new GamesTask(0, numGames, seed));
+    }
+
+    /**
+     * Plays a block of games on the current thread.
+     *
+     * @param firstGame The position of the first game of the block.
+     * @param numGames The number of games in the block.
+     * @param seed The seed of the simulation.
+     * @return The result of the block.
+     */
+    SimulationResult playGames(long firstGame, long numGames, long seed)
+    {
+        DiceRandom random = new DiceRandom(DiceRandom.mix(seed + firstGame));
+        Strategy strategy = strategyFactory.get();
+        SimulationResult result = new SimulationResult();
+        for(long i = 0; i < numGames; i++)
+        {
+            ThirtyGame game = new ThirtyGame(random);
+            playGame(game, strategy, result);
+            if(leaderboard != null)
+            {
+                leaderboard.submit(game.getState().getScoreTotal(), firstGame + i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Plays a game to the end, following the same rules as the app.
+     *
+     * @param game The game to play.
+     * @param strategy The strategy deciding holds and score choices.
+     * @param result The result the rounds and the final score total are added to.
+     */
+    public static void playGame(ThirtyGame game, Strategy strategy, SimulationResult result)
+    {
+        playGame(game, strategy, result, null);
+    }
+
+    /**
+     * Plays a game to the end, following the same rules as the app, and records every throw and round.
+     *
+     * @param game The game to play.
+     * @param strategy The strategy deciding holds and score choices.
+     * @param result The result the rounds and the final score total are added to.
+     * @param record The record of the game, already reset with the seed of the game, or null to not record the game.
+     */
+    public static void playGame(ThirtyGame game, Strategy strategy, SimulationResult result, GameRecord record)
+    {
+        GameState state = game.getState();
+        while(!state.isGameOver())
+        {
+            game.throwDices();
+            if(record != null)
+            {
+                record.addThrow(0);
+            }
+            while(state.canThrow())
+            {
+                int holds = strategy.chooseHolds(game);
+                if(holds == Strategy.HOLD_ALL)
+                {
+                    break;
+                }
+                applyHolds(game, holds);
+                game.throwDices();
+                if(record != null)
+                {
+                    record.addThrow(holds);
+                }
+            }
+            int scoreChoice = strategy.chooseScoreChoice(game);
+            int score = game.scoreRound(scoreChoice);
+            if(score < 0)
+            {
+                throw new IllegalStateException("Strategy chose unavailable score choice " + ScoreTable.getScoreChoice(scoreChoice));
+            }
+            if(record != null)
+            {
+                record.addRound(game.getDiceValues(), scoreChoice, score);
+            }
+            result.addRound(scoreChoice, score);
+        }
+        result.addGame(state.getScoreTotal());
+    }
+
+    /**
+     * Holds exactly the dices in the bitmask.
+     *
+     * @param game The game being played.
+     * @param holds A bitmask where bit j is set if dice j should be held.
+     */
+    public static void applyHolds(ThirtyGame game, int holds)
+    {
+        for(int j = 0; j < ThirtyGame.NUM_DICES; j++)
+        {
+            boolean hold = (holds & (1 << j)) != 0;
+            if(game.getDie(j).isHeld() != hold)
+            {
+                game.toggleHold(j);
+            }
+        }
+    }
+
+    /**
+     * Splits a range of games in halves until it is small enough to be played by one worker.
+     */
+    @SuppressWarnings("serial")
+    private class GamesTask extends RecursiveTask<SimulationResult>
+    {
+        private final long firstGame;
+        private final long numGames;
+        private final long seed;
+
+        GamesTask(long firstGame, long numGames, long seed) {
+            this.firstGame = firstGame;
+            this.numGames = numGames;
+            this.seed = seed;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if(numGames <= GAMES_PER_TASK)
+            {
+                return playGames(firstGame, numGames, seed);
+            }
+            long blocks = (numGames + GAMES_PER_TASK - 1) / GAMES_PER_TASK;
+            long firstHalf = (blocks / 2) * GAMES_PER_TASK;
+            GamesTask first = new GamesTask(firstGame, firstHalf, seed);
+            GamesTask second = new GamesTask(firstGame + firstHalf, numGames - firstHalf, seed);
+            first.fork();
+            SimulationResult result = second.compute();
+            return result.merge(first.join());
+        }
+    }
+
+    /**
+     * Runs a simulation with the {@link HighestScoreStrategy} and prints a summary.
+     *
+     * @param args The number of games, and optionally the seed.
+     */
+    public static void main(String[] args)
+    {
+        long numGames = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+
+        Leaderboard leaderboard = new Leaderboard(10);
+        long start = System.nanoTime();
+        SimulationResult result = new Simulator(new Supplier<Strategy>() {
+            @Override
+            public Strategy get() {
+                return new HighestScoreStrategy();
+            }
+        }, ForkJoinPool.commonPool(), leaderboard).run(numGames, seed);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        System.out.println("Games: " + result.getNumGames() + " in " + elapsedMillis + " ms (seed " + seed + ")");
+        System.out.printf("Score total: mean %.2f, variance %.2f%n", result.getMean(), result.getVariance());
+        for(int choice = 0; choice < ScoreTable.NUM_SCORE_CHOICES; choice++)
+        {
+            System.out.printf("%5s: mean %.2f%n", ScoreTable.getScoreChoice(choice), result.getCategoryMean(choice));
+        }
+        for(Leaderboard.Entry entry : leaderboard.getTopEntries())
+        {
+            System.out.printf("Game %d: %d%n", entry.getGameId(), entry.getScoreTotal());
+        }
+    }
+}
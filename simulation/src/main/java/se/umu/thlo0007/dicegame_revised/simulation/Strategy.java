@@ -0,0 +1,33 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
+
+/**
+ * This interface is a policy for playing a game of Thirty: which dices to hold between throws, and which score choice to use for a round.
+ * A strategy is used by one thread at a time, so implementations may keep reusable working memory.
+ *
+ * @author Thim Lohse
+ */
+public interface Strategy {
+
+    /**
+     * Bitmask holding all six dices, which ends the throwing for the round.
+     */
+    int HOLD_ALL = (1 << ThirtyGame.NUM_DICES) - 1;
+
+    /**
+     * Called after each throw of a round, as long as the dices can be thrown again.
+     *
+     * @param game The game being played.
+     * @return A bitmask where bit j is set if dice j should be held for the next throw, or {@link Strategy#HOLD_ALL} to stop throwing.
+     */
+    int chooseHolds(ThirtyGame game);
+
+    /**
+     * Called when the throwing for a round is done.
+     *
+     * @param game The game being played.
+     * @return The index of an unused score choice to score the round with.
+     */
+    int chooseScoreChoice(ThirtyGame game);
+}
@@ -0,0 +1,106 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Random;
+
+import se.umu.thlo0007.dicegame_revised.engine.DiceRandom;
+import se.umu.thlo0007.dicegame_revised.engine.GameState;
+import se.umu.thlo0007.dicegame_revised.engine.ScorePreview;
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+import se.umu.thlo0007.dicegame_revised.engine.Scorer;
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Budgets of the bytes allocated on the heap by the hot paths of a simulated game, measured with the allocation counter
+ * of the current thread. Each path is warmed up first so class loading and compilation are not counted,
+ * and the budgets are averages over many calls with headroom over the measured values.
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARM_UP_CALLS = 20000;
+    private static final int MEASURED_CALLS = 20000;
+
+    /**
+     * A new {@link ThirtyGame} played to the end, about 720 bytes. The {@link ScorePreview} looks six dices up in the score table,
+     * so playing the rounds only allocates the lists of scores and score choices of the {@link GameState}.
+     */
+    private static final long GAME_BUDGET_BYTES = 1024;
+    /**
+     * Scoring a hand from the score table allocates nothing.
+     */
+    private static final long SCORE_BUDGET_BYTES = 0;
+
+    private com.sun.management.ThreadMXBean threadBean;
+
+    @Before
+    public void enableAllocationCounter() throws Exception {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private long getAllocatedBytes()
+    {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void fullGameStaysWithinBudget() throws Exception {
+        Random random = new DiceRandom(30);
+        Strategy strategy = new HighestScoreStrategy();
+        SimulationResult result = new SimulationResult();
+        for(int i = 0; i < WARM_UP_CALLS; i++)
+        {
+            Simulator.playGame(new ThirtyGame(random), strategy, result);
+        }
+
+        long start = getAllocatedBytes();
+        for(int i = 0; i < MEASURED_CALLS; i++)
+        {
+            Simulator.playGame(new ThirtyGame(random), strategy, result);
+        }
+        long bytesPerGame = (getAllocatedBytes() - start) / MEASURED_CALLS;
+        assertTrue("A game allocated " + bytesPerGame + " bytes, budget " + GAME_BUDGET_BYTES,
+                bytesPerGame <= GAME_BUDGET_BYTES);
+    }
+
+    @Test
+    public void scoringStaysWithinBudget() throws Exception {
+        Scorer scorer = new Scorer();
+        ArrayList<Integer> diceValues = new ArrayList<>(ScoreTable.NUM_DICES);
+        int total = 0;
+        for(int i = 0; i < WARM_UP_CALLS; i++)
+        {
+            ScoringVerifier.getDiceValues(i % ScoringVerifier.NUM_HANDS, diceValues);
+            total += scorer.getScore(diceValues, i % ScoreTable.NUM_SCORE_CHOICES);
+        }
+
+        // The hands are filled in before counting, so only the scoring itself is measured.
+        ArrayList<ArrayList<Integer>> hands = new ArrayList<>(MEASURED_CALLS);
+        for(int i = 0; i < MEASURED_CALLS; i++)
+        {
+            ArrayList<Integer> hand = new ArrayList<>(ScoreTable.NUM_DICES);
+            ScoringVerifier.getDiceValues(i * 7 % ScoringVerifier.NUM_HANDS, hand);
+            hands.add(hand);
+        }
+        long start = getAllocatedBytes();
+        for(int i = 0; i < MEASURED_CALLS; i++)
+        {
+            total += scorer.getScore(hands.get(i), i % ScoreTable.NUM_SCORE_CHOICES);
+        }
+        long bytesPerScore = (getAllocatedBytes() - start) / MEASURED_CALLS;
+        assertTrue(total > 0);
+        assertTrue("A score allocated " + bytesPerScore + " bytes, budget " + SCORE_BUDGET_BYTES,
+                bytesPerScore <= SCORE_BUDGET_BYTES);
+    }
+}
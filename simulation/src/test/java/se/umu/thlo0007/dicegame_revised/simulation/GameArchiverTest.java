@@ -0,0 +1,42 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import se.umu.thlo0007.dicegame_revised.engine.GameRecord;
+import se.umu.thlo0007.dicegame_revised.engine.GameRecordReader;
+import se.umu.thlo0007.dicegame_revised.engine.ThirtyGame;
+
+import static org.junit.Assert.*;
+
+public class GameArchiverTest {
+
+    @Test
+    public void archivedGamesAreReadAndReplayed() throws Exception {
+        File file = File.createTempFile("games", ".bin");
+        file.deleteOnExit();
+        SimulationResult result = GameArchiver.archive(file, new HighestScoreStrategy(), 500, 30);
+        assertEquals(500 * GameRecord.RECORD_SIZE, file.length());
+
+        GameRecord record = new GameRecord();
+        long scoreTotals = 0;
+        try(GameRecordReader reader = new GameRecordReader(file))
+        {
+            assertEquals(500, reader.getNumRecords());
+            while(reader.next())
+            {
+                scoreTotals += reader.getScoreTotal();
+                reader.copyTo(record);
+                ThirtyGame game = GameArchiver.replay(record);
+                assertEquals(reader.getScoreTotal(), game.getState().getScoreTotal());
+                long lastRound = record.getRound(9);
+                for(int j = 0; j < ThirtyGame.NUM_DICES; j++)
+                {
+                    assertEquals(GameRecord.getDiceValue(lastRound, j), game.getDie(j).getValue());
+                }
+            }
+        }
+        assertEquals(result.getMean() * 500, scoreTotals, 1e-6);
+    }
+}
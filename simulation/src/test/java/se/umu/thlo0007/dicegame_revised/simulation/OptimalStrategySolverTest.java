@@ -0,0 +1,55 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import se.umu.thlo0007.dicegame_revised.engine.HandSpace;
+
+import static org.junit.Assert.*;
+
+public class OptimalStrategySolverTest {
+
+    private static OptimalStrategySolver solver;
+
+    @BeforeClass
+    public static void solve() throws Exception {
+        solver = OptimalStrategySolver.solve(ForkJoinPool.commonPool());
+    }
+
+    @Test
+    public void lastRoundValueIsExpectedScoreOfTheChoice() throws Exception {
+        assertEquals(0, solver.getExpectedScore(0), 0);
+        double lowOnly = solver.getExpectedScore(1);
+        assertTrue(lowOnly > 0 && lowOnly <= 18);
+    }
+
+    @Test
+    public void simulatedMeanMatchesExpectedScore() throws Exception {
+        SimulationResult result = new Simulator(new Supplier<Strategy>() {
+            @Override
+            public Strategy get() {
+                return new OptimalStrategy(solver);
+            }
+        }).run(20000, 1);
+        double expected = solver.getExpectedScore(OptimalStrategySolver.ALL_SCORE_CHOICES);
+        double standardError = Math.sqrt(result.getVariance() / result.getNumGames());
+        assertEquals(expected, result.getMean(), 5 * standardError);
+    }
+
+    @Test
+    public void bestKeepIsTakenFromTheHand() throws Exception {
+        for(int hand = 0; hand < HandSpace.NUM_HANDS; hand++)
+        {
+            int keep = solver.getBestKeep(OptimalStrategySolver.ALL_SCORE_CHOICES, 1, hand);
+            boolean found = false;
+            for(int subKeep : HandSpace.getSubKeeps(hand))
+            {
+                found |= subKeep == keep;
+            }
+            assertTrue(found);
+        }
+    }
+}
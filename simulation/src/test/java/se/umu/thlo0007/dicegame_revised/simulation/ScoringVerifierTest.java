@@ -0,0 +1,62 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import se.umu.thlo0007.dicegame_revised.engine.ScoreTable;
+
+import static org.junit.Assert.*;
+
+public class ScoringVerifierTest {
+
+    @Test
+    public void fastEnginesAgreeOnEveryHand() throws Exception {
+        LinkedHashMap<String, Supplier<HandScorer>> engines = ScoringVerifier.getEngines();
+        engines.remove("calculate");
+        engines.remove("greedy");
+        engines.remove("distinct");
+        Map.Entry<String, Supplier<HandScorer>> reference = new AbstractMap.SimpleEntry<>("partition", engines.remove("partition"));
+
+        ScoringVerifier.Report report = new ScoringVerifier(new ForkJoinPool(4)).verify(reference, engines);
+        assertEquals(Collections.emptyList(), report.getMismatches());
+        assertEquals(3, report.getElapsedNanos().size());
+    }
+
+    @Test
+    public void everyMismatchIsReported() throws Exception {
+        final Supplier<HandScorer> table = ScoringVerifier.getEngines().get("table");
+        Supplier<HandScorer> broken = new Supplier<HandScorer>() {
+            @Override
+            public HandScorer get() {
+                final HandScorer scorer = table.get();
+                return new HandScorer() {
+                    @Override
+                    public int getScore(ArrayList<Integer> diceValues, int scoreChoiceIndex) {
+                        // Forgets the groups of a single dice.
+                        return scoreChoiceIndex == ScoreTable.getScoreChoiceIndex("6") && diceValues.contains(6)
+                                ? 0 : scorer.getScore(diceValues, scoreChoiceIndex);
+                    }
+                };
+            }
+        };
+        LinkedHashMap<String, Supplier<HandScorer>> engines = new LinkedHashMap<>();
+        engines.put("broken", broken);
+
+        ScoringVerifier.Report report = new ScoringVerifier(new ForkJoinPool(2))
+                .verify(new AbstractMap.SimpleEntry<>("table", table), engines);
+        // Every hand with at least one 6 scores at least 6 for "6".
+        assertEquals(ScoringVerifier.NUM_HANDS - 15625, report.getMismatches().size());
+        ScoringVerifier.Mismatch first = report.getMismatches().get(0);
+        assertEquals("broken", first.getEngine());
+        assertArrayEquals(new int[]{6, 1, 1, 1, 1, 1}, first.getDiceValues());
+        assertEquals(6, first.getExpectedScore());
+        assertEquals(0, first.getActualScore());
+    }
+}
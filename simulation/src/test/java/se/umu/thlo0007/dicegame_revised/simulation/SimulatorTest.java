@@ -0,0 +1,42 @@
+package se.umu.thlo0007.dicegame_revised.simulation;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class SimulatorTest {
+
+    private static final Supplier<Strategy> HIGHEST_SCORE = new Supplier<Strategy>() {
+        @Override
+        public Strategy get() {
+            return new HighestScoreStrategy();
+        }
+    };
+
+    @Test
+    public void sameSeedGivesSameResultOnAnyPool() throws Exception {
+        SimulationResult single = new Simulator(HIGHEST_SCORE, new ForkJoinPool(1)).run(20000, 42);
+        SimulationResult parallel = new Simulator(HIGHEST_SCORE, new ForkJoinPool(4)).run(20000, 42);
+        assertEquals(20000, single.getNumGames());
+        assertEquals(single.getMean(), parallel.getMean(), 0);
+        assertTrue(Arrays.equals(single.getScoreTotalHistogram(), parallel.getScoreTotalHistogram()));
+    }
+
+    @Test
+    public void everyCategoryIsScoredOncePerGame() throws Exception {
+        SimulationResult result = new Simulator(HIGHEST_SCORE).run(5000, 7);
+        for(int choice = 0; choice < 10; choice++)
+        {
+            long rounds = 0;
+            for(long count : result.getCategoryHistogram(choice))
+            {
+                rounds += count;
+            }
+            assertEquals(5000, rounds);
+        }
+    }
+}